@@ -0,0 +1,69 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.utils.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Creates the data of the benchmarks.
+ *
+ * @author Christian Bremer
+ */
+final class BenchmarkFiles {
+
+    private BenchmarkFiles() {
+        super();
+    }
+
+    /**
+     * Returns random bytes, that are the same in every run.
+     *
+     * @param len the number of bytes
+     * @return the random bytes
+     */
+    static byte[] randomBytes(final int len) {
+        final byte[] bytes = new byte[len];
+        new Random(len).nextBytes(bytes);
+        return bytes;
+    }
+
+    /**
+     * Creates a temporary file with random content.
+     *
+     * @param size the size of the file
+     * @return the file
+     * @throws IOException if the file cannot be written
+     */
+    static Path createFile(final long size) throws IOException {
+        final Path file = Files.createTempFile("bremersee-utils-benchmark-", ".bin");
+        final byte[] chunk = randomBytes(1024 * 1024);
+        try (OutputStream out = Files.newOutputStream(file)) {
+            long remaining = size;
+            while (remaining > 0L) {
+                final int len = (int) Math.min(chunk.length, remaining);
+                out.write(chunk, 0, len);
+                remaining = remaining - len;
+            }
+        }
+        return file;
+    }
+
+}
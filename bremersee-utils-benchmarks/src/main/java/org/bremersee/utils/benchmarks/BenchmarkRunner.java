@@ -0,0 +1,77 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.bremersee.utils.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.util.Locale;
+
+/**
+ * Runs the benchmarks and writes the results as JSON baseline.
+ * <p>
+ * All options of the JMH command line are supported. If no result file is
+ * given, the results are written to
+ * {@code baselines/bremersee-utils-<version>.<format>}, where the version is
+ * the version of the benchmarked library and the format is the result format
+ * ({@code json} by default).
+ * </p>
+ *
+ * @author Christian Bremer
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+        super();
+    }
+
+    /**
+     * Runs the benchmarks.
+     *
+     * @param args the JMH command line options
+     * @throws CommandLineOptionException if the options are illegal
+     * @throws RunnerException            if running the benchmarks fails
+     */
+    public static void main(final String[] args) throws CommandLineOptionException, RunnerException {
+        final CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+        final ChainedOptionsBuilder builder = new OptionsBuilder().parent(commandLineOptions);
+        final ResultFormatType format = commandLineOptions.getResultFormat().orElse(ResultFormatType.JSON);
+        builder.resultFormat(format);
+        if (!commandLineOptions.getResult().hasValue()) {
+            final File file = new File("baselines", "bremersee-utils-" + libraryVersion() + "."
+                    + format.toString().toLowerCase(Locale.ENGLISH));
+            //noinspection ResultOfMethodCallIgnored
+            file.getParentFile().mkdirs();
+            builder.result(file.getPath());
+        }
+        new Runner(builder.build()).run();
+    }
+
+    private static String libraryVersion() {
+        final Package p = org.bremersee.utils.IoUtils.class.getPackage();
+        final String version = p == null ? null : p.getImplementationVersion();
+        return version == null ? "SNAPSHOT" : version;
+    }
+
+}
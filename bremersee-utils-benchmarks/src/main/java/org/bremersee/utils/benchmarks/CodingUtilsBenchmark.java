@@ -0,0 +1,87 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.bremersee.utils.benchmarks;
+
+import org.bremersee.utils.CodingUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.security.MessageDigest;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of {@link CodingUtils#digestSilently(MessageDigest, byte[])} and
+ * {@link CodingUtils#toHex(byte[])}.
+ *
+ * @author Christian Bremer
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CodingUtilsBenchmark {
+
+    @Param({"MD5", "SHA-256"})
+    private String algorithm;
+
+    @Param({"32", "4096", "1048576"})
+    private int size;
+
+    private byte[] bytes;
+
+    private MessageDigest md;
+
+    @Setup
+    public void createData() {
+        bytes = BenchmarkFiles.randomBytes(size);
+        md = CodingUtils.getMessageDigestSilently(algorithm);
+    }
+
+    @Benchmark
+    public byte[] digestBytes() {
+        return CodingUtils.digestSilently(md, bytes);
+    }
+
+    @Benchmark
+    public byte[] digestStream() {
+        return CodingUtils.digestSilently(md, new ByteArrayInputStream(bytes), false);
+    }
+
+    @Benchmark
+    public byte[] digestThreadLocal() {
+        return CodingUtils.digestSilently(algorithm, bytes);
+    }
+
+    @Benchmark
+    public String toHex() {
+        return CodingUtils.toHex(bytes);
+    }
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.utils.benchmarks;
+
+import org.bremersee.utils.CodingUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares hashing a file through an input stream with hashing memory mapped
+ * windows of the file ({@link CodingUtils#digestFileSilently(Path, String)}).
+ * <p>
+ * The 4 GB file needs the same amount of free disk space in the temporary
+ * directory. Run a single size with {@code -p size=1048576}.
+ * </p>
+ *
+ * @author Christian Bremer
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+public class DigestFileBenchmark {
+
+    private static final String ALGORITHM = "SHA-256";
+
+    @Param({"1048576", "104857600", "4294967296"})
+    private long size;
+
+    private Path file;
+
+    private MessageDigest md;
+
+    @Setup(Level.Trial)
+    public void createFile() throws IOException {
+        file = BenchmarkFiles.createFile(size);
+        md = CodingUtils.getMessageDigestSilently(ALGORITHM);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public byte[] stream() throws IOException {
+        return CodingUtils.digestSilently(md, Files.newInputStream(file), true);
+    }
+
+    @Benchmark
+    public byte[] mapped() {
+        return CodingUtils.digestFileSilently(file, md, null);
+    }
+
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.bremersee.utils.benchmarks;
+
+import org.bremersee.utils.IoUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of {@link IoUtils#copySilently(java.io.InputStream, OutputStream, boolean)}
+ * and {@link IoUtils#copySilently(java.io.Reader, Writer, boolean)}.
+ *
+ * @author Christian Bremer
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class IoUtilsBenchmark {
+
+    @Param({"1024", "65536", "4194304"})
+    private int size;
+
+    private byte[] bytes;
+
+    private String text;
+
+    @Setup
+    public void createData() {
+        bytes = BenchmarkFiles.randomBytes(size);
+        final char[] chars = new char[size];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (char) ('a' + (bytes[i] & 0x0f));
+        }
+        text = new String(chars);
+    }
+
+    @Benchmark
+    public long copyBytes() {
+        return IoUtils.copySilently(new ByteArrayInputStream(bytes), NullOutputStream.INSTANCE, false);
+    }
+
+    @Benchmark
+    public long copyChars() {
+        return IoUtils.copySilently(new StringReader(text), NullWriter.INSTANCE, false);
+    }
+
+    /**
+     * An output stream, that discards all bytes.
+     */
+    static final class NullOutputStream extends OutputStream {
+
+        static final NullOutputStream INSTANCE = new NullOutputStream();
+
+        @Override
+        public void write(final int b) {
+            // discard
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) {
+            // discard
+        }
+    }
+
+    /**
+     * A writer, that discards all characters.
+     */
+    static final class NullWriter extends Writer {
+
+        static final NullWriter INSTANCE = new NullWriter();
+
+        @Override
+        public void write(final char[] cbuf, final int off, final int len) {
+            // discard
+        }
+
+        @Override
+        public void flush() {
+            // nothing to flush
+        }
+
+        @Override
+        public void close() {
+            // nothing to close
+        }
+    }
+
+}
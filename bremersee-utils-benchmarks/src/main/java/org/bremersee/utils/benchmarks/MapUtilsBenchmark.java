@@ -0,0 +1,174 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.bremersee.utils.benchmarks;
+
+import org.bremersee.utils.MapUtils;
+import org.bremersee.utils.TypedMapView;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of {@link MapUtils#sort(Map)} and the {@code getValueAs*} methods.
+ *
+ * @author Christian Bremer
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MapUtilsBenchmark {
+
+    /**
+     * An enumeration, that is read from the map.
+     */
+    public enum Color {
+        RED, GREEN, BLUE
+    }
+
+    @Param({"100", "10000", "1000000"})
+    private int size;
+
+    private Map<String, Integer> unsorted;
+
+    private Map<String, Object> values;
+
+    private TypedMapView typedView;
+
+    @Setup
+    public void createData() {
+        final Random random = new Random(size);
+        unsorted = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            unsorted.put("key" + i, random.nextInt());
+        }
+        values = new HashMap<>();
+        values.put("string", "value");
+        values.put("stringList", Arrays.asList("first", "second"));
+        values.put("stringArray", new String[]{"first", "second"});
+        values.put("integer", 42);
+        values.put("integerString", "42");
+        values.put("long", "1234567890123");
+        values.put("boolean", "true");
+        values.put("double", "3.1415");
+        values.put("bigDecimal", new BigDecimal("3.1415"));
+        values.put("enum", "GREEN");
+        values.put("intArray", new int[]{1, 2, 3, 4, 5, 6, 7, 8});
+        typedView = MapUtils.typedView(values);
+    }
+
+    @Benchmark
+    public Map<String, Integer> sort() {
+        return MapUtils.sort(unsorted);
+    }
+
+    @Benchmark
+    public Map<String, Integer> sortParallel() {
+        return MapUtils.sort(unsorted, null, null);
+    }
+
+    @Benchmark
+    public Map<String, Integer> topK() {
+        return MapUtils.topK(unsorted, 10, Collections.<Integer>reverseOrder());
+    }
+
+    @Benchmark
+    public Map<String, Integer> topKParallel() {
+        return MapUtils.topK(unsorted, 10, Collections.<Integer>reverseOrder(), null);
+    }
+
+    @Benchmark
+    public String getValueAsString() {
+        return MapUtils.getValueAsString(values, "stringList", null);
+    }
+
+    @Benchmark
+    public Integer getValueAsInteger() {
+        return MapUtils.getValueAsInteger(values, "integerString", null);
+    }
+
+    @Benchmark
+    public Long getValueAsLong() {
+        return MapUtils.getValueAsLong(values, "long", null);
+    }
+
+    @Benchmark
+    public Boolean getValueAsBoolean() {
+        return MapUtils.getValueAsBoolean(values, "boolean", null);
+    }
+
+    @Benchmark
+    public Double getValueAsDouble() {
+        return MapUtils.getValueAsDouble(values, "double", null);
+    }
+
+    @Benchmark
+    public BigDecimal getValueAsBigDecimal() {
+        return MapUtils.getValueAsBigDecimal(values, "bigDecimal", null);
+    }
+
+    @Benchmark
+    public Color getValueAsEnum() {
+        return MapUtils.getValueAsEnum(values, "enum", Color.class, null);
+    }
+
+    @Benchmark
+    public Collection<?> getValueAsCollectionFromArray() {
+        return MapUtils.getValueAsCollection(values, "stringArray");
+    }
+
+    @Benchmark
+    public Collection<?> getValueAsCollectionFromPrimitiveArray() {
+        return MapUtils.getValueAsCollection(values, "intArray");
+    }
+
+    @Benchmark
+    public int[] getValueAsIntArray() {
+        return MapUtils.getValueAsIntArray(values, "intArray", null);
+    }
+
+    @Benchmark
+    public Integer typedViewGetInteger() {
+        return typedView.getInteger("integerString", null);
+    }
+
+    @Benchmark
+    public BigDecimal typedViewGetBigDecimal() {
+        return typedView.getBigDecimal("double", null);
+    }
+
+}
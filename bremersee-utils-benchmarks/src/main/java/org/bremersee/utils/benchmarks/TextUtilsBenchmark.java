@@ -0,0 +1,95 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.bremersee.utils.benchmarks;
+
+import org.bremersee.utils.LocaleUtils;
+import org.bremersee.utils.MailUtils;
+import org.bremersee.utils.PasswordUtils;
+import org.bremersee.utils.PhoneNumberUtils;
+import org.bremersee.utils.TagUtils;
+import org.bremersee.utils.TimeZoneUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the text utilities, that are called for every user input
+ * (passwords, tags, phone numbers, mail addresses, locales and time zones).
+ *
+ * @author Christian Bremer
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TextUtilsBenchmark {
+
+    private static final String FREE_TEXT = "The quick brown fox jumps over the lazy dog, "
+            + "while the Müller family from Köln watches the fox and the dog.";
+
+    @Benchmark
+    public String createRandomClearPassword() {
+        return PasswordUtils.createRandomClearPassword();
+    }
+
+    @Benchmark
+    public double getPasswordQuality() {
+        return PasswordUtils.getPasswordQuality("$<8.Ms&M}u)}LSh", 8);
+    }
+
+    @Benchmark
+    public String[] buildTags() {
+        return TagUtils.buildTags(FREE_TEXT);
+    }
+
+    @Benchmark
+    public String cleanPhoneNumber() {
+        return PhoneNumberUtils.cleanPhoneNumber("+49 (0) 171 / 123 45-67");
+    }
+
+    @Benchmark
+    public String buildMailAddress() {
+        return MailUtils.buildMailAddress("André Römer", "example.org");
+    }
+
+    @Benchmark
+    public String validateLanguageCode() {
+        return LocaleUtils.validateLanguageCode("de");
+    }
+
+    @Benchmark
+    public String validateCountryCode() {
+        return LocaleUtils.validateCountryCode("DE");
+    }
+
+    @Benchmark
+    public String validateTimeZoneId() {
+        return TimeZoneUtils.validateTimeZoneId("Europe/Berlin");
+    }
+
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.bremersee.utils;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * Base of the listeners, that hand copies of the data to a bounded queue,
+ * which is drained by a task of an executor. There is at most one draining
+ * task at a time, so the target listener gets the data in order.
+ * </p>
+ *
+ * @param <T> the type of the queued data (a byte or char array)
+ * @author Christian Bremer
+ */
+abstract class AbstractAsyncListener<T> implements Flushable, Closeable {
+
+    private final Object target;
+
+    private final Executor executor;
+
+    private final BlockingQueue<T> queue;
+
+    private final boolean discardWhenFull;
+
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    private final AtomicLong pending = new AtomicLong();
+
+    private final AtomicLong discarded = new AtomicLong();
+
+    private final Object lock = new Object();
+
+    private volatile RuntimeException failure;
+
+    private volatile boolean closed;
+
+    private final Runnable drainTask = new Runnable() {
+        @Override
+        public void run() {
+            drain();
+        }
+    };
+
+    /**
+     * Creates an asynchronous listener.
+     *
+     * @param target          the listener, that gets the data
+     * @param executor        the executor of the delivery
+     * @param queueCapacity   the maximum number of queued chunks
+     * @param discardWhenFull if {@code true} chunks are discarded, when the queue is full,
+     *                        otherwise the reading thread waits
+     */
+    AbstractAsyncListener(final Object target, final Executor executor, final int queueCapacity,
+                          final boolean discardWhenFull) {
+        this.target = target;
+        this.executor = executor;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.discardWhenFull = discardWhenFull;
+    }
+
+    /**
+     * Delivers a chunk to the target listener.
+     *
+     * @param chunk the chunk
+     */
+    abstract void deliver(T chunk);
+
+    /**
+     * Adds a chunk to the queue and starts a draining task, if none is running.
+     *
+     * @param chunk the chunk
+     * @throws IllegalStateException if the listener is closed
+     * @throws IORuntimeException    if the current thread is interrupted while
+     *                               waiting for space in the queue
+     */
+    final void enqueue(final T chunk) {
+        if (closed) {
+            throw new IllegalStateException("Listener is closed.");
+        }
+        pending.incrementAndGet();
+        if (discardWhenFull) {
+            if (!queue.offer(chunk)) {
+                done();
+                discarded.incrementAndGet();
+                return;
+            }
+        } else {
+            try {
+                queue.put(chunk);
+            } catch (InterruptedException e) {
+                done();
+                Thread.currentThread().interrupt();
+                throw new IORuntimeException(e);
+            }
+        }
+        schedule();
+    }
+
+    private void schedule() {
+        if (draining.compareAndSet(false, true)) {
+            try {
+                executor.execute(drainTask);
+            } catch (RejectedExecutionException e) {
+                // deliver in the calling thread rather than losing data
+                drain();
+            }
+        }
+    }
+
+    private void drain() {
+        T chunk;
+        while ((chunk = queue.poll()) != null) {
+            try {
+                deliver(chunk);
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            } finally {
+                done();
+            }
+        }
+        draining.set(false);
+        // a chunk may have been added after the last poll
+        if (!queue.isEmpty()) {
+            schedule();
+        }
+    }
+
+    private void done() {
+        if (pending.decrementAndGet() == 0L) {
+            synchronized (lock) {
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of chunks, that were discarded, because the queue was full.
+     *
+     * @return the number of discarded chunks
+     */
+    public long getDiscardedCount() {
+        return discarded.get();
+    }
+
+    /**
+     * Returns the number of chunks, that are not delivered yet.
+     *
+     * @return the number of pending chunks
+     */
+    public long getPendingCount() {
+        return pending.get();
+    }
+
+    /**
+     * Waits until all queued chunks are delivered and flushes the target
+     * listener, if it is {@link Flushable}.
+     *
+     * @throws InterruptedIOException if the current thread is interrupted
+     * @throws IOException            if the target listener has thrown an exception
+     *                                or cannot be flushed
+     */
+    @Override
+    public void flush() throws IOException {
+        synchronized (lock) {
+            while (pending.get() > 0L) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Waiting for the delivery was interrupted.");
+                }
+            }
+        }
+        final RuntimeException exception = failure;
+        if (exception != null) {
+            failure = null;
+            throw new IOException("Listener has failed.", exception);
+        }
+        if (target instanceof Flushable) {
+            ((Flushable) target).flush();
+        }
+    }
+
+    /**
+     * Flushes this listener and rejects any further data. The executor is not
+     * shut down.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            flush();
+        }
+    }
+
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.bremersee.utils;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * Base of the listeners, that collect the data of many small callbacks and
+ * deliver it in larger batches. The data is passed as {@code Object}, so that
+ * byte and char arrays can be handled in the same way with
+ * {@link System#arraycopy(Object, int, Object, int, int)}.
+ * </p>
+ *
+ * @author Christian Bremer
+ */
+abstract class AbstractBatchingListener implements Flushable {
+
+    private final Object target;
+
+    private final Object batch;
+
+    private final int batchSize;
+
+    private final long maxDelayNanos;
+
+    private int count;
+
+    private long lastDelivery = System.nanoTime();
+
+    /**
+     * Creates a batching listener.
+     *
+     * @param target         the listener, that gets the batches
+     * @param batch          the array, that collects the data
+     * @param batchSize      the length of the array
+     * @param maxDelayMillis the maximum time in milliseconds between two deliveries
+     *                       ({@code 0} or less disables time based delivery)
+     */
+    AbstractBatchingListener(final Object target, final Object batch, final int batchSize,
+                             final long maxDelayMillis) {
+        this.target = target;
+        this.batch = batch;
+        this.batchSize = batchSize;
+        this.maxDelayNanos = maxDelayMillis > 0L ? TimeUnit.MILLISECONDS.toNanos(maxDelayMillis) : 0L;
+    }
+
+    /**
+     * Delivers data to the target listener.
+     *
+     * @param data   the data
+     * @param offset the start offset of the data
+     * @param len    the length of the data
+     */
+    abstract void deliver(Object data, int offset, int len);
+
+    /**
+     * Adds data to the current batch. The batch is delivered, if it is full or
+     * if the maximum delay is exceeded. Data, that is larger than the batch, is
+     * passed through without copying it.
+     *
+     * @param data   the data
+     * @param offset the start offset of the data
+     * @param len    the length of the data
+     */
+    final void append(final Object data, final int offset, final int len) {
+        if (len <= 0) {
+            return;
+        }
+        if (count + len > batchSize) {
+            deliverBatch();
+        }
+        if (len >= batchSize) {
+            deliver(data, offset, len);
+            lastDelivery = System.nanoTime();
+            return;
+        }
+        System.arraycopy(data, offset, batch, count, len);
+        count = count + len;
+        if (count >= batchSize || (maxDelayNanos > 0L && System.nanoTime() - lastDelivery >= maxDelayNanos)) {
+            deliverBatch();
+        }
+    }
+
+    private void deliverBatch() {
+        if (count > 0) {
+            final int len = count;
+            count = 0;
+            deliver(batch, 0, len);
+        }
+        lastDelivery = System.nanoTime();
+    }
+
+    /**
+     * Returns the number of bytes or chars, that are waiting for delivery.
+     *
+     * @return the number of bytes or chars of the current batch
+     */
+    public int getPendingLength() {
+        return count;
+    }
+
+    /**
+     * Delivers the current batch and flushes the target listener, if it is
+     * {@link Flushable}.
+     */
+    @Override
+    public void flush() throws IOException {
+        deliverBatch();
+        if (target instanceof Flushable) {
+            ((Flushable) target).flush();
+        }
+    }
+
+}
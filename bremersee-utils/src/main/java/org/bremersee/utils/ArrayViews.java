@@ -0,0 +1,248 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.bremersee.utils;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * <p>
+ * Read-only list views of primitive arrays.
+ * </p>
+ * <p>
+ * The views are backed by the array, so the elements are not copied. They
+ * are boxed, when they are read.
+ * </p>
+ *
+ * @author Christian Bremer
+ */
+final class ArrayViews {
+
+    /**
+     * Never construct.
+     */
+    private ArrayViews() {
+        super();
+    }
+
+    /**
+     * Returns a read-only list view of the primitive array.
+     *
+     * @param array an array of a primitive component type
+     * @return the list view
+     * @throws ClassCastException if the object is not a primitive array
+     */
+    static List<?> asList(final Object array) {
+        if (array instanceof boolean[]) {
+            return new BooleanArrayList((boolean[]) array);
+        } else if (array instanceof byte[]) {
+            return new ByteArrayList((byte[]) array);
+        } else if (array instanceof short[]) {
+            return new ShortArrayList((short[]) array);
+        } else if (array instanceof char[]) {
+            return new CharArrayList((char[]) array);
+        } else if (array instanceof int[]) {
+            return new IntArrayList((int[]) array);
+        } else if (array instanceof long[]) {
+            return new LongArrayList((long[]) array);
+        } else if (array instanceof float[]) {
+            return new FloatArrayList((float[]) array);
+        } else if (array instanceof double[]) {
+            return new DoubleArrayList((double[]) array);
+        }
+        throw new ClassCastException(array.getClass().getName() + " is not a primitive array.");
+    }
+
+    /**
+     * A read-only list view of a {@code boolean} array.
+     */
+    private static class BooleanArrayList extends AbstractList<Boolean> implements RandomAccess {
+
+        private final boolean[] array;
+
+        BooleanArrayList(final boolean[] array) {
+            this.array = array;
+        }
+
+        @Override
+        public Boolean get(final int index) {
+            return array[index];
+        }
+
+        @Override
+        public int size() {
+            return array.length;
+        }
+    }
+
+    /**
+     * A read-only list view of a {@code byte} array.
+     */
+    private static class ByteArrayList extends AbstractList<Byte> implements RandomAccess {
+
+        private final byte[] array;
+
+        ByteArrayList(final byte[] array) {
+            this.array = array;
+        }
+
+        @Override
+        public Byte get(final int index) {
+            return array[index];
+        }
+
+        @Override
+        public int size() {
+            return array.length;
+        }
+    }
+
+    /**
+     * A read-only list view of a {@code short} array.
+     */
+    private static class ShortArrayList extends AbstractList<Short> implements RandomAccess {
+
+        private final short[] array;
+
+        ShortArrayList(final short[] array) {
+            this.array = array;
+        }
+
+        @Override
+        public Short get(final int index) {
+            return array[index];
+        }
+
+        @Override
+        public int size() {
+            return array.length;
+        }
+    }
+
+    /**
+     * A read-only list view of a {@code char} array.
+     */
+    private static class CharArrayList extends AbstractList<Character> implements RandomAccess {
+
+        private final char[] array;
+
+        CharArrayList(final char[] array) {
+            this.array = array;
+        }
+
+        @Override
+        public Character get(final int index) {
+            return array[index];
+        }
+
+        @Override
+        public int size() {
+            return array.length;
+        }
+    }
+
+    /**
+     * A read-only list view of a {@code int} array.
+     */
+    private static class IntArrayList extends AbstractList<Integer> implements RandomAccess {
+
+        private final int[] array;
+
+        IntArrayList(final int[] array) {
+            this.array = array;
+        }
+
+        @Override
+        public Integer get(final int index) {
+            return array[index];
+        }
+
+        @Override
+        public int size() {
+            return array.length;
+        }
+    }
+
+    /**
+     * A read-only list view of a {@code long} array.
+     */
+    private static class LongArrayList extends AbstractList<Long> implements RandomAccess {
+
+        private final long[] array;
+
+        LongArrayList(final long[] array) {
+            this.array = array;
+        }
+
+        @Override
+        public Long get(final int index) {
+            return array[index];
+        }
+
+        @Override
+        public int size() {
+            return array.length;
+        }
+    }
+
+    /**
+     * A read-only list view of a {@code float} array.
+     */
+    private static class FloatArrayList extends AbstractList<Float> implements RandomAccess {
+
+        private final float[] array;
+
+        FloatArrayList(final float[] array) {
+            this.array = array;
+        }
+
+        @Override
+        public Float get(final int index) {
+            return array[index];
+        }
+
+        @Override
+        public int size() {
+            return array.length;
+        }
+    }
+
+    /**
+     * A read-only list view of a {@code double} array.
+     */
+    private static class DoubleArrayList extends AbstractList<Double> implements RandomAccess {
+
+        private final double[] array;
+
+        DoubleArrayList(final double[] array) {
+            this.array = array;
+        }
+
+        @Override
+        public Double get(final int index) {
+            return array[index];
+        }
+
+        @Override
+        public int size() {
+            return array.length;
+        }
+    }
+
+}
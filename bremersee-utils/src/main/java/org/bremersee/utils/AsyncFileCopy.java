@@ -0,0 +1,259 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * An asynchronous copy operation between two files. A read and the following
+ * write are chained with completion handlers, so no thread is blocked while
+ * the data is transferred.
+ * </p>
+ *
+ * @param <A> the type of the attachment
+ * @author Christian Bremer
+ */
+final class AsyncFileCopy<A> implements Future<Long> {
+
+    private static final int RUNNING = 0;
+
+    private static final int COMPLETED = 1;
+
+    private static final int FAILED = 2;
+
+    private static final int CANCELLED = 3;
+
+    private final AtomicInteger state = new AtomicInteger(RUNNING);
+
+    private final CountDownLatch done = new CountDownLatch(1);
+
+    private final AsynchronousFileChannel source;
+
+    private final AsynchronousFileChannel target;
+
+    private final InputStreamListener listener;
+
+    private final A attachment;
+
+    private final CompletionHandler<Long, ? super A> handler;
+
+    private final byte[] array;
+
+    private final ByteBuffer buffer;
+
+    private long position;
+
+    private volatile Throwable failure;
+
+    private final CompletionHandler<Integer, Void> readHandler = new CompletionHandler<Integer, Void>() {
+
+        @Override
+        public void completed(final Integer len, final Void ignored) {
+            if (state.get() != RUNNING) {
+                return;
+            }
+            if (len == -1) {
+                try {
+                    ListenerUtils.flush(listener);
+                } catch (IOException | RuntimeException e) {
+                    fail(e);
+                    return;
+                }
+                finish();
+            } else {
+                buffer.flip();
+                write();
+            }
+        }
+
+        @Override
+        public void failed(final Throwable exc, final Void ignored) {
+            fail(exc);
+        }
+    };
+
+    private final CompletionHandler<Integer, Void> writeHandler = new CompletionHandler<Integer, Void>() {
+
+        @Override
+        public void completed(final Integer len, final Void ignored) {
+            position = position + len;
+            if (state.get() != RUNNING) {
+                // cancelled while writing, the listener must not be called anymore
+                return;
+            }
+            if (buffer.hasRemaining()) {
+                write();
+                return;
+            }
+            try {
+                if (listener != null) {
+                    listener.onReadBytes(array, 0, buffer.limit());
+                }
+            } catch (RuntimeException e) {
+                fail(e);
+                return;
+            }
+            read();
+        }
+
+        @Override
+        public void failed(final Throwable exc, final Void ignored) {
+            fail(exc);
+        }
+    };
+
+    /**
+     * Creates an asynchronous copy operation. The channels will be closed, when
+     * the operation is done.
+     *
+     * @param source     the source channel
+     * @param target     the target channel
+     * @param listener   the listener (may be {@code null})
+     * @param attachment the attachment of the handler (may be {@code null})
+     * @param handler    the completion handler (may be {@code null})
+     */
+    AsyncFileCopy(final AsynchronousFileChannel source, final AsynchronousFileChannel target,
+                  final InputStreamListener listener, final A attachment,
+                  final CompletionHandler<Long, ? super A> handler) {
+        this.source = source;
+        this.target = target;
+        this.listener = listener;
+        this.attachment = attachment;
+        this.handler = handler;
+        // The buffer is not pooled: after cancelling, a read or write of the
+        // channel group may still be in flight into it, and the handlers run
+        // on other threads than the one, that has acquired it.
+        this.array = new byte[BufferPool.getDefault().getMaxSize()];
+        this.buffer = ByteBuffer.wrap(array);
+    }
+
+    /**
+     * Starts the copy operation.
+     */
+    void start() {
+        read();
+    }
+
+    private void read() {
+        if (state.get() != RUNNING) {
+            return;
+        }
+        buffer.clear();
+        try {
+            source.read(buffer, position, null, readHandler);
+        } catch (RuntimeException e) {
+            fail(e);
+        }
+    }
+
+    private void write() {
+        if (state.get() != RUNNING) {
+            return;
+        }
+        try {
+            target.write(buffer, position, null, writeHandler);
+        } catch (RuntimeException e) {
+            fail(e);
+        }
+    }
+
+    private boolean terminate(final int newState) {
+        if (!state.compareAndSet(RUNNING, newState)) {
+            return false;
+        }
+        close();
+        done.countDown();
+        return true;
+    }
+
+    private void close() {
+        IoUtils.closeSilently(source);
+        IoUtils.closeSilently(target);
+    }
+
+    private void finish() {
+        if (terminate(COMPLETED) && handler != null) {
+            handler.completed(position, attachment);
+        }
+    }
+
+    private void fail(final Throwable exc) {
+        failure = exc instanceof RuntimeException ? exc : new IORuntimeException(exc);
+        if (terminate(FAILED) && handler != null) {
+            handler.failed(failure, attachment);
+        }
+    }
+
+    @Override
+    public boolean cancel(final boolean mayInterruptIfRunning) {
+        if (!terminate(CANCELLED)) {
+            return false;
+        }
+        if (handler != null) {
+            handler.failed(new CancellationException(), attachment);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return state.get() == CANCELLED;
+    }
+
+    @Override
+    public boolean isDone() {
+        return state.get() != RUNNING;
+    }
+
+    @Override
+    public Long get() throws InterruptedException, ExecutionException {
+        done.await();
+        return result();
+    }
+
+    @Override
+    public Long get(final long timeout, final TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        if (!done.await(timeout, unit)) {
+            throw new TimeoutException();
+        }
+        return result();
+    }
+
+    private Long result() throws ExecutionException {
+        switch (state.get()) {
+            case COMPLETED:
+                return position;
+            case CANCELLED:
+                throw new CancellationException();
+            default:
+                throw new ExecutionException(failure);
+        }
+    }
+
+}
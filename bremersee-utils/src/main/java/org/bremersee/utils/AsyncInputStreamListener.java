@@ -0,0 +1,96 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.bremersee.utils;
+
+import org.apache.commons.lang3.Validate;
+
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+
+/**
+ * <p>
+ * An input stream listener, that delivers the data to another listener in a
+ * background thread, so that a slow listener doesn't slow down the reading
+ * thread. The data is copied into a bounded queue. If the queue is full, the
+ * data is discarded or the reading thread waits, depending on the
+ * construction of the listener.
+ * </p>
+ * <p>
+ * {@link #flush()} waits until all queued data is delivered. It is called by
+ * the copy and digest operations of this library, when the end of the stream
+ * is reached. Exceptions of the target listener are rethrown there.
+ * </p>
+ * <p>
+ * Many small chunks should be batched with a {@link BatchingInputStreamListener}
+ * in front of this listener:
+ * </p>
+ * <pre>
+ * InputStreamListener listener = new BatchingInputStreamListener(
+ *     new AsyncInputStreamListener(slowListener, 16, true), 256 * 1024, 500L);
+ * </pre>
+ *
+ * @author Christian Bremer
+ */
+public final class AsyncInputStreamListener extends AbstractAsyncListener<byte[]> implements InputStreamListener {
+
+    private final InputStreamListener target;
+
+    /**
+     * Creates an asynchronous listener, that uses the shared IO executor of
+     * this library.
+     *
+     * @param target          the listener, that gets the data
+     * @param queueCapacity   the maximum number of queued chunks
+     * @param discardWhenFull if {@code true} chunks are discarded, when the queue is full,
+     *                        otherwise the reading thread waits
+     */
+    public AsyncInputStreamListener(final InputStreamListener target, final int queueCapacity,
+                                    final boolean discardWhenFull) {
+        this(target, SharedExecutors.io(), queueCapacity, discardWhenFull);
+    }
+
+    /**
+     * Creates an asynchronous listener.
+     *
+     * @param target          the listener, that gets the data
+     * @param executor        the executor of the delivery
+     * @param queueCapacity   the maximum number of queued chunks
+     * @param discardWhenFull if {@code true} chunks are discarded, when the queue is full,
+     *                        otherwise the reading thread waits
+     */
+    public AsyncInputStreamListener(final InputStreamListener target, final Executor executor,
+                                    final int queueCapacity, final boolean discardWhenFull) {
+        super(target, executor, queueCapacity, discardWhenFull);
+        Validate.notNull(target, "Target listener must not be null.");
+        Validate.notNull(executor, "Executor must not be null.");
+        this.target = target;
+    }
+
+    @Override
+    public void onReadBytes(final byte[] buffer, final int offset, final int len) {
+        if (len > 0) {
+            enqueue(Arrays.copyOfRange(buffer, offset, offset + len));
+        }
+    }
+
+    @Override
+    void deliver(final byte[] chunk) {
+        target.onReadBytes(chunk, 0, chunk.length);
+    }
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.bremersee.utils;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * <p>
+ * A reader listener, that collects the data of many small callbacks
+ * and delivers it in larger batches to another listener. A batch is delivered,
+ * when it is full or when the maximum delay since the last delivery is
+ * exceeded. The rest is delivered by {@link #flush()}, which is called by the
+ * copy operations of this library, when the end of the reader is
+ * reached.
+ * </p>
+ * <p>
+ * This listener is not thread safe.
+ * </p>
+ *
+ * @author Christian Bremer
+ */
+public final class BatchingReaderListener extends AbstractBatchingListener implements ReaderListener {
+
+    private final ReaderListener target;
+
+    /**
+     * Creates a batching listener.
+     *
+     * @param target         the listener, that gets the batches
+     * @param batchSize      the number of chars of a batch
+     * @param maxDelayMillis the maximum time in milliseconds between two deliveries
+     *                       ({@code 0} or less disables time based delivery)
+     */
+    public BatchingReaderListener(final ReaderListener target, final int batchSize,
+                                  final long maxDelayMillis) {
+        super(target, new char[validBatchSize(batchSize)], batchSize, maxDelayMillis);
+        Validate.notNull(target, "Target listener must not be null.");
+        this.target = target;
+    }
+
+    private static int validBatchSize(final int batchSize) {
+        Validate.isTrue(batchSize > 0, "Batch size must be greater than 0.");
+        return batchSize;
+    }
+
+    @Override
+    public void onReadChars(final char[] buffer, final int offset, final int len) {
+        append(buffer, offset, len);
+    }
+
+    @Override
+    void deliver(final Object data, final int offset, final int len) {
+        target.onReadChars((char[]) data, offset, len);
+    }
+
+}
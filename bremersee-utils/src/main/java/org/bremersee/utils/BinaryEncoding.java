@@ -0,0 +1,123 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.utils;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Encodings of binary data into printable characters as specified in
+ * <a href="https://tools.ietf.org/html/rfc4648">RFC 4648</a>.
+ * </p>
+ *
+ * @author Christian Bremer
+ * @see EncodingOutputStream
+ * @see DecodingInputStream
+ */
+public enum BinaryEncoding {
+
+    /**
+     * Base 16 encoding with lower case characters (decoding accepts upper case
+     * characters, too).
+     */
+    HEX("0123456789abcdef", 4, 1, true),
+
+    /**
+     * Base 32 encoding with padding (decoding accepts lower case characters,
+     * too).
+     */
+    BASE32("ABCDEFGHIJKLMNOPQRSTUVWXYZ234567", 5, 8, true),
+
+    /**
+     * Base 64 encoding with padding.
+     */
+    BASE64("ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/", 6, 4, false),
+
+    /**
+     * Base 64 encoding with the URL and file name safe alphabet and padding
+     * (decoding accepts missing padding, too).
+     */
+    BASE64_URL("ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_", 6, 4, false);
+
+    /**
+     * The padding character.
+     */
+    static final char PAD = '=';
+
+    private final char[] alphabet;
+
+    private final int bitsPerChar;
+
+    private final int charsPerBlock;
+
+    private final byte[] values = new byte[128];
+
+    BinaryEncoding(final String alphabet, final int bitsPerChar, final int charsPerBlock,
+                   final boolean caseInsensitive) {
+        this.alphabet = alphabet.toCharArray();
+        this.bitsPerChar = bitsPerChar;
+        this.charsPerBlock = charsPerBlock;
+        Arrays.fill(values, (byte) -1);
+        for (int i = 0; i < this.alphabet.length; i++) {
+            final char c = this.alphabet[i];
+            values[c] = (byte) i;
+            if (caseInsensitive) {
+                values[Character.toLowerCase(c)] = (byte) i;
+                values[Character.toUpperCase(c)] = (byte) i;
+            }
+        }
+    }
+
+    /**
+     * Returns the character of the specified value.
+     *
+     * @param value the value (must be less than {@code 2^bitsPerChar})
+     * @return the character
+     */
+    char toChar(final int value) {
+        return alphabet[value];
+    }
+
+    /**
+     * Returns the value of the specified character.
+     *
+     * @param c the character
+     * @return the value or {@code -1} if the character is not part of the alphabet
+     */
+    int toValue(final int c) {
+        return c >= 0 && c < values.length ? values[c] : -1;
+    }
+
+    /**
+     * Returns the number of bits, that are encoded by one character.
+     *
+     * @return the number of bits per character
+     */
+    int getBitsPerChar() {
+        return bitsPerChar;
+    }
+
+    /**
+     * Returns the number of characters of a padded block.
+     *
+     * @return the number of characters of a padded block ({@code 1} if there is no padding)
+     */
+    int getCharsPerBlock() {
+        return charsPerBlock;
+    }
+
+}
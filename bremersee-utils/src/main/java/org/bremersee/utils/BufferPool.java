@@ -0,0 +1,355 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.utils;
+
+import org.apache.commons.lang3.Validate;
+
+import java.nio.ByteBuffer;
+
+/**
+ * <p>
+ * A pool of byte, char and direct byte buffers, that are used by the copy
+ * and digest loops of this library.
+ * </p>
+ * <p>
+ * The buffer sizes are powers of two between a minimum and a maximum size.
+ * Each thread keeps at most one byte, one char and one direct buffer, the
+ * largest one, that it has released. So acquiring and releasing a buffer
+ * needs no synchronization and a thread never keeps more than the maximum
+ * size of every kind. Direct buffers are only kept up to a smaller size (by
+ * default 256 KiB), because their memory is not part of the heap and is
+ * released late.
+ * </p>
+ * <p>
+ * The sizes of the default pool can be configured with the system properties
+ * {@code org.bremersee.utils.BufferPool.minSize} and
+ * {@code org.bremersee.utils.BufferPool.maxSize} (default values are 8 KiB
+ * and 1 MiB), the size limit of the kept direct buffers with
+ * {@code org.bremersee.utils.BufferPool.maxCachedDirectSize}.
+ * </p>
+ *
+ * @author Christian Bremer
+ */
+public class BufferPool {
+
+    /**
+     * The default minimum size of a buffer (8 KiB).
+     */
+    public static final int DEFAULT_MIN_SIZE = 8 * 1024;
+
+    /**
+     * The default maximum size of a buffer (1 MiB).
+     */
+    public static final int DEFAULT_MAX_SIZE = 1024 * 1024;
+
+    /**
+     * The default maximum size of a direct buffer, that is kept by a thread
+     * (256 KiB).
+     */
+    public static final int DEFAULT_MAX_CACHED_DIRECT_SIZE = 256 * 1024;
+
+    /**
+     * A buffer will be replaced by the next larger one, after this multiple of
+     * it's size was transferred.
+     */
+    private static final long GROWTH_FACTOR = 8L;
+
+    private static volatile BufferPool defaultPool = new BufferPool(
+            Integer.getInteger(BufferPool.class.getName() + ".minSize", DEFAULT_MIN_SIZE),
+            Integer.getInteger(BufferPool.class.getName() + ".maxSize", DEFAULT_MAX_SIZE),
+            Integer.getInteger(BufferPool.class.getName() + ".maxCachedDirectSize", DEFAULT_MAX_CACHED_DIRECT_SIZE));
+
+    private final int minSize;
+
+    private final int maxSize;
+
+    private final int maxCachedDirectSize;
+
+    private final ThreadLocal<byte[]> byteBuffer = new ThreadLocal<>();
+
+    private final ThreadLocal<char[]> charBuffer = new ThreadLocal<>();
+
+    private final ThreadLocal<ByteBuffer> directBuffer = new ThreadLocal<>();
+
+    /**
+     * Creates a buffer pool with the default size limit of the kept direct
+     * buffers. The
+     * sizes will be rounded up to the next power of two.
+     *
+     * @param minSize the minimum size of a buffer
+     * @param maxSize the maximum size of a buffer
+     * @throws IllegalArgumentException if the minimum size is less than {@code 1} or
+     *                                  greater than the maximum size
+     */
+    public BufferPool(final int minSize, final int maxSize) {
+        this(minSize, maxSize, DEFAULT_MAX_CACHED_DIRECT_SIZE);
+    }
+
+    /**
+     * Creates a buffer pool. The sizes will be rounded up to the next power of
+     * two.
+     *
+     * @param minSize             the minimum size of a buffer
+     * @param maxSize             the maximum size of a buffer
+     * @param maxCachedDirectSize the maximum size of a direct buffer, that is kept by a
+     *                            thread ({@code 0} disables keeping direct buffers)
+     * @throws IllegalArgumentException if the minimum size is less than {@code 1} or
+     *                                  greater than the maximum size or the maximum
+     *                                  size of the kept direct buffers is negative
+     */
+    public BufferPool(final int minSize, final int maxSize, final int maxCachedDirectSize) {
+        Validate.isTrue(minSize > 0, "Minimum size must be greater than 0.");
+        Validate.isTrue(minSize <= maxSize, "Minimum size must not be greater than maximum size.");
+        Validate.isTrue(maxSize <= 1 << 30, "Maximum size must not be greater than 1 GiB.");
+        Validate.isTrue(maxCachedDirectSize >= 0, "Maximum size of kept direct buffers must not be negative.");
+        this.minSize = roundUp(minSize);
+        this.maxSize = roundUp(maxSize);
+        this.maxCachedDirectSize = maxCachedDirectSize;
+    }
+
+    /**
+     * Returns the default buffer pool.
+     *
+     * @return the default buffer pool
+     */
+    public static BufferPool getDefault() {
+        return defaultPool;
+    }
+
+    /**
+     * Sets the default buffer pool.
+     *
+     * @param bufferPool the new default buffer pool
+     * @throws IllegalArgumentException if the buffer pool is {@code null}
+     */
+    @SuppressWarnings("unused")
+    public static void setDefault(final BufferPool bufferPool) {
+        Validate.notNull(bufferPool, "Buffer pool must not be null.");
+        defaultPool = bufferPool;
+    }
+
+    private static int roundUp(final int size) {
+        final int highestOneBit = Integer.highestOneBit(size);
+        return highestOneBit == size ? size : highestOneBit << 1;
+    }
+
+    /**
+     * Returns the minimum size of a buffer.
+     *
+     * @return the minimum size of a buffer
+     */
+    public int getMinSize() {
+        return minSize;
+    }
+
+    /**
+     * Returns the maximum size of a buffer.
+     *
+     * @return the maximum size of a buffer
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    private int bucketSize(final long expectedSize) {
+        if (expectedSize <= minSize) {
+            return minSize;
+        }
+        if (expectedSize >= maxSize) {
+            return maxSize;
+        }
+        return roundUp((int) expectedSize);
+    }
+
+    private boolean isPoolable(final int length) {
+        return length >= minSize && length <= maxSize && Integer.bitCount(length) == 1;
+    }
+
+    private boolean shouldGrow(final int length, final long transferred) {
+        return length < maxSize && transferred >= GROWTH_FACTOR * length;
+    }
+
+    /**
+     * Acquires a byte buffer. It's size is at least the expected size rounded
+     * up to the next power of two, but not less than the minimum and not
+     * greater than the maximum size of this pool. The buffer of the current
+     * thread is returned, if it is large enough, so the buffer may be larger.
+     *
+     * @param expectedSize the expected size of the data that will be copied
+     *                     ({@code 0} if unknown)
+     * @return the byte buffer
+     */
+    public byte[] acquireBytes(final long expectedSize) {
+        final int size = bucketSize(expectedSize);
+        final byte[] buffer = byteBuffer.get();
+        if (buffer != null && buffer.length >= size) {
+            byteBuffer.remove();
+            return buffer;
+        }
+        return new byte[size];
+    }
+
+    /**
+     * Gives a byte buffer back to the pool. Buffers, that were not acquired from
+     * this pool, are ignored. If the current thread keeps a larger buffer, the
+     * specified buffer is dropped, otherwise it replaces the kept buffer.
+     *
+     * @param buffer the byte buffer (may be {@code null})
+     */
+    public void releaseBytes(final byte[] buffer) {
+        if (buffer != null && isPoolable(buffer.length)) {
+            final byte[] kept = byteBuffer.get();
+            if (kept == null || kept.length <= buffer.length) {
+                byteBuffer.set(buffer);
+            }
+        }
+    }
+
+    /**
+     * Returns a larger byte buffer, if the specified number of transferred bytes
+     * is large compared to the size of the current buffer, so that large
+     * transfers need less system calls. In this case the current buffer is
+     * released.
+     *
+     * @param buffer      the current byte buffer
+     * @param transferred the number of bytes transferred so far
+     * @return the current or a larger byte buffer
+     */
+    public byte[] growBytes(final byte[] buffer, final long transferred) {
+        if (!shouldGrow(buffer.length, transferred)) {
+            return buffer;
+        }
+        final byte[] larger = acquireBytes(buffer.length * 2L);
+        releaseBytes(buffer);
+        return larger;
+    }
+
+    /**
+     * Acquires a direct byte buffer. It's capacity is at least the expected
+     * size rounded up to the next power of two, but not less than the minimum
+     * and not greater than the maximum size of this pool. The buffer of the
+     * current thread is returned, if it is large enough, so the buffer may be
+     * larger. The buffer is cleared.
+     *
+     * @param expectedSize the expected size of the data that will be copied
+     *                     ({@code 0} if unknown)
+     * @return the direct byte buffer
+     */
+    public ByteBuffer acquireDirect(final long expectedSize) {
+        final int size = bucketSize(expectedSize);
+        final ByteBuffer buffer = directBuffer.get();
+        if (buffer != null && buffer.capacity() >= size) {
+            directBuffer.remove();
+            buffer.clear();
+            return buffer;
+        }
+        return ByteBuffer.allocateDirect(size);
+    }
+
+    /**
+     * Gives a direct byte buffer back to the pool. Heap buffers and buffers,
+     * that were not acquired from this pool, are ignored. If the buffer is
+     * larger than the size limit of the kept direct buffers or the current
+     * thread keeps a larger buffer, the specified buffer is dropped, otherwise
+     * it replaces the kept buffer.
+     *
+     * @param buffer the direct byte buffer (may be {@code null})
+     */
+    public void releaseDirect(final ByteBuffer buffer) {
+        if (buffer != null && buffer.isDirect() && isPoolable(buffer.capacity())
+                && buffer.capacity() <= maxCachedDirectSize) {
+            final ByteBuffer kept = directBuffer.get();
+            if (kept == null || kept.capacity() <= buffer.capacity()) {
+                directBuffer.set(buffer);
+            }
+        }
+    }
+
+    /**
+     * Returns a larger direct byte buffer, if the specified number of
+     * transferred bytes is large compared to the capacity of the current
+     * buffer. In this case the current buffer is released and the returned
+     * buffer is cleared; otherwise the current buffer is returned unchanged.
+     *
+     * @param buffer      the current direct byte buffer
+     * @param transferred the number of bytes transferred so far
+     * @return the current or a larger direct byte buffer
+     */
+    public ByteBuffer growDirect(final ByteBuffer buffer, final long transferred) {
+        if (!shouldGrow(buffer.capacity(), transferred)) {
+            return buffer;
+        }
+        final ByteBuffer larger = acquireDirect(buffer.capacity() * 2L);
+        releaseDirect(buffer);
+        return larger;
+    }
+
+    /**
+     * Acquires a char buffer. It's size is at least the expected size rounded
+     * up to the next power of two, but not less than the minimum and not
+     * greater than the maximum size of this pool. The buffer of the current
+     * thread is returned, if it is large enough, so the buffer may be larger.
+     *
+     * @param expectedSize the expected size of the data that will be copied
+     *                     ({@code 0} if unknown)
+     * @return the char buffer
+     */
+    public char[] acquireChars(final long expectedSize) {
+        final int size = bucketSize(expectedSize);
+        final char[] buffer = charBuffer.get();
+        if (buffer != null && buffer.length >= size) {
+            charBuffer.remove();
+            return buffer;
+        }
+        return new char[size];
+    }
+
+    /**
+     * Gives a char buffer back to the pool. Buffers, that were not acquired from
+     * this pool, are ignored. If the current thread keeps a larger buffer, the
+     * specified buffer is dropped, otherwise it replaces the kept buffer.
+     *
+     * @param buffer the char buffer (may be {@code null})
+     */
+    public void releaseChars(final char[] buffer) {
+        if (buffer != null && isPoolable(buffer.length)) {
+            final char[] kept = charBuffer.get();
+            if (kept == null || kept.length <= buffer.length) {
+                charBuffer.set(buffer);
+            }
+        }
+    }
+
+    /**
+     * Returns a larger char buffer, if the specified number of transferred chars
+     * is large compared to the size of the current buffer. In this case the
+     * current buffer is released.
+     *
+     * @param buffer      the current char buffer
+     * @param transferred the number of chars transferred so far
+     * @return the current or a larger char buffer
+     */
+    public char[] growChars(final char[] buffer, final long transferred) {
+        if (!shouldGrow(buffer.length, transferred)) {
+            return buffer;
+        }
+        final char[] larger = acquireChars(buffer.length * 2L);
+        releaseChars(buffer);
+        return larger;
+    }
+
+}
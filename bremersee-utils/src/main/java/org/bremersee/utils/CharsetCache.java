@@ -0,0 +1,197 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.bremersee.utils;
+
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * A cache of charsets by name.
+ * </p>
+ * <p>
+ * A resolved charset is cached with the requested name, it's canonical name
+ * and all of it's aliases. Names, that cannot be resolved, are cached, too,
+ * so a repeated lookup of an unsupported name fails without asking the
+ * charset providers again. In addition every thread keeps an encoder and a
+ * decoder per charset, that are reused.
+ * </p>
+ *
+ * @author Christian Bremer
+ */
+final class CharsetCache {
+
+    /**
+     * The maximum number of unsupported names, that are cached. Further
+     * unsupported names are not cached, so arbitrary names cannot fill the
+     * memory.
+     */
+    private static final int MAX_UNSUPPORTED_NAMES = 256;
+
+    private static final ConcurrentMap<String, Object> CHARSETS = new ConcurrentHashMap<>();
+
+    private static final AtomicInteger UNSUPPORTED_COUNT = new AtomicInteger();
+
+    private static final ConcurrentMap<Charset, Boolean> ASCII_COMPATIBLE = new ConcurrentHashMap<>();
+
+    private static final ThreadLocal<Map<Charset, CharsetEncoder>> ENCODERS
+            = new ThreadLocal<Map<Charset, CharsetEncoder>>() {
+        @Override
+        protected Map<Charset, CharsetEncoder> initialValue() {
+            return new HashMap<>();
+        }
+    };
+
+    private static final ThreadLocal<Map<Charset, CharsetDecoder>> DECODERS
+            = new ThreadLocal<Map<Charset, CharsetDecoder>>() {
+        @Override
+        protected Map<Charset, CharsetDecoder> initialValue() {
+            return new HashMap<>();
+        }
+    };
+
+    /**
+     * Never construct.
+     */
+    private CharsetCache() {
+        super();
+    }
+
+    /**
+     * Returns the charset with the given name or alias.
+     *
+     * @param name the name or alias of the charset
+     * @return the charset
+     * @throws CodingException if the name is illegal or the charset is not supported
+     */
+    static Charset forName(final String name) {
+        final Object cached = CHARSETS.get(name);
+        if (cached instanceof Charset) {
+            return (Charset) cached;
+        }
+        if (cached != null) {
+            throw new CodingException((String) cached);
+        }
+        final Charset charset;
+        try {
+            charset = Charset.forName(name);
+        } catch (RuntimeException e) {
+            final String message = "Unsupported charset: " + name;
+            if (UNSUPPORTED_COUNT.incrementAndGet() <= MAX_UNSUPPORTED_NAMES) {
+                CHARSETS.putIfAbsent(name, message);
+            }
+            throw new CodingException(message, e);
+        }
+        CHARSETS.putIfAbsent(name, charset);
+        CHARSETS.putIfAbsent(charset.name(), charset);
+        for (String alias : charset.aliases()) {
+            CHARSETS.putIfAbsent(alias, charset);
+        }
+        return charset;
+    }
+
+    /**
+     * Returns {@code true}, if every ASCII character is represented by the same
+     * single byte in the given charset, independent of any state.
+     *
+     * @param charset the charset
+     * @return {@code true} if the charset is ASCII compatible
+     */
+    static boolean isAsciiCompatible(final Charset charset) {
+        Boolean compatible = ASCII_COMPATIBLE.get(charset);
+        if (compatible == null) {
+            compatible = checkAsciiCompatible(charset);
+            ASCII_COMPATIBLE.putIfAbsent(charset, compatible);
+        }
+        return compatible;
+    }
+
+    private static boolean checkAsciiCompatible(final Charset charset) {
+        final String name = charset.name().toUpperCase(Locale.ENGLISH);
+        if (!name.equals("UTF-8") && !name.equals("US-ASCII") && !name.startsWith("ISO-8859-")
+                && !name.startsWith("WINDOWS-125")) {
+            return false;
+        }
+        final byte[] ascii = new byte[128];
+        for (int i = 0; i < ascii.length; i++) {
+            ascii[i] = (byte) i;
+        }
+        final String text = new String(ascii, charset);
+        if (text.length() != ascii.length) {
+            return false;
+        }
+        for (int i = 0; i < ascii.length; i++) {
+            if (text.charAt(i) != i) {
+                return false;
+            }
+        }
+        return Arrays.equals(ascii, text.getBytes(charset));
+    }
+
+    /**
+     * Returns the reset encoder of the current thread, that replaces malformed
+     * input and unmappable characters.
+     *
+     * @param charset the charset
+     * @return the encoder of the current thread
+     */
+    static CharsetEncoder encoder(final Charset charset) {
+        final Map<Charset, CharsetEncoder> encoders = ENCODERS.get();
+        CharsetEncoder encoder = encoders.get(charset);
+        if (encoder == null) {
+            encoder = charset.newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            encoders.put(charset, encoder);
+        } else {
+            encoder.reset();
+        }
+        return encoder;
+    }
+
+    /**
+     * Returns the reset decoder of the current thread, that replaces malformed
+     * input and unmappable characters.
+     *
+     * @param charset the charset
+     * @return the decoder of the current thread
+     */
+    static CharsetDecoder decoder(final Charset charset) {
+        final Map<Charset, CharsetDecoder> decoders = DECODERS.get();
+        CharsetDecoder decoder = decoders.get(charset);
+        if (decoder == null) {
+            decoder = charset.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            decoders.put(charset, decoder);
+        } else {
+            decoder.reset();
+        }
+        return decoder;
+    }
+
+}
@@ -0,0 +1,310 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.bremersee.utils;
+
+import org.apache.commons.lang3.Validate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * <p>
+ * Converts a byte stream from one charset into another without creating
+ * strings or readers and writers.
+ * </p>
+ * <p>
+ * The bytes are decoded and encoded with a {@link CharsetDecoder} and a
+ * {@link CharsetEncoder}, that are reused by every call of
+ * {@link #transcode(InputStream, OutputStream, InputStreamListener)}, through
+ * buffers of the {@link BufferPool}. So any amount of data is converted in
+ * constant memory.
+ * </p>
+ * <p>
+ * If both charsets are ASCII compatible (UTF-8, US-ASCII, ISO-8859-x and
+ * windows-125x), runs of ASCII bytes are copied directly into the output
+ * buffer without decoding and encoding them. This makes converting mostly
+ * ASCII data like CSV exports almost as fast as copying it.
+ * </p>
+ * <p>
+ * A transcoder is not thread safe.
+ * </p>
+ *
+ * @author Christian Bremer
+ */
+public class CharsetTranscoder {
+
+    private final CharsetDecoder decoder;
+
+    private final CharsetEncoder encoder;
+
+    private final boolean asciiFastPath;
+
+    /**
+     * Creates a transcoder, that replaces malformed input and unmappable
+     * characters.
+     *
+     * @param sourceCharset the charset of the input
+     * @param targetCharset the charset of the output
+     */
+    public CharsetTranscoder(final Charset sourceCharset, final Charset targetCharset) {
+        this(sourceCharset, targetCharset, CodingErrorAction.REPLACE);
+    }
+
+    /**
+     * Creates a transcoder.
+     *
+     * @param sourceCharset the charset of the input
+     * @param targetCharset the charset of the output
+     * @param errorAction   the action for malformed input and unmappable characters
+     */
+    public CharsetTranscoder(final Charset sourceCharset, final Charset targetCharset,
+                             final CodingErrorAction errorAction) {
+        Validate.notNull(sourceCharset, "Source charset must not be null.");
+        Validate.notNull(targetCharset, "Target charset must not be null.");
+        Validate.notNull(errorAction, "Error action must not be null.");
+        this.decoder = sourceCharset.newDecoder()
+                .onMalformedInput(errorAction)
+                .onUnmappableCharacter(errorAction);
+        this.encoder = targetCharset.newEncoder()
+                .onMalformedInput(errorAction)
+                .onUnmappableCharacter(errorAction);
+        this.asciiFastPath = CharsetCache.isAsciiCompatible(sourceCharset)
+                && CharsetCache.isAsciiCompatible(targetCharset);
+    }
+
+    /**
+     * Returns the charset of the input.
+     *
+     * @return the charset of the input
+     */
+    public Charset getSourceCharset() {
+        return decoder.charset();
+    }
+
+    /**
+     * Returns the charset of the output.
+     *
+     * @return the charset of the output
+     */
+    public Charset getTargetCharset() {
+        return encoder.charset();
+    }
+
+    /**
+     * Returns {@code true}, if ASCII bytes are copied without decoding and
+     * encoding them.
+     *
+     * @return {@code true} if the ASCII fast path is used
+     */
+    public boolean isAsciiFastPath() {
+        return asciiFastPath;
+    }
+
+    /**
+     * Converts the input stream to it's end. The streams are not closed.
+     *
+     * @param inputStream  the input in the source charset
+     * @param outputStream the output in the target charset
+     * @param listener     a listener (may be {@code null}), that gets the bytes of the input
+     * @return the number of written bytes
+     * @throws CharacterCodingException if the error action is
+     *                                  {@link CodingErrorAction#REPORT} and the input is
+     *                                  malformed or not mappable
+     * @throws IOException              if reading or writing fails
+     */
+    public long transcode(final InputStream inputStream, final OutputStream outputStream,
+                          final InputStreamListener listener) throws IOException {
+        final BufferPool bufferPool = BufferPool.getDefault();
+        // one pooled array holds the input (one third) and the output (two
+        // thirds), because the output is often larger than the input (for
+        // example with UTF-8)
+        final byte[] byteArray = bufferPool.acquireBytes(3L * bufferPool.getMinSize());
+        final int inLength = byteArray.length / 3;
+        final char[] charArray = bufferPool.acquireChars(0L);
+        try {
+            decoder.reset();
+            encoder.reset();
+            final Transcoding transcoding = new Transcoding(outputStream,
+                    ByteBuffer.wrap(byteArray, 0, inLength).slice(), CharBuffer.wrap(charArray),
+                    ByteBuffer.wrap(byteArray, inLength, byteArray.length - inLength).slice());
+            return transcoding.run(inputStream, listener);
+
+        } finally {
+            bufferPool.releaseChars(charArray);
+            bufferPool.releaseBytes(byteArray);
+        }
+    }
+
+    /**
+     * The state of one conversion.
+     */
+    private class Transcoding {
+
+        private final OutputStream outputStream;
+
+        private final ByteBuffer in;
+
+        private final CharBuffer chars;
+
+        private final ByteBuffer out;
+
+        private long written;
+
+        Transcoding(final OutputStream outputStream, final ByteBuffer in, final CharBuffer chars,
+                    final ByteBuffer out) {
+            this.outputStream = outputStream;
+            this.in = in;
+            this.chars = chars;
+            this.out = out;
+        }
+
+        long run(final InputStream inputStream, final InputStreamListener listener) throws IOException {
+            final byte[] array = in.array();
+            boolean endOfInput = false;
+            while (!endOfInput) {
+                final int len = inputStream.read(array, in.position(), in.remaining());
+                if (len == -1) {
+                    endOfInput = true;
+                } else {
+                    if (listener != null) {
+                        listener.onReadBytes(array, in.position(), len);
+                    }
+                    in.position(in.position() + len);
+                }
+                in.flip();
+                process(endOfInput);
+                in.compact();
+            }
+            // the rest of the input (if any) is malformed
+            in.flip();
+            CoderResult result;
+            do {
+                result = check(decoder.decode(in, chars, true));
+                encodeChars(false);
+            } while (result.isOverflow());
+            do {
+                result = check(decoder.flush(chars));
+                encodeChars(true);
+            } while (result.isOverflow());
+            do {
+                result = check(encoder.flush(out));
+                if (result.isOverflow()) {
+                    drain();
+                }
+            } while (result.isOverflow());
+            drain();
+            ListenerUtils.flush(listener);
+            return written;
+        }
+
+        private void process(final boolean endOfInput) throws IOException {
+            while (in.hasRemaining()) {
+                if (asciiFastPath && chars.position() == 0) {
+                    copyAscii();
+                    if (!in.hasRemaining()) {
+                        return;
+                    }
+                }
+                final int limit = in.limit();
+                final int start = in.position();
+                if (asciiFastPath) {
+                    // decode only the following non-ASCII bytes
+                    in.limit(nonAsciiEnd());
+                }
+                CoderResult result = check(decoder.decode(in, chars, endOfInput && in.limit() == limit));
+                if (in.position() == start && result.isUnderflow() && in.limit() < limit) {
+                    // an incomplete sequence before an ASCII byte is malformed
+                    in.limit(limit);
+                    result = check(decoder.decode(in, chars, endOfInput));
+                }
+                in.limit(limit);
+                encodeChars(false);
+                if (result.isUnderflow() && in.position() == start) {
+                    // the rest is an incomplete sequence, more input is needed
+                    return;
+                }
+            }
+        }
+
+        private void copyAscii() throws IOException {
+            final byte[] src = in.array();
+            final int limit = in.limit();
+            int position = in.position();
+            while (position < limit && src[position] >= 0) {
+                if (!out.hasRemaining()) {
+                    drain();
+                }
+                final int max = Math.min(limit, position + out.remaining());
+                int end = position + 1;
+                while (end < max && src[end] >= 0) {
+                    end++;
+                }
+                out.put(src, position, end - position);
+                position = end;
+            }
+            in.position(position);
+        }
+
+        private int nonAsciiEnd() {
+            final byte[] src = in.array();
+            final int limit = in.limit();
+            int position = in.position();
+            while (position < limit && src[position] < 0) {
+                position++;
+            }
+            return position;
+        }
+
+        private void encodeChars(final boolean endOfInput) throws IOException {
+            chars.flip();
+            CoderResult result;
+            do {
+                result = check(encoder.encode(chars, out, endOfInput));
+                if (result.isOverflow()) {
+                    drain();
+                }
+            } while (result.isOverflow());
+            chars.compact();
+        }
+
+        private void drain() throws IOException {
+            if (out.position() > 0) {
+                outputStream.write(out.array(), out.arrayOffset(), out.position());
+                written = written + out.position();
+                out.clear();
+            }
+        }
+
+        private CoderResult check(final CoderResult result) throws CharacterCodingException {
+            if (result.isError()) {
+                result.throwException();
+            }
+            return result;
+        }
+    }
+
+}
@@ -20,10 +20,26 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.security.MessageDigest;
 import java.security.Provider;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * <p>
@@ -34,6 +50,33 @@ import java.security.Provider;
  */
 public abstract class CodingUtils {
 
+    /**
+     * The default segment size of a tree hash (8 MiB).
+     */
+    public static final int DEFAULT_TREE_SEGMENT_SIZE = 8 * 1024 * 1024;
+
+    /**
+     * The size of the memory mapped windows of a file, that is hashed (64 MiB).
+     */
+    private static final long MAPPED_WINDOW_SIZE = 64L * 1024L * 1024L;
+
+    private static final char[] HEX_LOWER_CASE = "0123456789abcdef".toCharArray();
+
+    private static final char[] HEX_UPPER_CASE = "0123456789ABCDEF".toCharArray();
+
+    /**
+     * The values of the hex digits by character or {@code -1}.
+     */
+    private static final byte[] HEX_VALUES = new byte[128];
+
+    static {
+        Arrays.fill(HEX_VALUES, (byte) -1);
+        for (int i = 0; i < 16; i++) {
+            HEX_VALUES[HEX_LOWER_CASE[i]] = (byte) i;
+            HEX_VALUES[HEX_UPPER_CASE[i]] = (byte) i;
+        }
+    }
+
     /**
      * Never construct.
      */
@@ -53,7 +96,7 @@ public abstract class CodingUtils {
     public static MessageDigest getMessageDigestSilently(final String algorithm) {
         Validate.notBlank(algorithm, "Algotithm must not be null or blank."); // NOSONAR
         try {
-            return MessageDigest.getInstance(algorithm);
+            return MessageDigestCache.newInstance(algorithm, null);
         } catch (Exception e) {
             throw new CodingException(e);
         }
@@ -76,7 +119,7 @@ public abstract class CodingUtils {
             return getMessageDigestSilently(algorithm);
         }
         try {
-            return MessageDigest.getInstance(algorithm, provider);
+            return MessageDigestCache.newInstance(algorithm, provider);
         } catch (Exception e) {
             throw new CodingException(e);
         }
@@ -99,12 +142,103 @@ public abstract class CodingUtils {
             return getMessageDigestSilently(algorithm);
         }
         try {
-            return MessageDigest.getInstance(algorithm, provider);
+            return MessageDigestCache.newInstance(algorithm, provider);
         } catch (Exception e) {
             throw new CodingException(e);
         }
     }
 
+    /**
+     * Returns the message digest of the current thread, that implements the
+     * specified algorithm. The message digest is reset.
+     * <br>
+     * The provider lookup is done only once and every thread gets it's own
+     * instance, that is reused. So the returned message digest must not be
+     * shared with other threads and it must not be used any more, after this
+     * method was called again with the same algorithm by the current thread.
+     *
+     * @param algorithm the name of the algorithm requested
+     * @return the message digest of the current thread
+     * @throws CodingException if a MessageDigestSpi implementation for the specified
+     *                         algorithm is not available
+     */
+    public static MessageDigest getThreadLocalMessageDigestSilently(final String algorithm) {
+        return getThreadLocalMessageDigestSilently(algorithm, null);
+    }
+
+    /**
+     * Returns the message digest of the current thread, that implements the
+     * specified algorithm. The message digest is reset.
+     *
+     * @param algorithm the name of the algorithm requested
+     * @param provider  the provider (may be {@code null})
+     * @return the message digest of the current thread
+     * @throws CodingException if a MessageDigestSpi implementation for the specified
+     *                         algorithm is not available from the specified provider
+     * @see #getThreadLocalMessageDigestSilently(String)
+     */
+    public static MessageDigest getThreadLocalMessageDigestSilently(final String algorithm, final String provider) {
+        Validate.notBlank(algorithm, "Algotithm must not be null or blank.");
+        try {
+            return MessageDigestCache.threadLocalInstance(algorithm, StringUtils.isBlank(provider) ? null : provider);
+        } catch (Exception e) {
+            throw new CodingException(e);
+        }
+    }
+
+    /**
+     * Returns a copy of the specified message digest. If the message digest
+     * cannot be cloned, a new instance of the same algorithm and provider is
+     * returned.
+     *
+     * @param md the message digest
+     * @return the copy of the message digest
+     * @throws CodingException if the message digest cannot be copied
+     */
+    static MessageDigest cloneMessageDigestSilently(final MessageDigest md) {
+        try {
+            return (MessageDigest) md.clone();
+        } catch (CloneNotSupportedException e) { // NOSONAR
+            return getMessageDigestSilently(md.getAlgorithm(), md.getProvider());
+        }
+    }
+
+    /**
+     * Calculates a hash value with the message digest of the current thread.
+     *
+     * @param algorithm the name of the algorithm
+     * @param bytes     a byte array
+     * @return the array of bytes for the hash value
+     * @throws IllegalArgumentException if the algorithm is blank or the bytes are {@code null}
+     * @throws CodingException          if the algorithm is not available
+     * @see #getThreadLocalMessageDigestSilently(String)
+     */
+    public static byte[] digestSilently(String algorithm, byte[] bytes) {
+        return digestSilently(algorithm, null, bytes);
+    }
+
+    /**
+     * Calculates a hash value with the message digest of the current thread.
+     *
+     * @param algorithm the name of the algorithm
+     * @param provider  the provider (may be {@code null})
+     * @param bytes     a byte array
+     * @return the array of bytes for the hash value
+     * @throws IllegalArgumentException if the algorithm is blank or the bytes are {@code null}
+     * @throws CodingException          if the algorithm is not available from the specified
+     *                                  provider
+     * @see #getThreadLocalMessageDigestSilently(String, String)
+     */
+    public static byte[] digestSilently(String algorithm, String provider, byte[] bytes) {
+        Validate.notNull(bytes, "Bytes must not be null.");
+        final MessageDigest md = getThreadLocalMessageDigestSilently(algorithm, provider);
+        final IoMetrics metrics = IoUtils.getMetrics();
+        final long startTime = IoUtils.startTime(metrics);
+        final byte[] digest = md.digest(bytes);
+        IoUtils.record(metrics, IoMetrics.Operation.DIGEST, bytes.length, startTime, null, false);
+        return digest;
+    }
+
     /**
      * Calculates a hash value.
      *
@@ -165,22 +299,32 @@ public abstract class CodingUtils {
                                         InputStreamListener listener) {
         Validate.notNull(md, "MessageDigest must not be null.");
         Validate.notNull(inputStream, "InputStream must not be null."); // NOSONAR
+        final IoMetrics metrics = IoUtils.getMetrics();
+        final long startTime = IoUtils.startTime(metrics);
+        Throwable failure = null;
+        long totalLen = 0L;
+        final BufferPool bufferPool = BufferPool.getDefault();
+        byte[] buffer = bufferPool.acquireBytes(0L);
         try {
             md.reset();
             int len;
-            byte[] buffer = new byte[4096];
             while ((len = inputStream.read(buffer)) != -1) {
                 md.update(buffer, 0, len);
+                totalLen = totalLen + len;
                 if (listener != null) {
                     listener.onReadBytes(buffer, 0, len);
                 }
+                buffer = bufferPool.growBytes(buffer, totalLen);
             }
+            ListenerUtils.flush(listener);
             return md.digest();
 
         } catch (Exception e) {
+            failure = e;
             throw new CodingException(e);
 
         } finally {
+            bufferPool.releaseBytes(buffer);
             if (closeInputStream) {
                 try {
                     inputStream.close();
@@ -188,6 +332,344 @@ public abstract class CodingUtils {
                     // ignored
                 }
             }
+            IoUtils.record(metrics, IoMetrics.Operation.DIGEST, totalLen, startTime, failure, closeInputStream);
+        }
+    }
+
+    /**
+     * Calculates the hash value of the remaining bytes of a buffer. The position
+     * of the buffer is advanced to it's limit. A direct buffer is passed to the
+     * message digest without copying it into a heap buffer of this library.
+     *
+     * @param md     the {@link MessageDigest}
+     * @param buffer the buffer
+     * @return the array of bytes for the hash value
+     * @throws IllegalArgumentException if the message digest or the buffer is {@code null}
+     */
+    public static byte[] digestSilently(MessageDigest md, ByteBuffer buffer) {
+        Validate.notNull(md, "MessageDigest must not be null.");
+        Validate.notNull(buffer, "Buffer must not be null.");
+        final IoMetrics metrics = IoUtils.getMetrics();
+        final long startTime = IoUtils.startTime(metrics);
+        final int len = buffer.remaining();
+        md.reset();
+        md.update(buffer);
+        final byte[] digest = md.digest();
+        IoUtils.record(metrics, IoMetrics.Operation.DIGEST, len, startTime, null, false);
+        return digest;
+    }
+
+    /**
+     * Calculates the hash value of a channel.
+     * <br>
+     * The data is read into a pooled direct buffer, that is passed to the
+     * message digest, so there is no buffer of the heap in between. If the
+     * channel is a {@link FileChannel}, the rest of the file from it's current
+     * position is memory mapped (see {@link #digestFileSilently(Path, MessageDigest, TransferListener)}).
+     *
+     * @param md           the {@link MessageDigest}
+     * @param channel      the channel (must be in blocking mode)
+     * @param closeChannel if {@code true} the channel will be closed, otherwise it will
+     *                     stay open
+     * @param listener     a listener, that gets the number of hashed bytes (may be {@code null})
+     * @return the array of bytes for the hash value
+     * @throws IllegalArgumentException if the message digest or the channel is {@code null}
+     * @throws CodingException          if calculation of the hash fails
+     */
+    public static byte[] digestSilently(MessageDigest md, ReadableByteChannel channel, boolean closeChannel,
+                                        TransferListener listener) {
+        Validate.notNull(md, "MessageDigest must not be null.");
+        Validate.notNull(channel, "Channel must not be null.");
+        final IoMetrics metrics = IoUtils.getMetrics();
+        final long startTime = IoUtils.startTime(metrics);
+        Throwable failure = null;
+        long totalLen = 0L;
+        final BufferPool bufferPool = BufferPool.getDefault();
+        ByteBuffer buffer = null;
+        try {
+            md.reset();
+            if (channel instanceof FileChannel) {
+                final FileChannel fileChannel = (FileChannel) channel;
+                final long position = fileChannel.position();
+                totalLen = updateMapped(md, fileChannel, position, listener);
+                fileChannel.position(position + totalLen);
+            }
+            buffer = bufferPool.acquireDirect(0L);
+            int len;
+            while ((len = channel.read(buffer)) != -1) {
+                buffer.flip();
+                md.update(buffer);
+                totalLen = totalLen + len;
+                if (listener != null) {
+                    listener.onTransferredBytes(len);
+                }
+                buffer.clear();
+                buffer = bufferPool.growDirect(buffer, totalLen);
+            }
+            ListenerUtils.flush(listener);
+            return md.digest();
+
+        } catch (Exception e) {
+            failure = e;
+            throw new CodingException(e);
+
+        } finally {
+            bufferPool.releaseDirect(buffer);
+            if (closeChannel) {
+                IoUtils.closeSilently(channel);
+            }
+            IoUtils.record(metrics, IoMetrics.Operation.DIGEST, totalLen, startTime, failure, closeChannel);
+        }
+    }
+
+    /**
+     * Calculates the hash value of a file.
+     *
+     * @param file      the file
+     * @param algorithm the name of the algorithm
+     * @return the array of bytes for the hash value
+     * @throws IllegalArgumentException if the file is {@code null} or the algorithm is blank
+     * @throws CodingException          if the algorithm is not available or calculation of
+     *                                  the hash fails
+     * @see #digestFileSilently(Path, MessageDigest, TransferListener)
+     */
+    public static byte[] digestFileSilently(Path file, String algorithm) {
+        return digestFileSilently(file, getThreadLocalMessageDigestSilently(algorithm), null);
+    }
+
+    /**
+     * Calculates the hash value of a file.
+     * <br>
+     * The file is memory mapped in large windows, that are passed directly to
+     * the message digest, so there is no read system call and no copy into a
+     * buffer of the heap for every chunk of data.
+     *
+     * @param file     the file
+     * @param md       the {@link MessageDigest}
+     * @param listener a listener, that gets the number of hashed bytes (may be {@code null})
+     * @return the array of bytes for the hash value
+     * @throws IllegalArgumentException if the file or the message digest is {@code null}
+     * @throws CodingException          if calculation of the hash fails
+     */
+    public static byte[] digestFileSilently(Path file, MessageDigest md, TransferListener listener) {
+        Validate.notNull(file, "File must not be null.");
+        Validate.notNull(md, "MessageDigest must not be null.");
+        md.reset();
+        final IoMetrics metrics = IoUtils.getMetrics();
+        final long startTime = IoUtils.startTime(metrics);
+        Throwable failure = null;
+        long totalLen = 0L;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            totalLen = updateMapped(md, channel, 0L, listener);
+            return md.digest();
+
+        } catch (Exception e) {
+            failure = e;
+            throw new CodingException(e);
+
+        } finally {
+            IoUtils.record(metrics, IoMetrics.Operation.DIGEST, totalLen, startTime, failure, true);
+        }
+    }
+
+    /**
+     * Updates the message digest with memory mapped windows of the file from the
+     * given position to the end.
+     */
+    private static long updateMapped(final MessageDigest md, final FileChannel channel, final long start,
+                                     final TransferListener listener) throws IOException {
+        final long size = channel.size();
+        long position = start;
+        while (position < size) {
+            final long len = Math.min(MAPPED_WINDOW_SIZE, size - position);
+            final MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, len);
+            md.update(window);
+            position = position + len;
+            if (listener != null) {
+                listener.onTransferredBytes(len);
+            }
+        }
+        return Math.max(0L, position - start);
+    }
+
+    /**
+     * Calculates the hash values of several message digests with one pass over
+     * the input stream.
+     * <br>
+     * While the next chunk of data is read, the current chunk is hashed by one
+     * task per message digest, so calculating several hash values costs about
+     * the same time as reading the input once.
+     *
+     * @param mds              the message digests (must be different instances)
+     * @param inputStream      an input stream
+     * @param closeInputStream if {@code true} the input stream will be closed, otherwise it
+     *                         will stay open
+     * @param listener         an input stream listener (may be {@code null})
+     * @return the hash values in the order of the message digests
+     * @throws IllegalArgumentException if the message digests are empty or contain
+     *                                  {@code null} or the input stream is {@code null}
+     * @throws CodingException          if calculation of the hashes fails
+     */
+    public static byte[][] digestAllSilently(MessageDigest[] mds, InputStream inputStream, boolean closeInputStream,
+                                             InputStreamListener listener) {
+        Validate.notEmpty(mds, "MessageDigests must not be empty.");
+        Validate.noNullElements(mds, "MessageDigests must not contain null.");
+        Validate.notNull(inputStream, "InputStream must not be null.");
+        final IoMetrics metrics = IoUtils.getMetrics();
+        final long startTime = IoUtils.startTime(metrics);
+        Throwable failure = null;
+        final ParallelDigester digester = new ParallelDigester(mds, SharedExecutors.compute());
+        try {
+            return digester.digest(inputStream, null, listener);
+
+        } catch (CodingException e) {
+            failure = e;
+            throw e;
+
+        } catch (Exception e) {
+            failure = e;
+            throw new CodingException(e);
+
+        } finally {
+            if (closeInputStream) {
+                IoUtils.closeSilently(inputStream);
+            }
+            IoUtils.record(metrics, IoMetrics.Operation.DIGEST, digester.getLength(), startTime, failure,
+                    closeInputStream);
+        }
+    }
+
+    /**
+     * Calculates the hash values of several algorithms with one pass over the
+     * input stream.
+     *
+     * @param inputStream      an input stream
+     * @param closeInputStream if {@code true} the input stream will be closed, otherwise it
+     *                         will stay open
+     * @param algorithms       the names of the algorithms
+     * @return the hash values by algorithm name in the order of the algorithms
+     * @throws IllegalArgumentException if the algorithms are empty or blank or
+     *                                  the input stream is {@code null}
+     * @throws CodingException          if an algorithm is not available or calculation
+     *                                  of the hashes fails
+     * @see #digestAllSilently(MessageDigest[], InputStream, boolean, InputStreamListener)
+     */
+    public static Map<String, byte[]> digestAllSilently(InputStream inputStream, boolean closeInputStream,
+                                                        String... algorithms) {
+        Validate.notEmpty(algorithms, "Algorithms must not be empty.");
+        final MessageDigest[] mds = new MessageDigest[algorithms.length];
+        for (int i = 0; i < algorithms.length; i++) {
+            mds[i] = getMessageDigestSilently(algorithms[i]);
+        }
+        final byte[][] hashes = digestAllSilently(mds, inputStream, closeInputStream, null);
+        final Map<String, byte[]> result = new LinkedHashMap<>(algorithms.length);
+        for (int i = 0; i < algorithms.length; i++) {
+            result.put(algorithms[i], hashes[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Calculates the tree hash of a file with the default segment size.
+     *
+     * @param file      the file
+     * @param algorithm the name of the algorithm
+     * @return the root hash
+     * @throws IllegalArgumentException if the file is {@code null} or the algorithm is blank
+     * @throws CodingException          if the algorithm is not available or calculation of
+     *                                  the hash fails
+     * @see #treeDigestSilently(Path, String, int, ForkJoinPool)
+     */
+    public static byte[] treeDigestSilently(Path file, String algorithm) {
+        return treeDigestSilently(file, algorithm, DEFAULT_TREE_SEGMENT_SIZE, null);
+    }
+
+    /**
+     * Calculates the tree hash of a file.
+     * <br>
+     * The file is split into memory mapped segments of the specified size, that
+     * are hashed in parallel. The hash of a segment is {@code H(0x00 || segment)}.
+     * The hashes of the segments are combined pairwise with
+     * {@code H(0x01 || left || right)} level by level (the last node of a level
+     * with an odd number of nodes is moved up unchanged), until only the root
+     * hash is left. An empty file consists of one empty segment.
+     * <br>
+     * The root hash depends on the segment size. It is not equal to the plain
+     * hash of the file.
+     *
+     * @param file        the file
+     * @param algorithm   the name of the algorithm
+     * @param segmentSize the segment size
+     * @param pool        the fork join pool (may be {@code null}, then a shared pool is used)
+     * @return the root hash
+     * @throws IllegalArgumentException if the file is {@code null}, the algorithm is blank
+     *                                  or the segment size is not positive
+     * @throws CodingException          if the algorithm is not available or calculation of
+     *                                  the hash fails
+     * @see #treeDigestSequentiallySilently(Path, String, int)
+     */
+    public static byte[] treeDigestSilently(Path file, String algorithm, int segmentSize, ForkJoinPool pool) {
+        Validate.notNull(file, "File must not be null."); // NOSONAR
+        Validate.isTrue(segmentSize > 0, "Segment size must be greater than 0."); // NOSONAR
+        final MessageDigest md = getMessageDigestSilently(algorithm);
+        final IoMetrics metrics = IoUtils.getMetrics();
+        final long startTime = IoUtils.startTime(metrics);
+        Throwable failure = null;
+        long totalLen = 0L;
+        try {
+            final byte[] hash = TreeDigest.digest(file, md, segmentSize,
+                    pool == null ? SharedExecutors.compute() : pool);
+            if (metrics != null) {
+                totalLen = Files.size(file);
+            }
+            return hash;
+        } catch (IllegalArgumentException | CodingException e) {
+            failure = e;
+            throw e;
+        } catch (Exception e) {
+            failure = e;
+            throw new CodingException(e);
+        } finally {
+            IoUtils.record(metrics, IoMetrics.Operation.DIGEST, totalLen, startTime, failure, true);
+        }
+    }
+
+    /**
+     * Calculates the tree hash of a file with one thread and without memory
+     * mapping. This is the reference implementation of
+     * {@link #treeDigestSilently(Path, String, int, ForkJoinPool)}.
+     *
+     * @param file        the file
+     * @param algorithm   the name of the algorithm
+     * @param segmentSize the segment size
+     * @return the root hash
+     * @throws IllegalArgumentException if the file is {@code null}, the algorithm is blank
+     *                                  or the segment size is not positive
+     * @throws CodingException          if the algorithm is not available or calculation of
+     *                                  the hash fails
+     */
+    public static byte[] treeDigestSequentiallySilently(Path file, String algorithm, int segmentSize) {
+        Validate.notNull(file, "File must not be null.");
+        Validate.isTrue(segmentSize > 0, "Segment size must be greater than 0.");
+        final MessageDigest md = getMessageDigestSilently(algorithm);
+        final IoMetrics metrics = IoUtils.getMetrics();
+        final long startTime = IoUtils.startTime(metrics);
+        Throwable failure = null;
+        long totalLen = 0L;
+        try {
+            final byte[] hash = TreeDigest.digestSequentially(file, md, segmentSize);
+            if (metrics != null) {
+                totalLen = Files.size(file);
+            }
+            return hash;
+        } catch (IllegalArgumentException e) {
+            failure = e;
+            throw e;
+        } catch (Exception e) {
+            failure = e;
+            throw new CodingException(e);
+        } finally {
+            IoUtils.record(metrics, IoMetrics.Operation.DIGEST, totalLen, startTime, failure, true);
         }
     }
 
@@ -214,11 +696,131 @@ public abstract class CodingUtils {
         if (bytes == null) {
             return null;
         }
-        StringBuilder sb = new StringBuilder();
-        for (byte aByte : bytes) {
-            sb.append(Integer.toString((aByte & 0xff) + 0x100, 16).substring(1));
+        final char[] chars = new char[bytes.length * 2];
+        toHex(bytes, 0, bytes.length, upperCase, chars, 0);
+        return new String(chars);
+    }
+
+    /**
+     * Writes the hex values of the specified bytes into a char array.
+     *
+     * @param bytes     a byte array
+     * @param offset    the start offset in the byte array
+     * @param len       the number of bytes
+     * @param upperCase should the result by upper case?
+     * @param dst       the char array, that must have space for {@code 2 * len} chars
+     * @param dstOffset the start offset in the char array
+     * @return the number of written chars ({@code 2 * len})
+     * @throws IndexOutOfBoundsException if the offsets or the length are invalid
+     */
+    public static int toHex(byte[] bytes, int offset, int len, boolean upperCase, char[] dst, int dstOffset) {
+        if (offset < 0 || len < 0 || offset + len > bytes.length
+                || dstOffset < 0 || dstOffset + 2L * len > dst.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        final char[] digits = upperCase ? HEX_UPPER_CASE : HEX_LOWER_CASE;
+        int j = dstOffset;
+        for (int i = offset; i < offset + len; i++) {
+            final int b = bytes[i] & 0xff;
+            dst[j++] = digits[b >>> 4];
+            dst[j++] = digits[b & 0x0f];
+        }
+        return 2 * len;
+    }
+
+    /**
+     * Appends the hex values of the specified byte array.
+     *
+     * @param bytes      a byte array
+     * @param upperCase  should the result by upper case?
+     * @param appendable the appendable, e. g. a {@link StringBuilder}, a
+     *                   {@link CharBuffer} or a {@link java.io.Writer}
+     * @param <A>        the type of the appendable
+     * @return the appendable
+     * @throws IllegalArgumentException if the byte array or the appendable is {@code null}
+     * @throws BufferOverflowException  if the appendable is a char buffer without enough space
+     * @throws CodingException          if appending fails
+     */
+    public static <A extends Appendable> A appendHex(byte[] bytes, boolean upperCase, A appendable) {
+        Validate.notNull(bytes, "Bytes must not be null.");
+        Validate.notNull(appendable, "Appendable must not be null.");
+        final char[] digits = upperCase ? HEX_UPPER_CASE : HEX_LOWER_CASE;
+        if (appendable instanceof CharBuffer) {
+            final CharBuffer charBuffer = (CharBuffer) appendable;
+            if (charBuffer.remaining() < 2L * bytes.length) {
+                throw new BufferOverflowException();
+            }
+            for (final byte aByte : bytes) {
+                charBuffer.put(digits[(aByte & 0xff) >>> 4]).put(digits[aByte & 0x0f]);
+            }
+            return appendable;
+        }
+        if (appendable instanceof StringBuilder) {
+            final StringBuilder sb = (StringBuilder) appendable;
+            sb.ensureCapacity(sb.length() + 2 * bytes.length);
+            for (final byte aByte : bytes) {
+                sb.append(digits[(aByte & 0xff) >>> 4]).append(digits[aByte & 0x0f]);
+            }
+            return appendable;
+        }
+        try {
+            for (final byte aByte : bytes) {
+                appendable.append(digits[(aByte & 0xff) >>> 4]).append(digits[aByte & 0x0f]);
+            }
+            return appendable;
+        } catch (Exception e) {
+            throw new CodingException(e);
+        }
+    }
+
+    /**
+     * Decodes a string of hex values (upper or lower case) into a byte array.
+     *
+     * @param hex the hex values (may be {@code null})
+     * @return the byte array or {@code null} if the hex values are {@code null}
+     * @throws CodingException if the length of the hex values is odd or there is a
+     *                         character that is not a hex digit
+     */
+    public static byte[] fromHex(CharSequence hex) {
+        if (hex == null) {
+            return null; // NOSONAR
+        }
+        final int len = hex.length();
+        if ((len & 1) != 0) {
+            throw new CodingException("Length of hex values must be even, but it is " + len + ".");
+        }
+        final byte[] bytes = new byte[len / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) ((hexValue(hex, 2 * i) << 4) | hexValue(hex, 2 * i + 1));
+        }
+        return bytes;
+    }
+
+    private static int hexValue(final CharSequence hex, final int index) {
+        final char c = hex.charAt(index);
+        final int value = c < HEX_VALUES.length ? HEX_VALUES[c] : -1;
+        if (value < 0) {
+            throw new CodingException("Character '" + c + "' at index " + index + " is not a hex digit.");
         }
-        return upperCase ? sb.toString().toUpperCase() : sb.toString().toLowerCase();
+        return value;
+    }
+
+    /**
+     * Returns the charset with the specified name or alias.
+     * <br>
+     * The lookup is cached with all aliases of the charset. Unsupported names
+     * are cached, too, so they fail fast.
+     *
+     * @param charsetName the name or an alias of the charset (may be blank, then the
+     *                    default charset is returned)
+     * @return the charset
+     * @throws CodingException if the name is illegal or the charset is not supported
+     */
+    public static Charset getCharsetSilently(String charsetName) {
+        if (StringUtils.isBlank(charsetName)) {
+            return Charset.defaultCharset();
+        }
+        return CharsetCache.forName(charsetName);
     }
 
     /**
@@ -236,14 +838,7 @@ public abstract class CodingUtils {
         if (text == null) {
             return null; // NOSONAR
         }
-        if (StringUtils.isBlank(charsetName)) {
-            return text.getBytes();
-        }
-        try {
-            return text.getBytes(charsetName);
-        } catch (Exception e) {
-            throw new CodingException(e);
-        }
+        return toBytesSilently(text, getCharsetSilently(charsetName));
     }
 
     /**
@@ -279,14 +874,7 @@ public abstract class CodingUtils {
         if (bytes == null) {
             return null;
         }
-        if (StringUtils.isBlank(charsetName)) {
-            return new String(bytes);
-        }
-        try {
-            return new String(bytes, charsetName);
-        } catch (Exception e) {
-            throw new CodingException(e);
-        }
+        return toStringSilently(bytes, getCharsetSilently(charsetName));
     }
 
     /**
@@ -307,4 +895,120 @@ public abstract class CodingUtils {
         return new String(bytes, charset);
     }
 
+    /**
+     * Encodes the specified text into the buffer. Malformed input and
+     * unmappable characters are replaced. ASCII characters are copied directly,
+     * if the charset is ASCII compatible.
+     * <br>
+     * No byte array is allocated, so this method is suited for hot serialization
+     * paths.
+     *
+     * @param text    the text
+     * @param charset the charset (may be {@code null}, then the default charset is used)
+     * @param dst     the buffer, that gets the bytes
+     * @return the number of bytes, that were written into the buffer
+     * @throws IllegalArgumentException if the text or the buffer is {@code null}
+     * @throws BufferOverflowException  if the buffer has not enough space (then the
+     *                                  position of the buffer is not changed)
+     */
+    public static int toBytesSilently(CharSequence text, Charset charset, ByteBuffer dst) {
+        Validate.notNull(text, "Text must not be null.");
+        Validate.notNull(dst, "Buffer must not be null.");
+        final Charset cs = charset == null ? Charset.defaultCharset() : charset;
+        final int start = dst.position();
+        final int length = text.length();
+        int i = 0;
+        if (dst.hasArray() && CharsetCache.isAsciiCompatible(cs)) {
+            final byte[] array = dst.array();
+            final int offset = dst.arrayOffset();
+            final int max = Math.min(length, dst.remaining());
+            int position = start;
+            char c;
+            while (i < max && (c = text.charAt(i)) < 0x80) {
+                array[offset + position++] = (byte) c;
+                i++;
+            }
+            dst.position(position);
+            if (i == length) {
+                return i;
+            }
+        }
+        final CharsetEncoder encoder = CharsetCache.encoder(cs);
+        final CharBuffer in = CharBuffer.wrap(text, i, length);
+        if (encoder.encode(in, dst, true).isOverflow() || encoder.flush(dst).isOverflow()) {
+            dst.position(start);
+            throw new BufferOverflowException();
+        }
+        return dst.position() - start;
+    }
+
+    /**
+     * Encodes the specified text into the byte array.
+     *
+     * @param text      the text
+     * @param charset   the charset (may be {@code null}, then the default charset is used)
+     * @param dst       the byte array, that gets the bytes
+     * @param dstOffset the offset in the byte array
+     * @return the number of bytes, that were written into the byte array
+     * @throws IllegalArgumentException  if the text or the byte array is {@code null}
+     * @throws IndexOutOfBoundsException if the offset is out of the range of the array
+     * @throws BufferOverflowException   if the byte array has not enough space
+     * @see #toBytesSilently(CharSequence, Charset, ByteBuffer)
+     */
+    public static int toBytesSilently(CharSequence text, Charset charset, byte[] dst, int dstOffset) {
+        Validate.notNull(dst, "Byte array must not be null.");
+        return toBytesSilently(text, charset, ByteBuffer.wrap(dst, dstOffset, dst.length - dstOffset));
+    }
+
+    /**
+     * Decodes the remaining bytes of the source buffer into the char buffer.
+     * Malformed input and unmappable characters are replaced. No string is
+     * allocated, so this method is suited for hot deserialization paths.
+     *
+     * @param src     the bytes
+     * @param charset the charset (may be {@code null}, then the default charset is used)
+     * @param dst     the buffer, that gets the characters
+     * @return the number of characters, that were written into the buffer
+     * @throws IllegalArgumentException if a buffer is {@code null}
+     * @throws BufferOverflowException  if the char buffer has not enough space (then
+     *                                  the positions of the buffers are not changed)
+     */
+    public static int toCharsSilently(ByteBuffer src, Charset charset, CharBuffer dst) {
+        Validate.notNull(src, "Source buffer must not be null.");
+        Validate.notNull(dst, "Buffer must not be null.");
+        final CharsetDecoder decoder = CharsetCache.decoder(charset == null ? Charset.defaultCharset() : charset);
+        final int srcStart = src.position();
+        final int start = dst.position();
+        if (decoder.decode(src, dst, true).isOverflow() || decoder.flush(dst).isOverflow()) {
+            src.position(srcStart);
+            dst.position(start);
+            throw new BufferOverflowException();
+        }
+        return dst.position() - start;
+    }
+
+    /**
+     * Decodes bytes into the char array.
+     *
+     * @param bytes     the bytes
+     * @param offset    the offset of the bytes
+     * @param len       the number of bytes
+     * @param charset   the charset (may be {@code null}, then the default charset is used)
+     * @param dst       the char array, that gets the characters
+     * @param dstOffset the offset in the char array
+     * @return the number of characters, that were written into the char array
+     * @throws IllegalArgumentException  if an array is {@code null}
+     * @throws IndexOutOfBoundsException if an offset or the length is out of the range of
+     *                                   the arrays
+     * @throws BufferOverflowException   if the char array has not enough space
+     * @see #toCharsSilently(ByteBuffer, Charset, CharBuffer)
+     */
+    public static int toCharsSilently(byte[] bytes, int offset, int len, Charset charset, char[] dst,
+                                      int dstOffset) {
+        Validate.notNull(bytes, "Bytes must not be null.");
+        Validate.notNull(dst, "Char array must not be null.");
+        return toCharsSilently(ByteBuffer.wrap(bytes, offset, len), charset,
+                CharBuffer.wrap(dst, dstOffset, dst.length - dstOffset));
+    }
+
 }
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.bremersee.utils;
+
+import java.security.MessageDigest;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ * The result of a copy operation, that has calculated hash values of the
+ * copied data.
+ * </p>
+ *
+ * @author Christian Bremer
+ * @see IoUtils#copyAndDigestSilently(java.io.InputStream, java.io.OutputStream, boolean,
+ * InputStreamListener, String...)
+ */
+public final class CopyResult {
+
+    private final long length;
+
+    private final Map<String, byte[]> digests;
+
+    /**
+     * Creates a copy result.
+     *
+     * @param length  the number of copied bytes
+     * @param digests the hash values by algorithm name
+     */
+    CopyResult(final long length, final Map<String, byte[]> digests) {
+        this.length = length;
+        this.digests = Collections.unmodifiableMap(new LinkedHashMap<>(digests));
+    }
+
+    /**
+     * Returns the number of copied bytes.
+     *
+     * @return the number of copied bytes
+     */
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * Returns the hash values by algorithm name in the order of the requested
+     * algorithms.
+     *
+     * @return the hash values (the map is unmodifiable)
+     */
+    public Map<String, byte[]> getDigests() {
+        return digests;
+    }
+
+    /**
+     * Returns the hash value of the specified algorithm.
+     *
+     * @param algorithm the name of the algorithm
+     * @return the hash value or {@code null}, if it hasn't been calculated
+     */
+    public byte[] getDigest(final String algorithm) {
+        final byte[] digest = digests.get(algorithm);
+        return digest == null ? null : digest.clone();
+    }
+
+    /**
+     * Returns the hash value of the specified algorithm as hex string.
+     *
+     * @param algorithm the name of the algorithm
+     * @return the hash value as hex string or {@code null}, if it hasn't been calculated
+     */
+    public String getDigestAsHex(final String algorithm) {
+        final byte[] digest = digests.get(algorithm);
+        return digest == null ? null : CodingUtils.toHex(digest);
+    }
+
+    /**
+     * Tests whether the hash value of the specified algorithm is equal to the
+     * expected one. The comparison is done in constant time.
+     *
+     * @param algorithm      the name of the algorithm
+     * @param expectedDigest the expected hash value
+     * @return {@code true}, if the hash value has been calculated and is equal to the
+     * expected one, otherwise {@code false}
+     */
+    public boolean matches(final String algorithm, final byte[] expectedDigest) {
+        final byte[] digest = digests.get(algorithm);
+        return digest != null && expectedDigest != null && MessageDigest.isEqual(digest, expectedDigest);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("CopyResult{length=").append(length);
+        for (final Map.Entry<String, byte[]> entry : digests.entrySet()) {
+            sb.append(", ").append(entry.getKey()).append('=');
+            CodingUtils.appendHex(entry.getValue(), false, sb);
+        }
+        return sb.append('}').toString();
+    }
+
+}
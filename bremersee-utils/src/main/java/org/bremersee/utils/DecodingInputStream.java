@@ -0,0 +1,180 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.utils;
+
+import org.apache.commons.lang3.Validate;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * <p>
+ * An input stream, that reads characters (ASCII) of a {@link BinaryEncoding}
+ * from the underlying input stream and returns the decoded data. It uses a
+ * small buffer of a fixed size, so data of any size can be decoded, e. g. with
+ * {@link IoUtils#copySilently(InputStream, java.io.OutputStream, boolean)}.
+ * </p>
+ * <p>
+ * White space (e. g. line breaks) is ignored. Decoding stops at the padding.
+ * </p>
+ *
+ * @author Christian Bremer
+ */
+public class DecodingInputStream extends FilterInputStream {
+
+    private static final int BUFFER_SIZE = 4096;
+
+    private final BinaryEncoding encoding;
+
+    private final int bitsPerChar;
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+
+    private int position;
+
+    private int limit;
+
+    private int bits;
+
+    private int bitCount;
+
+    private boolean padded;
+
+    private boolean eof;
+
+    /**
+     * Creates a decoding input stream.
+     *
+     * @param in       the underlying input stream
+     * @param encoding the encoding
+     */
+    public DecodingInputStream(final InputStream in, final BinaryEncoding encoding) {
+        super(in);
+        Validate.notNull(in, "Input stream must not be null.");
+        Validate.notNull(encoding, "Encoding must not be null.");
+        this.encoding = encoding;
+        this.bitsPerChar = encoding.getBitsPerChar();
+    }
+
+    @Override
+    public int read() throws IOException {
+        final byte[] b = new byte[1];
+        int len;
+        while ((len = read(b, 0, 1)) == 0) {
+            // white space was skipped
+        }
+        return len == -1 ? -1 : b[0] & 0xff;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        if (off < 0 || len < 0 || off + len > b.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len == 0) {
+            return 0;
+        }
+        int n = 0;
+        while (n < len) {
+            if (position == limit) {
+                if (n > 0 || !fill()) {
+                    break;
+                }
+            }
+            final int c = buffer[position++] & 0xff;
+            if (isWhitespace(c)) {
+                continue;
+            }
+            if (c == BinaryEncoding.PAD) {
+                padded = true;
+                continue;
+            }
+            final int value = encoding.toValue(c);
+            if (value < 0 || padded) {
+                throw new IOException("Illegal character '" + (char) c + "' in " + encoding + " data.");
+            }
+            bits = (bits << bitsPerChar) | value;
+            bitCount = bitCount + bitsPerChar;
+            if (bitCount >= 8) {
+                bitCount = bitCount - 8;
+                b[off + n++] = (byte) (bits >>> bitCount);
+                bits = bits & ((1 << bitCount) - 1);
+            }
+        }
+        return n == 0 && eof ? -1 : n;
+    }
+
+    private boolean fill() throws IOException {
+        if (eof) {
+            return false;
+        }
+        final int len = in.read(buffer);
+        if (len == -1) {
+            eof = true;
+            if (bitCount >= bitsPerChar) {
+                throw new IOException("Truncated " + encoding + " data.");
+            }
+            return false;
+        }
+        position = 0;
+        limit = len;
+        return true;
+    }
+
+    private static boolean isWhitespace(final int c) {
+        return c == ' ' || c == '\r' || c == '\n' || c == '\t';
+    }
+
+    @Override
+    public long skip(final long n) throws IOException {
+        final byte[] b = new byte[(int) Math.min(BUFFER_SIZE, Math.max(n, 0L))];
+        long remaining = n;
+        int len;
+        while (remaining > 0L && (len = read(b, 0, (int) Math.min(b.length, remaining))) != -1) {
+            remaining = remaining - len;
+        }
+        return n - remaining;
+    }
+
+    /**
+     * Returns {@code 0}, because the number of decoded bytes cannot be
+     * estimated without blocking.
+     *
+     * @return {@code 0}
+     */
+    @Override
+    public int available() {
+        return 0;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(final int readlimit) {
+        // not supported
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("Mark and reset are not supported.");
+    }
+
+}
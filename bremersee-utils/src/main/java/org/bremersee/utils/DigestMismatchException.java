@@ -0,0 +1,80 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.bremersee.utils;
+
+/**
+ * <p>
+ * Thrown, if the hash value of copied data is not equal to the expected one.
+ * </p>
+ *
+ * @author Christian Bremer
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public class DigestMismatchException extends IORuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String algorithm;
+
+    private final byte[] expectedDigest;
+
+    private final byte[] actualDigest;
+
+    /**
+     * Creates an exception.
+     *
+     * @param algorithm      the name of the algorithm
+     * @param expectedDigest the expected hash value
+     * @param actualDigest   the calculated hash value
+     */
+    public DigestMismatchException(String algorithm, byte[] expectedDigest, byte[] actualDigest) {
+        super(algorithm + " mismatch: expected " + CodingUtils.toHex(expectedDigest)
+                + " but was " + CodingUtils.toHex(actualDigest));
+        this.algorithm = algorithm;
+        this.expectedDigest = expectedDigest.clone();
+        this.actualDigest = actualDigest.clone();
+    }
+
+    /**
+     * Returns the name of the algorithm.
+     *
+     * @return the name of the algorithm
+     */
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Returns the expected hash value.
+     *
+     * @return the expected hash value
+     */
+    public byte[] getExpectedDigest() {
+        return expectedDigest.clone();
+    }
+
+    /**
+     * Returns the calculated hash value.
+     *
+     * @return the calculated hash value
+     */
+    public byte[] getActualDigest() {
+        return actualDigest.clone();
+    }
+
+}
@@ -0,0 +1,579 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.utils;
+
+import org.apache.commons.lang3.Validate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * <p>
+ * A hash calculation, that can be updated incrementally and whose intermediate
+ * state can be saved as checkpoint and resumed later (e. g. on another node).
+ * </p>
+ * <p>
+ * The state of a {@link java.security.MessageDigest} cannot be exported, so
+ * this class has it's own implementation of the supported algorithms (the
+ * SHA-2 family of FIPS 180-4).
+ * </p>
+ * <p>
+ * The checkpoint consists of a magic number ({@code 0x4453}), a version
+ * ({@code 1}), the algorithm name, the number of hashed bytes, the hash words
+ * and the bytes of the incomplete block. It doesn't contain any secret, but it
+ * contains up to one block of the hashed data.
+ * </p>
+ * <p>
+ * A session is not thread safe.
+ * </p>
+ *
+ * @author Christian Bremer
+ */
+public class DigestSession {
+
+    private static final int MAGIC = 0x4453;
+
+    private static final int VERSION = 1;
+
+    private static final Set<String> ALGORITHMS = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(
+            "SHA-224", "SHA-256", "SHA-384", "SHA-512", "SHA-512/224", "SHA-512/256")));
+
+    private final String algorithm;
+
+    private final Engine engine;
+
+    private DigestSession(final String algorithm, final Engine engine) {
+        this.algorithm = algorithm;
+        this.engine = engine;
+    }
+
+    /**
+     * Returns the names of the supported algorithms.
+     *
+     * @return the names of the supported algorithms
+     */
+    public static Set<String> getSupportedAlgorithms() {
+        return ALGORITHMS;
+    }
+
+    private static Engine newEngine(final String algorithm) {
+        switch (algorithm) {
+            case "SHA-224":
+                return new Sha256Engine(28, new int[]{
+                        0xc1059ed8, 0x367cd507, 0x3070dd17, 0xf70e5939,
+                        0xffc00b31, 0x68581511, 0x64f98fa7, 0xbefa4fa4});
+            case "SHA-256":
+                return new Sha256Engine(32, new int[]{
+                        0x6a09e667, 0xbb67ae85, 0x3c6ef372, 0xa54ff53a,
+                        0x510e527f, 0x9b05688c, 0x1f83d9ab, 0x5be0cd19});
+            case "SHA-384":
+                return new Sha512Engine(48, new long[]{
+                        0xcbbb9d5dc1059ed8L, 0x629a292a367cd507L, 0x9159015a3070dd17L, 0x152fecd8f70e5939L,
+                        0x67332667ffc00b31L, 0x8eb44a8768581511L, 0xdb0c2e0d64f98fa7L, 0x47b5481dbefa4fa4L});
+            case "SHA-512":
+                return new Sha512Engine(64, new long[]{
+                        0x6a09e667f3bcc908L, 0xbb67ae8584caa73bL, 0x3c6ef372fe94f82bL, 0xa54ff53a5f1d36f1L,
+                        0x510e527fade682d1L, 0x9b05688c2b3e6c1fL, 0x1f83d9abfb41bd6bL, 0x5be0cd19137e2179L});
+            case "SHA-512/224":
+                return new Sha512Engine(28, new long[]{
+                        0x8c3d37c819544da2L, 0x73e1996689dcd4d6L, 0x1dfab7ae32ff9c82L, 0x679dd514582f9fcfL,
+                        0x0f6d2b697bd44da8L, 0x77e36f7304c48942L, 0x3f9d85a86a1d36c8L, 0x1112e6ad91d692a1L});
+            case "SHA-512/256":
+                return new Sha512Engine(32, new long[]{
+                        0x22312194fc2bf72cL, 0x9f555fa3c84c64c2L, 0x2393b86b6f53b151L, 0x963877195940eabdL,
+                        0x96283ee2a88effe3L, 0xbe5e1e2553863992L, 0x2b0199fc2c85b8aaL, 0x0eb72ddc81c52ca2L});
+            default:
+                throw new CodingException("Algorithm [" + algorithm + "] is not supported by digest sessions.");
+        }
+    }
+
+    private static String normalize(final String algorithm) {
+        Validate.notBlank(algorithm, "Algotithm must not be null or blank.");
+        final String name = algorithm.trim().toUpperCase();
+        return name.startsWith("SHA") && !name.startsWith("SHA-") ? "SHA-" + name.substring(3) : name;
+    }
+
+    /**
+     * Starts a new session.
+     *
+     * @param algorithm the name of the algorithm (one of {@link #getSupportedAlgorithms()})
+     * @return the new session
+     * @throws IllegalArgumentException if the algorithm is blank
+     * @throws CodingException          if the algorithm is not supported
+     */
+    public static DigestSession start(final String algorithm) {
+        final String name = normalize(algorithm);
+        return new DigestSession(name, newEngine(name));
+    }
+
+    /**
+     * Resumes a session from a checkpoint.
+     *
+     * @param checkpoint the checkpoint
+     * @return the resumed session
+     * @throws IllegalArgumentException if the checkpoint is {@code null}
+     * @throws CodingException          if the checkpoint is invalid
+     * @see #checkpoint()
+     */
+    public static DigestSession resume(final byte[] checkpoint) {
+        Validate.notNull(checkpoint, "Checkpoint must not be null.");
+        try {
+            final DataInputStream in = new DataInputStream(new ByteArrayInputStream(checkpoint));
+            if (in.readUnsignedShort() != MAGIC || in.readUnsignedByte() != VERSION) {
+                throw new CodingException("Checkpoint has an unknown format.");
+            }
+            final String algorithm = in.readUTF();
+            final Engine engine = newEngine(algorithm);
+            engine.readState(in);
+            if (in.read() != -1) {
+                throw new CodingException("Checkpoint has trailing data.");
+            }
+            return new DigestSession(algorithm, engine);
+
+        } catch (IOException e) {
+            throw new CodingException("Checkpoint is corrupt.", e);
+        }
+    }
+
+    /**
+     * Returns the name of the algorithm.
+     *
+     * @return the name of the algorithm
+     */
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Returns the number of bytes, that were hashed so far.
+     *
+     * @return the number of hashed bytes
+     */
+    public long getLength() {
+        return engine.byteCount;
+    }
+
+    /**
+     * Updates the hash with the specified bytes.
+     *
+     * @param bytes the bytes
+     * @return this session
+     */
+    public DigestSession update(final byte[] bytes) {
+        return update(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Updates the hash with the specified bytes.
+     *
+     * @param bytes  the bytes
+     * @param offset the start offset in the byte array
+     * @param len    the number of bytes
+     * @return this session
+     * @throws IndexOutOfBoundsException if the offset or the length are invalid
+     */
+    public DigestSession update(final byte[] bytes, final int offset, final int len) {
+        if (offset < 0 || len < 0 || offset + len > bytes.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        engine.update(bytes, offset, len);
+        return this;
+    }
+
+    /**
+     * Updates the hash with the data of the specified input stream.
+     *
+     * @param inputStream      the input stream
+     * @param closeInputStream if {@code true} the input stream will be closed, otherwise it
+     *                         will stay open
+     * @param listener         an input stream listener (may be {@code null})
+     * @return the number of read bytes
+     * @throws IllegalArgumentException if the input stream is {@code null}
+     * @throws CodingException          if reading fails
+     */
+    public long updateSilently(final InputStream inputStream, final boolean closeInputStream,
+                               final InputStreamListener listener) {
+        Validate.notNull(inputStream, "InputStream must not be null.");
+        final BufferPool bufferPool = BufferPool.getDefault();
+        byte[] buffer = bufferPool.acquireBytes(0L);
+        try {
+            long totalLen = 0L;
+            int len;
+            while ((len = inputStream.read(buffer)) != -1) {
+                engine.update(buffer, 0, len);
+                totalLen = totalLen + len;
+                if (listener != null) {
+                    listener.onReadBytes(buffer, 0, len);
+                }
+                buffer = bufferPool.growBytes(buffer, totalLen);
+            }
+            ListenerUtils.flush(listener);
+            return totalLen;
+
+        } catch (Exception e) {
+            throw new CodingException(e);
+
+        } finally {
+            bufferPool.releaseBytes(buffer);
+            if (closeInputStream) {
+                IoUtils.closeSilently(inputStream);
+            }
+        }
+    }
+
+    /**
+     * Returns the intermediate state of this session, that can be resumed with
+     * {@link #resume(byte[])}.
+     *
+     * @return the checkpoint
+     */
+    public byte[] checkpoint() {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        final DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeShort(MAGIC);
+            out.writeByte(VERSION);
+            out.writeUTF(algorithm);
+            engine.writeState(out);
+            out.flush();
+        } catch (IOException e) {
+            // cannot happen with a byte array
+            throw new CodingException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Returns the hash value of the bytes, that were hashed so far. This
+     * session is not changed, so it can be updated afterwards.
+     *
+     * @return the hash value
+     */
+    public byte[] digest() {
+        return engine.copy().finish();
+    }
+
+    /**
+     * The hash engine with the buffer of the incomplete block.
+     */
+    private abstract static class Engine {
+
+        final int blockSize;
+
+        final int digestLength;
+
+        byte[] buffer;
+
+        int bufferLength;
+
+        long byteCount;
+
+        Engine(final int blockSize, final int digestLength) {
+            this.blockSize = blockSize;
+            this.digestLength = digestLength;
+            this.buffer = new byte[blockSize];
+        }
+
+        abstract void compress(byte[] block, int offset);
+
+        abstract void writeWords(DataOutputStream out) throws IOException;
+
+        abstract void readWords(DataInputStream in) throws IOException;
+
+        abstract void writeHash(byte[] hash);
+
+        abstract Engine newCopy();
+
+        final Engine copy() {
+            final Engine copy = newCopy();
+            copy.buffer = buffer.clone();
+            copy.bufferLength = bufferLength;
+            copy.byteCount = byteCount;
+            return copy;
+        }
+
+        final void update(final byte[] bytes, final int offset, final int len) {
+            byteCount = byteCount + len;
+            int off = offset;
+            final int end = offset + len;
+            if (bufferLength > 0) {
+                final int n = Math.min(blockSize - bufferLength, len);
+                System.arraycopy(bytes, off, buffer, bufferLength, n);
+                bufferLength = bufferLength + n;
+                off = off + n;
+                if (bufferLength < blockSize) {
+                    return;
+                }
+                compress(buffer, 0);
+                bufferLength = 0;
+            }
+            while (end - off >= blockSize) {
+                compress(bytes, off);
+                off = off + blockSize;
+            }
+            System.arraycopy(bytes, off, buffer, 0, end - off);
+            bufferLength = end - off;
+        }
+
+        final byte[] finish() {
+            // padding: 0x80, zeros and the big endian bit length in the last
+            // 8 (SHA-256) or 16 (SHA-512) bytes of the block
+            final int lengthSize = blockSize / 8;
+            final long bitLengthLow = byteCount << 3;
+            final long bitLengthHigh = byteCount >>> 61;
+            buffer[bufferLength++] = (byte) 0x80;
+            if (bufferLength > blockSize - lengthSize) {
+                Arrays.fill(buffer, bufferLength, blockSize, (byte) 0);
+                compress(buffer, 0);
+                bufferLength = 0;
+            }
+            Arrays.fill(buffer, bufferLength, blockSize, (byte) 0);
+            for (int i = 0; i < 8; i++) {
+                buffer[blockSize - 1 - i] = (byte) (bitLengthLow >>> (8 * i));
+            }
+            if (lengthSize > 8) {
+                for (int i = 0; i < 8; i++) {
+                    buffer[blockSize - 9 - i] = (byte) (bitLengthHigh >>> (8 * i));
+                }
+            }
+            compress(buffer, 0);
+            final byte[] hash = new byte[digestLength];
+            writeHash(hash);
+            return hash;
+        }
+
+        final void writeState(final DataOutputStream out) throws IOException {
+            out.writeLong(byteCount);
+            writeWords(out);
+            out.writeShort(bufferLength);
+            out.write(buffer, 0, bufferLength);
+        }
+
+        final void readState(final DataInputStream in) throws IOException {
+            byteCount = in.readLong();
+            readWords(in);
+            bufferLength = in.readUnsignedShort();
+            if (byteCount < 0L || bufferLength >= blockSize || byteCount % blockSize != bufferLength) {
+                throw new CodingException("Checkpoint is inconsistent.");
+            }
+            in.readFully(buffer, 0, bufferLength);
+        }
+    }
+
+    /**
+     * SHA-224 and SHA-256.
+     */
+    private static class Sha256Engine extends Engine {
+
+        private static final int[] K = {
+                0x428a2f98, 0x71374491, 0xb5c0fbcf, 0xe9b5dba5, 0x3956c25b, 0x59f111f1, 0x923f82a4, 0xab1c5ed5,
+                0xd807aa98, 0x12835b01, 0x243185be, 0x550c7dc3, 0x72be5d74, 0x80deb1fe, 0x9bdc06a7, 0xc19bf174,
+                0xe49b69c1, 0xefbe4786, 0x0fc19dc6, 0x240ca1cc, 0x2de92c6f, 0x4a7484aa, 0x5cb0a9dc, 0x76f988da,
+                0x983e5152, 0xa831c66d, 0xb00327c8, 0xbf597fc7, 0xc6e00bf3, 0xd5a79147, 0x06ca6351, 0x14292967,
+                0x27b70a85, 0x2e1b2138, 0x4d2c6dfc, 0x53380d13, 0x650a7354, 0x766a0abb, 0x81c2c92e, 0x92722c85,
+                0xa2bfe8a1, 0xa81a664b, 0xc24b8b70, 0xc76c51a3, 0xd192e819, 0xd6990624, 0xf40e3585, 0x106aa070,
+                0x19a4c116, 0x1e376c08, 0x2748774c, 0x34b0bcb5, 0x391c0cb3, 0x4ed8aa4a, 0x5b9cca4f, 0x682e6ff3,
+                0x748f82ee, 0x78a5636f, 0x84c87814, 0x8cc70208, 0x90befffa, 0xa4506ceb, 0xbef9a3f7, 0xc67178f2};
+
+        private final int[] h;
+
+        private final int[] w = new int[64];
+
+        Sha256Engine(final int digestLength, final int[] h) {
+            super(64, digestLength);
+            this.h = h;
+        }
+
+        @Override
+        void compress(final byte[] block, final int offset) {
+            for (int t = 0; t < 16; t++) {
+                final int i = offset + 4 * t;
+                w[t] = (block[i] << 24) | ((block[i + 1] & 0xff) << 16) | ((block[i + 2] & 0xff) << 8)
+                        | (block[i + 3] & 0xff);
+            }
+            for (int t = 16; t < 64; t++) {
+                final int s0 = Integer.rotateRight(w[t - 15], 7) ^ Integer.rotateRight(w[t - 15], 18)
+                        ^ (w[t - 15] >>> 3);
+                final int s1 = Integer.rotateRight(w[t - 2], 17) ^ Integer.rotateRight(w[t - 2], 19)
+                        ^ (w[t - 2] >>> 10);
+                w[t] = w[t - 16] + s0 + w[t - 7] + s1;
+            }
+            int a = h[0], b = h[1], c = h[2], d = h[3], e = h[4], f = h[5], g = h[6], hh = h[7]; // NOSONAR
+            for (int t = 0; t < 64; t++) {
+                final int t1 = hh + (Integer.rotateRight(e, 6) ^ Integer.rotateRight(e, 11)
+                        ^ Integer.rotateRight(e, 25)) + ((e & f) ^ (~e & g)) + K[t] + w[t];
+                final int t2 = (Integer.rotateRight(a, 2) ^ Integer.rotateRight(a, 13)
+                        ^ Integer.rotateRight(a, 22)) + ((a & b) ^ (a & c) ^ (b & c));
+                hh = g;
+                g = f;
+                f = e;
+                e = d + t1;
+                d = c;
+                c = b;
+                b = a;
+                a = t1 + t2;
+            }
+            h[0] += a;
+            h[1] += b;
+            h[2] += c;
+            h[3] += d;
+            h[4] += e;
+            h[5] += f;
+            h[6] += g;
+            h[7] += hh;
+        }
+
+        @Override
+        void writeWords(final DataOutputStream out) throws IOException {
+            for (final int word : h) {
+                out.writeInt(word);
+            }
+        }
+
+        @Override
+        void readWords(final DataInputStream in) throws IOException {
+            for (int i = 0; i < h.length; i++) {
+                h[i] = in.readInt();
+            }
+        }
+
+        @Override
+        void writeHash(final byte[] hash) {
+            for (int i = 0; i < hash.length; i++) {
+                hash[i] = (byte) (h[i / 4] >>> (24 - 8 * (i % 4)));
+            }
+        }
+
+        @Override
+        Engine newCopy() {
+            return new Sha256Engine(digestLength, h.clone());
+        }
+    }
+
+    /**
+     * SHA-384, SHA-512, SHA-512/224 and SHA-512/256.
+     */
+    private static class Sha512Engine extends Engine {
+
+        private static final long[] K = {
+                0x428a2f98d728ae22L, 0x7137449123ef65cdL, 0xb5c0fbcfec4d3b2fL, 0xe9b5dba58189dbbcL,
+                0x3956c25bf348b538L, 0x59f111f1b605d019L, 0x923f82a4af194f9bL, 0xab1c5ed5da6d8118L,
+                0xd807aa98a3030242L, 0x12835b0145706fbeL, 0x243185be4ee4b28cL, 0x550c7dc3d5ffb4e2L,
+                0x72be5d74f27b896fL, 0x80deb1fe3b1696b1L, 0x9bdc06a725c71235L, 0xc19bf174cf692694L,
+                0xe49b69c19ef14ad2L, 0xefbe4786384f25e3L, 0x0fc19dc68b8cd5b5L, 0x240ca1cc77ac9c65L,
+                0x2de92c6f592b0275L, 0x4a7484aa6ea6e483L, 0x5cb0a9dcbd41fbd4L, 0x76f988da831153b5L,
+                0x983e5152ee66dfabL, 0xa831c66d2db43210L, 0xb00327c898fb213fL, 0xbf597fc7beef0ee4L,
+                0xc6e00bf33da88fc2L, 0xd5a79147930aa725L, 0x06ca6351e003826fL, 0x142929670a0e6e70L,
+                0x27b70a8546d22ffcL, 0x2e1b21385c26c926L, 0x4d2c6dfc5ac42aedL, 0x53380d139d95b3dfL,
+                0x650a73548baf63deL, 0x766a0abb3c77b2a8L, 0x81c2c92e47edaee6L, 0x92722c851482353bL,
+                0xa2bfe8a14cf10364L, 0xa81a664bbc423001L, 0xc24b8b70d0f89791L, 0xc76c51a30654be30L,
+                0xd192e819d6ef5218L, 0xd69906245565a910L, 0xf40e35855771202aL, 0x106aa07032bbd1b8L,
+                0x19a4c116b8d2d0c8L, 0x1e376c085141ab53L, 0x2748774cdf8eeb99L, 0x34b0bcb5e19b48a8L,
+                0x391c0cb3c5c95a63L, 0x4ed8aa4ae3418acbL, 0x5b9cca4f7763e373L, 0x682e6ff3d6b2b8a3L,
+                0x748f82ee5defb2fcL, 0x78a5636f43172f60L, 0x84c87814a1f0ab72L, 0x8cc702081a6439ecL,
+                0x90befffa23631e28L, 0xa4506cebde82bde9L, 0xbef9a3f7b2c67915L, 0xc67178f2e372532bL,
+                0xca273eceea26619cL, 0xd186b8c721c0c207L, 0xeada7dd6cde0eb1eL, 0xf57d4f7fee6ed178L,
+                0x06f067aa72176fbaL, 0x0a637dc5a2c898a6L, 0x113f9804bef90daeL, 0x1b710b35131c471bL,
+                0x28db77f523047d84L, 0x32caab7b40c72493L, 0x3c9ebe0a15c9bebcL, 0x431d67c49c100d4cL,
+                0x4cc5d4becb3e42b6L, 0x597f299cfc657e2aL, 0x5fcb6fab3ad6faecL, 0x6c44198c4a475817L};
+
+        private final long[] h;
+
+        private final long[] w = new long[80];
+
+        Sha512Engine(final int digestLength, final long[] h) {
+            super(128, digestLength);
+            this.h = h;
+        }
+
+        @Override
+        void compress(final byte[] block, final int offset) {
+            for (int t = 0; t < 16; t++) {
+                long word = 0L;
+                for (int i = offset + 8 * t; i < offset + 8 * t + 8; i++) {
+                    word = (word << 8) | (block[i] & 0xff);
+                }
+                w[t] = word;
+            }
+            for (int t = 16; t < 80; t++) {
+                final long s0 = Long.rotateRight(w[t - 15], 1) ^ Long.rotateRight(w[t - 15], 8)
+                        ^ (w[t - 15] >>> 7);
+                final long s1 = Long.rotateRight(w[t - 2], 19) ^ Long.rotateRight(w[t - 2], 61)
+                        ^ (w[t - 2] >>> 6);
+                w[t] = w[t - 16] + s0 + w[t - 7] + s1;
+            }
+            long a = h[0], b = h[1], c = h[2], d = h[3], e = h[4], f = h[5], g = h[6], hh = h[7]; // NOSONAR
+            for (int t = 0; t < 80; t++) {
+                final long t1 = hh + (Long.rotateRight(e, 14) ^ Long.rotateRight(e, 18)
+                        ^ Long.rotateRight(e, 41)) + ((e & f) ^ (~e & g)) + K[t] + w[t];
+                final long t2 = (Long.rotateRight(a, 28) ^ Long.rotateRight(a, 34)
+                        ^ Long.rotateRight(a, 39)) + ((a & b) ^ (a & c) ^ (b & c));
+                hh = g;
+                g = f;
+                f = e;
+                e = d + t1;
+                d = c;
+                c = b;
+                b = a;
+                a = t1 + t2;
+            }
+            h[0] += a;
+            h[1] += b;
+            h[2] += c;
+            h[3] += d;
+            h[4] += e;
+            h[5] += f;
+            h[6] += g;
+            h[7] += hh;
+        }
+
+        @Override
+        void writeWords(final DataOutputStream out) throws IOException {
+            for (final long word : h) {
+                out.writeLong(word);
+            }
+        }
+
+        @Override
+        void readWords(final DataInputStream in) throws IOException {
+            for (int i = 0; i < h.length; i++) {
+                h[i] = in.readLong();
+            }
+        }
+
+        @Override
+        void writeHash(final byte[] hash) {
+            for (int i = 0; i < hash.length; i++) {
+                hash[i] = (byte) (h[i / 8] >>> (56 - 8 * (i % 8)));
+            }
+        }
+
+        @Override
+        Engine newCopy() {
+            return new Sha512Engine(digestLength, h.clone());
+        }
+    }
+
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.utils;
+
+import org.apache.commons.lang3.Validate;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * <p>
+ * An output stream, that encodes the written data with a
+ * {@link BinaryEncoding} and writes the characters (ASCII) to the underlying
+ * output stream. It uses a small buffer of a fixed size, so data of any size
+ * can be encoded, e. g. with
+ * {@link IoUtils#copySilently(java.io.InputStream, OutputStream, boolean)}.
+ * </p>
+ * <p>
+ * The last characters and the padding are written, when the stream is
+ * finished or closed.
+ * </p>
+ *
+ * @author Christian Bremer
+ */
+public class EncodingOutputStream extends FilterOutputStream {
+
+    private static final int BUFFER_SIZE = 4096;
+
+    private final BinaryEncoding encoding;
+
+    private final int bitsPerChar;
+
+    private final int mask;
+
+    private final int lineLength;
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+
+    private int count;
+
+    private int bits;
+
+    private int bitCount;
+
+    private long charCount;
+
+    private int lineCharCount;
+
+    private boolean finished;
+
+    /**
+     * Creates an encoding output stream without line breaks.
+     *
+     * @param out      the underlying output stream
+     * @param encoding the encoding
+     */
+    public EncodingOutputStream(final OutputStream out, final BinaryEncoding encoding) {
+        this(out, encoding, 0);
+    }
+
+    /**
+     * Creates an encoding output stream.
+     *
+     * @param out        the underlying output stream
+     * @param encoding   the encoding
+     * @param lineLength the maximum number of characters of a line, that is
+     *                   terminated by CRLF (e. g. {@code 76} for MIME), or
+     *                   {@code 0} for no line breaks
+     */
+    public EncodingOutputStream(final OutputStream out, final BinaryEncoding encoding, final int lineLength) {
+        super(out);
+        Validate.notNull(out, "Output stream must not be null.");
+        Validate.notNull(encoding, "Encoding must not be null.");
+        Validate.isTrue(lineLength >= 0, "Line length must not be negative.");
+        this.encoding = encoding;
+        this.bitsPerChar = encoding.getBitsPerChar();
+        this.mask = (1 << bitsPerChar) - 1;
+        this.lineLength = lineLength;
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        if (finished) {
+            throw new IOException("Stream is finished.");
+        }
+        bits = (bits << 8) | (b & 0xff);
+        bitCount = bitCount + 8;
+        while (bitCount >= bitsPerChar) {
+            bitCount = bitCount - bitsPerChar;
+            put(encoding.toChar((bits >>> bitCount) & mask));
+        }
+        bits = bits & ((1 << bitCount) - 1);
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+        if (off < 0 || len < 0 || off + len > b.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        for (int i = off; i < off + len; i++) {
+            write(b[i]);
+        }
+    }
+
+    private void put(final char c) throws IOException {
+        if (count + 3 > buffer.length) {
+            flushBuffer();
+        }
+        if (lineLength > 0 && lineCharCount == lineLength) {
+            buffer[count++] = '\r';
+            buffer[count++] = '\n';
+            lineCharCount = 0;
+        }
+        buffer[count++] = (byte) c;
+        lineCharCount++;
+        charCount++;
+    }
+
+    private void flushBuffer() throws IOException {
+        if (count > 0) {
+            out.write(buffer, 0, count);
+            count = 0;
+        }
+    }
+
+    /**
+     * Writes the buffered characters to the underlying output stream and
+     * flushes it. The characters of incomplete bytes are written, when the
+     * stream is finished.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    /**
+     * Writes the last characters and the padding without closing the underlying
+     * output stream. No more data can be written afterwards.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        if (bitCount > 0) {
+            put(encoding.toChar((bits << (bitsPerChar - bitCount)) & mask));
+            bits = 0;
+            bitCount = 0;
+        }
+        while (charCount % encoding.getCharsPerBlock() != 0) {
+            put(BinaryEncoding.PAD);
+        }
+        finished = true;
+        flush();
+    }
+
+    /**
+     * Finishes this stream and closes the underlying output stream.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            out.close();
+        }
+    }
+
+}
@@ -0,0 +1,304 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.bremersee.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <p>
+ * Copies one input stream to several output streams at the same time.
+ * </p>
+ * <p>
+ * The reading thread fills the slots of a ring buffer. Every output stream
+ * has it's own consumer thread, that writes the slots in order. A slot is
+ * reused, when all consumers have written it. So fast output streams may run
+ * ahead of slow ones by the size of the ring and the copy is bounded by the
+ * slowest output stream rather than by the sum of all of them.
+ * </p>
+ * <p>
+ * The slots are parts of one array of the {@link BufferPool}, so a fan-out
+ * copy can be used only once.
+ * </p>
+ *
+ * @author Christian Bremer
+ */
+final class FanOutCopy {
+
+    /**
+     * The number of slots of the ring buffer.
+     */
+    private static final int SLOT_COUNT = 8;
+
+    /**
+     * The expected size of a slot.
+     */
+    private static final int SLOT_SIZE = 64 * 1024;
+
+    private final OutputStream[] sinks;
+
+    private final Executor executor;
+
+    private final BufferPool bufferPool = BufferPool.getDefault();
+
+    private final byte[] slots;
+
+    private final int slotSize;
+
+    private final int[] lengths = new int[SLOT_COUNT];
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition changed = lock.newCondition();
+
+    // the following fields are guarded by the lock
+
+    private final long[] consumed;
+
+    private long published;
+
+    private boolean finished;
+
+    private Throwable failure;
+
+    /**
+     * Creates a fan-out copy.
+     *
+     * @param sinks    the output streams
+     * @param executor the executor of the consumers (needs a thread for every output stream)
+     */
+    FanOutCopy(final OutputStream[] sinks, final Executor executor) {
+        this.sinks = sinks;
+        this.executor = executor;
+        this.consumed = new long[sinks.length];
+        this.slots = bufferPool.acquireBytes((long) SLOT_COUNT * SLOT_SIZE);
+        this.slotSize = slots.length / SLOT_COUNT;
+    }
+
+    /**
+     * Reads the input stream to it's end and writes the data into all output
+     * streams. The output streams are flushed, but not closed. If copying
+     * fails, the output streams are not flushed.
+     *
+     * @param inputStream the input stream
+     * @param listener    a listener (may be {@code null}), that is called by the reading thread
+     * @return the number of copied bytes
+     * @throws IOException if reading or writing fails
+     */
+    long copy(final InputStream inputStream, final InputStreamListener listener) throws IOException {
+        final CountDownLatch done = new CountDownLatch(sinks.length);
+        for (int i = 0; i < sinks.length; i++) {
+            try {
+                executor.execute(new Consumer(i, done));
+            } catch (RejectedExecutionException e) {
+                fail(e);
+                for (int j = i; j < sinks.length; j++) {
+                    done.countDown();
+                }
+                break;
+            }
+        }
+        long totalLen = 0L;
+        try {
+            int len;
+            while (true) {
+                final int index = awaitFreeSlot();
+                final int offset = index * slotSize;
+                if ((len = inputStream.read(slots, offset, slotSize)) == -1) {
+                    break;
+                }
+                if (len == 0) {
+                    continue;
+                }
+                totalLen = totalLen + len;
+                if (listener != null) {
+                    listener.onReadBytes(slots, offset, len);
+                }
+                publish(index, len);
+            }
+            ListenerUtils.flush(listener);
+
+        } catch (IOException | RuntimeException | Error e) {
+            fail(e);
+            throw e;
+
+        } finally {
+            lock.lock();
+            try {
+                finished = true;
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            awaitUninterruptibly(done);
+            // no consumer uses the slots any more
+            bufferPool.releaseBytes(slots);
+        }
+        checkFailure();
+        return totalLen;
+    }
+
+    /**
+     * Waits until the next slot is written by all consumers.
+     */
+    private int awaitFreeSlot() throws IOException {
+        lock.lock();
+        try {
+            while (failure == null && published - minConsumed() >= SLOT_COUNT) {
+                changed.awaitUninterruptibly();
+            }
+            checkFailure();
+            return (int) (published % SLOT_COUNT);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void publish(final int index, final int len) {
+        lock.lock();
+        try {
+            lengths[index] = len;
+            published++;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long minConsumed() {
+        long min = Long.MAX_VALUE;
+        for (long value : consumed) {
+            min = Math.min(min, value);
+        }
+        return min;
+    }
+
+    private void fail(final Throwable exc) {
+        lock.lock();
+        try {
+            if (failure == null) {
+                failure = exc;
+            }
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void checkFailure() throws IOException {
+        lock.lock();
+        try {
+            if (failure instanceof IOException) {
+                throw (IOException) failure;
+            }
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            }
+            if (failure instanceof Error) {
+                throw (Error) failure;
+            }
+            if (failure != null) {
+                throw new IORuntimeException(failure);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void awaitUninterruptibly(final CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Writes the slots into one output stream.
+     */
+    private class Consumer implements Runnable {
+
+        private final int sink;
+
+        private final CountDownLatch done;
+
+        Consumer(final int sink, final CountDownLatch done) {
+            this.sink = sink;
+            this.done = done;
+        }
+
+        @Override
+        public void run() {
+            final OutputStream outputStream = sinks[sink];
+            try {
+                long sequence = 0L;
+                boolean failed = false;
+                while (true) {
+                    final int index;
+                    final int len;
+                    lock.lock();
+                    try {
+                        while (failure == null && sequence == published && !finished) {
+                            changed.awaitUninterruptibly();
+                        }
+                        failed = failure != null;
+                        if (failed || sequence == published) {
+                            break;
+                        }
+                        index = (int) (sequence % SLOT_COUNT);
+                        len = lengths[index];
+                    } finally {
+                        lock.unlock();
+                    }
+                    outputStream.write(slots, index * slotSize, len);
+                    sequence++;
+                    lock.lock();
+                    try {
+                        consumed[sink] = sequence;
+                        changed.signalAll();
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+                if (!failed) {
+                    outputStream.flush();
+                }
+
+            } catch (Throwable t) { // NOSONAR
+                fail(t);
+
+            } finally {
+                done.countDown();
+            }
+        }
+    }
+
+}
@@ -20,13 +20,21 @@ package org.bremersee.utils;
  * <p>
  * Intercepter for reading a data.
  * </p>
+ * <p>
+ * If a listener implements {@link java.io.Flushable}, it is flushed by the
+ * operations of this library, when the end of the stream is reached.
+ * </p>
  *
  * @author Christian
+ * @see ListenerUtils
  */
 public interface InputStreamListener {
 
     /**
      * This method is called by reading data.
+     * <br>
+     * The buffer may be reused after this method returns, so the listener must
+     * not keep a reference to it.
      *
      * @param buffer the data buffer
      * @param offset the start offset in the data buffer
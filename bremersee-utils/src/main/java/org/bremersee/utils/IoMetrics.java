@@ -0,0 +1,92 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.bremersee.utils;
+
+/**
+ * <p>
+ * Service provider interface of the metrics of the copy and digest operations
+ * ({@link IoUtils#copySilently(java.io.InputStream, java.io.OutputStream, boolean)},
+ * {@link CodingUtils#digestSilently(java.security.MessageDigest, java.io.InputStream, boolean)},
+ * {@link CodingUtils#digestFileSilently(java.nio.file.Path, String)},
+ * {@link CodingUtils#digestAllSilently(java.io.InputStream, boolean, String...)},
+ * {@link CodingUtils#treeDigestSilently(java.nio.file.Path, String)}
+ * and their overloads).
+ * </p>
+ * <p>
+ * When characters are copied with a reader and a writer, the number of
+ * characters is reported as number of bytes.
+ * </p>
+ * <p>
+ * The metrics are disabled by default and cost nothing then. They are
+ * enabled with {@link IoUtils#setMetrics(IoMetrics)} or, with the default
+ * JMX implementation, with {@link IoUtils#enableJmxMetrics()} or the system
+ * property {@code org.bremersee.utils.IoUtils.jmxMetrics=true}.
+ * </p>
+ * <p>
+ * Implementations are called by many threads concurrently and should be fast.
+ * Runtime exceptions of an implementation are ignored.
+ * </p>
+ *
+ * @author Christian Bremer
+ * @see JmxIoMetrics
+ */
+public interface IoMetrics {
+
+    /**
+     * The measured operations.
+     */
+    enum Operation {
+
+        /**
+         * Copying bytes between streams or channels.
+         */
+        COPY,
+
+        /**
+         * Calculating a hash of a stream.
+         */
+        DIGEST
+    }
+
+    /**
+     * Is called, when an operation has completed successfully.
+     *
+     * @param operation    the operation
+     * @param bytes        the number of processed bytes
+     * @param elapsedNanos the duration of the operation in nanoseconds
+     */
+    void onCompleted(Operation operation, long bytes, long elapsedNanos);
+
+    /**
+     * Is called, when an operation has failed.
+     *
+     * @param operation    the operation
+     * @param bytes        the number of bytes, that were processed before the failure
+     * @param elapsedNanos the duration of the operation in nanoseconds
+     * @param cause        the cause of the failure
+     */
+    void onFailed(Operation operation, long bytes, long elapsedNanos, Throwable cause);
+
+    /**
+     * Is called, when an operation has closed its streams or channels.
+     *
+     * @param operation the operation
+     */
+    void onClosed(Operation operation);
+
+}
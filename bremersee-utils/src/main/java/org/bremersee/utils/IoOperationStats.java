@@ -0,0 +1,192 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.bremersee.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>
+ * Statistics of an operation.
+ * </p>
+ * <p>
+ * The throughput of every completed operation, that has processed at least
+ * one byte, is counted in a bucket of a histogram. The first bucket contains
+ * the operations with less than 1 MiB/s, the following buckets double their
+ * bounds (1 - 2 MiB/s, 2 - 4 MiB/s, ...) and the last bucket contains the
+ * operations with 16 GiB/s or more.
+ * </p>
+ *
+ * @author Christian Bremer
+ */
+public class IoOperationStats implements IoOperationStatsMBean {
+
+    /**
+     * The number of buckets of the throughput histogram.
+     */
+    public static final int BUCKET_COUNT = 16;
+
+    private static final double MIB = 1024d * 1024d;
+
+    private static final String[] BUCKETS = createBucketNames();
+
+    private final AtomicLong count = new AtomicLong();
+
+    private final AtomicLong errorCount = new AtomicLong();
+
+    private final AtomicLong closeCount = new AtomicLong();
+
+    private final AtomicLong bytes = new AtomicLong();
+
+    private final AtomicLong elapsedNanos = new AtomicLong();
+
+    private final AtomicLong maxElapsedNanos = new AtomicLong();
+
+    private final AtomicLongArray histogram = new AtomicLongArray(BUCKET_COUNT);
+
+    private static String[] createBucketNames() {
+        final String[] names = new String[BUCKET_COUNT];
+        names[0] = "< 1 MiB/s";
+        for (int i = 1; i < BUCKET_COUNT - 1; i++) {
+            names[i] = (1L << (i - 1)) + " - " + (1L << i) + " MiB/s";
+        }
+        names[BUCKET_COUNT - 1] = ">= " + (1L << (BUCKET_COUNT - 2)) + " MiB/s";
+        return names;
+    }
+
+    /**
+     * Returns the bucket of the histogram of the given throughput.
+     *
+     * @param bytes        the number of processed bytes
+     * @param elapsedNanos the duration in nanoseconds
+     * @return the index of the bucket
+     */
+    static int bucketOf(final long bytes, final long elapsedNanos) {
+        if (elapsedNanos <= 0L) {
+            return BUCKET_COUNT - 1;
+        }
+        final long mibPerSecond = (long) (bytes * 1000000000d / elapsedNanos / MIB);
+        final int bucket = 64 - Long.numberOfLeadingZeros(mibPerSecond);
+        return Math.min(bucket, BUCKET_COUNT - 1);
+    }
+
+    private void add(final long len, final long nanos) {
+        bytes.addAndGet(len);
+        elapsedNanos.addAndGet(nanos);
+        long max;
+        while (nanos > (max = maxElapsedNanos.get()) && !maxElapsedNanos.compareAndSet(max, nanos)) {
+            // retry
+        }
+    }
+
+    /**
+     * Records a completed operation.
+     *
+     * @param len   the number of processed bytes
+     * @param nanos the duration in nanoseconds
+     */
+    void completed(final long len, final long nanos) {
+        count.incrementAndGet();
+        add(len, nanos);
+        if (len > 0L) {
+            histogram.incrementAndGet(bucketOf(len, nanos));
+        }
+    }
+
+    /**
+     * Records a failed operation.
+     *
+     * @param len   the number of bytes, that were processed before the failure
+     * @param nanos the duration in nanoseconds
+     */
+    void failed(final long len, final long nanos) {
+        errorCount.incrementAndGet();
+        add(len, nanos);
+    }
+
+    /**
+     * Records a close.
+     */
+    void closed() {
+        closeCount.incrementAndGet();
+    }
+
+    @Override
+    public long getCount() {
+        return count.get();
+    }
+
+    @Override
+    public long getErrorCount() {
+        return errorCount.get();
+    }
+
+    @Override
+    public long getCloseCount() {
+        return closeCount.get();
+    }
+
+    @Override
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    @Override
+    public long getElapsedNanos() {
+        return elapsedNanos.get();
+    }
+
+    @Override
+    public long getMaxElapsedNanos() {
+        return maxElapsedNanos.get();
+    }
+
+    @Override
+    public double getAverageThroughput() {
+        final long nanos = elapsedNanos.get();
+        return nanos <= 0L ? 0d : bytes.get() * 1000000000d / nanos;
+    }
+
+    @Override
+    public long[] getThroughputHistogram() {
+        final long[] values = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            values[i] = histogram.get(i);
+        }
+        return values;
+    }
+
+    @Override
+    public String[] getThroughputBuckets() {
+        return BUCKETS.clone();
+    }
+
+    @Override
+    public void reset() {
+        count.set(0L);
+        errorCount.set(0L);
+        closeCount.set(0L);
+        bytes.set(0L);
+        elapsedNanos.set(0L);
+        maxElapsedNanos.set(0L);
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            histogram.set(i, 0L);
+        }
+    }
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.bremersee.utils;
+
+/**
+ * <p>
+ * The management interface of the statistics of an operation.
+ * </p>
+ *
+ * @author Christian Bremer
+ * @see IoOperationStats
+ */
+public interface IoOperationStatsMBean {
+
+    /**
+     * Returns the number of completed operations.
+     *
+     * @return the number of completed operations
+     */
+    long getCount();
+
+    /**
+     * Returns the number of failed operations.
+     *
+     * @return the number of failed operations
+     */
+    long getErrorCount();
+
+    /**
+     * Returns the number of operations, that have closed their streams or channels.
+     *
+     * @return the number of closes
+     */
+    long getCloseCount();
+
+    /**
+     * Returns the number of bytes, that were processed by completed and failed operations.
+     *
+     * @return the number of processed bytes
+     */
+    long getBytes();
+
+    /**
+     * Returns the total duration of the completed and failed operations in nanoseconds.
+     *
+     * @return the total duration in nanoseconds
+     */
+    long getElapsedNanos();
+
+    /**
+     * Returns the duration of the slowest operation in nanoseconds.
+     *
+     * @return the maximum duration in nanoseconds
+     */
+    long getMaxElapsedNanos();
+
+    /**
+     * Returns the average throughput in bytes per second.
+     *
+     * @return the average throughput in bytes per second
+     */
+    double getAverageThroughput();
+
+    /**
+     * Returns the number of completed operations per throughput bucket.
+     *
+     * @return the counts of the buckets of {@link #getThroughputBuckets()}
+     */
+    long[] getThroughputHistogram();
+
+    /**
+     * Returns the names of the throughput buckets.
+     *
+     * @return the names of the throughput buckets
+     */
+    String[] getThroughputBuckets();
+
+    /**
+     * Resets all counters.
+     */
+    void reset();
+
+}
@@ -16,11 +16,44 @@
 
 package org.bremersee.utils;
 
+import org.apache.commons.lang3.Validate;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Reader;
 import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.Channel;
+import java.nio.channels.Channels;
+import java.nio.channels.CompletionHandler;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.security.MessageDigest;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
 
 /**
  * <p>
@@ -31,6 +64,15 @@ import java.io.Writer;
  */
 public abstract class IoUtils {
 
+    /**
+     * The maximum number of bytes that are transferred between channels with
+     * one system call.
+     */
+    private static final long MAX_TRANSFER_SIZE = 8L * 1024L * 1024L;
+
+    private static volatile IoMetrics metrics = Boolean.getBoolean(IoUtils.class.getName() + ".jmxMetrics")
+            ? registerJmxMetricsSilently() : null;
+
     /**
      * Never construct.
      */
@@ -38,6 +80,91 @@ public abstract class IoUtils {
         super();
     }
 
+    private static IoMetrics registerJmxMetricsSilently() {
+        try {
+            return new JmxIoMetrics().register();
+        } catch (RuntimeException e) { // NOSONAR
+            // metrics must never break the IO operations
+            return null;
+        }
+    }
+
+    /**
+     * Returns the metrics of the copy and digest operations.
+     *
+     * @return the metrics or {@code null}, if metrics are disabled
+     */
+    public static IoMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Sets the metrics of the copy and digest operations.
+     *
+     * @param metrics the metrics (may be {@code null}, then metrics are disabled)
+     */
+    public static void setMetrics(final IoMetrics metrics) {
+        IoUtils.metrics = metrics;
+    }
+
+    /**
+     * Enables the default metrics, that are exposed as MBeans of the platform
+     * MBean server. If the default metrics are already enabled, they are
+     * returned.
+     *
+     * @return the metrics
+     * @throws IllegalStateException if the MBeans cannot be registered
+     */
+    public static synchronized JmxIoMetrics enableJmxMetrics() {
+        final IoMetrics current = metrics;
+        if (current instanceof JmxIoMetrics) {
+            return (JmxIoMetrics) current;
+        }
+        final JmxIoMetrics jmxMetrics = new JmxIoMetrics().register();
+        metrics = jmxMetrics;
+        return jmxMetrics;
+    }
+
+    /**
+     * Returns the start time of an operation, if metrics are enabled.
+     *
+     * @param metrics the metrics (may be {@code null})
+     * @return the start time in nanoseconds or {@code 0}
+     */
+    static long startTime(final IoMetrics metrics) {
+        return metrics == null ? 0L : System.nanoTime();
+    }
+
+    /**
+     * Records an operation, if metrics are enabled.
+     *
+     * @param metrics   the metrics (may be {@code null})
+     * @param operation the operation
+     * @param bytes     the number of processed bytes
+     * @param startTime the start time in nanoseconds
+     * @param failure   the failure of the operation (may be {@code null})
+     * @param closed    {@code true}, if the operation has closed its streams or channels
+     */
+    static void record(final IoMetrics metrics, final IoMetrics.Operation operation, final long bytes,
+                       final long startTime, final Throwable failure, final boolean closed) {
+        if (metrics == null) {
+            return;
+        }
+        final long elapsedNanos = System.nanoTime() - startTime;
+        try {
+            if (failure == null) {
+                metrics.onCompleted(operation, bytes, elapsedNanos);
+            } else {
+                metrics.onFailed(operation, bytes, elapsedNanos, failure);
+            }
+            if (closed) {
+                metrics.onClosed(operation);
+            }
+        } catch (RuntimeException ignored) { // NOSONAR
+            // metrics must never break the IO operations
+        }
+    }
+
     /**
      * Copies data.
      * 
@@ -59,6 +186,13 @@ public abstract class IoUtils {
 
     /**
      * Copies data.
+     * <p>
+     * If the input stream is a {@link FileInputStream} and the output stream is a
+     * {@link FileOutputStream}, the data is transferred directly between the file
+     * channels without passing a buffer in the heap, as long as the listener is
+     * {@code null} or a {@link TransferListener}. Otherwise the data is copied
+     * through a buffer.
+     * </p>
      * 
      * @param inputStream
      *            the input data
@@ -74,30 +208,986 @@ public abstract class IoUtils {
      */
     public static long copySilently(final InputStream inputStream, final OutputStream outputStream,
                                     final boolean closeStreams, final InputStreamListener listener) {
+        return copySilently(inputStream, outputStream, closeStreams, listener, null);
+    }
+
+    /**
+     * Copies data with a limited rate.
+     * <p>
+     * Before a chunk of data is written, the permits for it's bytes are taken
+     * from the rate limiter. If the rate limiter is shared by several copy
+     * operations, their total rate is limited. The listener is called after
+     * every chunk, so it can report the current rate of the rate limiter
+     * ({@link RateLimiter#getCurrentRate()}).
+     * </p>
+     *
+     * @param inputStream
+     *            the input data
+     * @param outputStream
+     *            the output destination
+     * @param closeStreams
+     *            if {@code true} the streams will be closed otherwise they will stay open
+     * @param listener
+     *            a listener (may be {@code null})
+     * @param rateLimiter
+     *            the rate limiter in bytes per second (may be {@code null}, then
+     *            the rate is not limited)
+     * @return the length of copied data
+     * @throws IORuntimeException
+     *             if copying fails or the current thread is interrupted
+     */
+    public static long copySilently(final InputStream inputStream, final OutputStream outputStream,
+                                    final boolean closeStreams, final InputStreamListener listener,
+                                    final RateLimiter rateLimiter) {
+        final IoMetrics ioMetrics = metrics;
+        final long startTime = startTime(ioMetrics);
+        Throwable failure = null;
+        final BufferPool bufferPool = BufferPool.getDefault();
         long totalLen = 0L;
         int len;
-        byte[] buf = new byte[4096];
+        byte[] buf = null;
         try {
-            while ((len = inputStream.read(buf)) != -1) {
+            if (rateLimiter == null && inputStream instanceof FileInputStream
+                    && outputStream instanceof FileOutputStream && isTransferListener(listener)) {
+                // the file may grow or may be a special file without a size,
+                // so the rest (if any) is copied through the buffer below
+                totalLen = transferTo(((FileInputStream) inputStream).getChannel(),
+                        ((FileOutputStream) outputStream).getChannel(), (TransferListener) listener);
+            }
+            buf = bufferPool.acquireBytes(0L);
+            while ((len = inputStream.read(buf, 0, chunkSize(buf.length, rateLimiter))) != -1) {
+                if (rateLimiter != null) {
+                    rateLimiter.acquire(len);
+                }
                 outputStream.write(buf, 0, len);
                 totalLen = totalLen + len;
                 if (listener != null) {
                     listener.onReadBytes(buf, 0, len);
                 }
+                buf = bufferPool.growBytes(buf, totalLen);
             }
+            ListenerUtils.flush(listener);
             outputStream.flush();
 
+        } catch (InterruptedException e) {
+            failure = e;
+            Thread.currentThread().interrupt();
+            throw new IORuntimeException(e);
         } catch (Exception e) {
+            failure = e;
             throw new IORuntimeException(e);
         } finally {
+            bufferPool.releaseBytes(buf);
         	if (closeStreams) {
         	    closeSilently(inputStream);
         	    closeSilently(outputStream);
         	}
+            record(ioMetrics, IoMetrics.Operation.COPY, totalLen, startTime, failure, closeStreams);
+        }
+        return totalLen;
+    }
+
+    /**
+     * Copies data between channels.
+     * <p>
+     * If the source or the target is a {@link FileChannel}, the data is
+     * transferred with {@link FileChannel#transferTo(long, long, WritableByteChannel)}
+     * or {@link FileChannel#transferFrom(ReadableByteChannel, long, long)}, as long
+     * as the listener is {@code null} or a {@link TransferListener}. Otherwise the
+     * data is copied through a pooled direct buffer, so it is never copied into
+     * the heap. Only a listener, that is not a {@link TransferListener}, needs
+     * the data in a heap buffer.
+     * </p>
+     * <p>
+     * The channels must be in blocking mode.
+     * </p>
+     *
+     * @param source
+     *            the source channel
+     * @param target
+     *            the target channel
+     * @param closeChannels
+     *            if {@code true} the channels will be closed otherwise they will stay open
+     * @param listener
+     *            a listener (may be {@code null})
+     * @return the length of copied data
+     * @throws IORuntimeException
+     *             if copying fails
+     */
+    public static long copySilently(final ReadableByteChannel source, final WritableByteChannel target,
+                                    final boolean closeChannels, final InputStreamListener listener) {
+        final IoMetrics ioMetrics = metrics;
+        final long startTime = startTime(ioMetrics);
+        Throwable failure = null;
+        long totalLen = 0L;
+        try {
+            if (isTransferListener(listener)) {
+                if (source instanceof FileChannel) {
+                    totalLen = transferTo((FileChannel) source, target, (TransferListener) listener);
+                } else if (target instanceof FileChannel) {
+                    totalLen = transferFrom(source, (FileChannel) target, (TransferListener) listener);
+                    ListenerUtils.flush(listener);
+                    return totalLen;
+                }
+                totalLen = totalLen + copyDirect(source, target, (TransferListener) listener);
+            } else {
+                totalLen = copyThroughArray(source, target, listener);
+            }
+            ListenerUtils.flush(listener);
+
+        } catch (Exception e) {
+            failure = e;
+            throw new IORuntimeException(e);
+        } finally {
+            if (closeChannels) {
+                closeSilently(source);
+                closeSilently(target);
+            }
+            record(ioMetrics, IoMetrics.Operation.COPY, totalLen, startTime, failure, closeChannels);
+        }
+        return totalLen;
+    }
+
+    /**
+     * Writes the remaining bytes of a buffer into a channel. The position of
+     * the buffer is advanced to it's limit. A direct buffer is written without
+     * copying it into the heap.
+     *
+     * @param source
+     *            the source buffer
+     * @param target
+     *            the target channel (must be in blocking mode)
+     * @param closeChannel
+     *            if {@code true} the channel will be closed otherwise it will stay open
+     * @return the length of copied data
+     * @throws IORuntimeException
+     *             if copying fails
+     */
+    public static long copySilently(final ByteBuffer source, final WritableByteChannel target,
+                                    final boolean closeChannel) {
+        Validate.notNull(source, "Source buffer must not be null.");
+        final IoMetrics ioMetrics = metrics;
+        final long startTime = startTime(ioMetrics);
+        Throwable failure = null;
+        long totalLen = 0L;
+        try {
+            while (source.hasRemaining()) {
+                totalLen = totalLen + target.write(source);
+            }
+
+        } catch (Exception e) {
+            failure = e;
+            throw new IORuntimeException(e);
+        } finally {
+            if (closeChannel) {
+                closeSilently(target);
+            }
+            record(ioMetrics, IoMetrics.Operation.COPY, totalLen, startTime, failure, closeChannel);
+        }
+        return totalLen;
+    }
+
+    /**
+     * Copies the channels through a pooled direct buffer, so the data is not
+     * copied into the heap.
+     */
+    private static long copyDirect(final ReadableByteChannel source, final WritableByteChannel target,
+                                   final TransferListener listener) throws IOException {
+        final BufferPool bufferPool = BufferPool.getDefault();
+        ByteBuffer buf = bufferPool.acquireDirect(0L);
+        try {
+            long totalLen = 0L;
+            int len;
+            while ((len = source.read(buf)) != -1) {
+                buf.flip();
+                while (buf.hasRemaining()) {
+                    target.write(buf);
+                }
+                totalLen = totalLen + len;
+                if (listener != null) {
+                    listener.onTransferredBytes(len);
+                }
+                buf.clear();
+                buf = bufferPool.growDirect(buf, totalLen);
+            }
+            return totalLen;
+
+        } finally {
+            bufferPool.releaseDirect(buf);
+        }
+    }
+
+    /**
+     * Copies the channels through a pooled heap buffer, so the listener gets
+     * the bytes.
+     */
+    private static long copyThroughArray(final ReadableByteChannel source, final WritableByteChannel target,
+                                         final InputStreamListener listener) throws IOException {
+        final BufferPool bufferPool = BufferPool.getDefault();
+        byte[] array = bufferPool.acquireBytes(0L);
+        try {
+            long totalLen = 0L;
+            ByteBuffer buf = ByteBuffer.wrap(array);
+            int len;
+            while ((len = source.read(buf)) != -1) {
+                buf.flip();
+                while (buf.hasRemaining()) {
+                    target.write(buf);
+                }
+                totalLen = totalLen + len;
+                listener.onReadBytes(array, 0, len);
+                final byte[] grown = bufferPool.growBytes(array, totalLen);
+                if (grown != array) {
+                    array = grown;
+                    buf = ByteBuffer.wrap(array);
+                } else {
+                    buf.clear();
+                }
+            }
+            return totalLen;
+
+        } finally {
+            bufferPool.releaseBytes(array);
+        }
+    }
+
+    /**
+     * Copies data into several output streams at the same time.
+     *
+     * @param inputStream
+     *            the input data
+     * @param outputStreams
+     *            the output destinations
+     * @param closeStreams
+     *            if {@code true} the streams will be closed otherwise they will stay open
+     * @param listener
+     *            a listener (may be {@code null}), that is called by the reading thread
+     * @return the length of copied data
+     * @throws IORuntimeException
+     *             if copying fails
+     * @see #copyToAllSilently(InputStream, OutputStream[], boolean, InputStreamListener, Executor)
+     */
+    public static long copyToAllSilently(final InputStream inputStream, final OutputStream[] outputStreams,
+                                         final boolean closeStreams, final InputStreamListener listener) {
+        return copyToAllSilently(inputStream, outputStreams, closeStreams, listener, null);
+    }
+
+    /**
+     * Copies data into several output streams at the same time.
+     * <p>
+     * The data is read into a ring buffer. Every output stream is written by
+     * it's own thread of the executor, so fast output streams don't wait for
+     * slow ones as long as they are not more than the ring buffer ahead. The
+     * copy takes about as long as writing the slowest output stream.
+     * </p>
+     *
+     * @param inputStream
+     *            the input data
+     * @param outputStreams
+     *            the output destinations
+     * @param closeStreams
+     *            if {@code true} the streams will be closed otherwise they will stay open
+     * @param listener
+     *            a listener (may be {@code null}), that is called by the reading thread
+     * @param executor
+     *            the executor (may be {@code null}, then a shared executor with daemon
+     *            threads is used); it must be able to run a thread for every output
+     *            stream at the same time
+     * @return the length of copied data
+     * @throws IORuntimeException
+     *             if copying fails
+     */
+    public static long copyToAllSilently(final InputStream inputStream, final OutputStream[] outputStreams,
+                                         final boolean closeStreams, final InputStreamListener listener,
+                                         final Executor executor) {
+        Validate.notNull(inputStream, "Input stream must not be null.");
+        Validate.notEmpty(outputStreams, "Output streams must not be empty.");
+        Validate.noNullElements(outputStreams, "Output streams must not contain null.");
+        final IoMetrics ioMetrics = metrics;
+        final long startTime = startTime(ioMetrics);
+        Throwable failure = null;
+        long totalLen = 0L;
+        try {
+            totalLen = new FanOutCopy(outputStreams.clone(), executor == null ? SharedExecutors.io() : executor)
+                    .copy(inputStream, listener);
+
+        } catch (IORuntimeException e) {
+            failure = e;
+            throw e;
+        } catch (Exception e) {
+            failure = e;
+            throw new IORuntimeException(e);
+        } finally {
+            if (closeStreams) {
+                closeSilently(inputStream);
+                for (OutputStream outputStream : outputStreams) {
+                    closeSilently(outputStream);
+                }
+            }
+            record(ioMetrics, IoMetrics.Operation.COPY, totalLen, startTime, failure, closeStreams);
+        }
+        return totalLen;
+    }
+
+    /**
+     * Copies data into several channels at the same time (see
+     * {@link #copyToAllSilently(InputStream, OutputStream[], boolean, InputStreamListener, Executor)}).
+     * The channels must be in blocking mode.
+     *
+     * @param source
+     *            the source channel
+     * @param targets
+     *            the target channels
+     * @param closeChannels
+     *            if {@code true} the channels will be closed otherwise they will stay open
+     * @param listener
+     *            a listener (may be {@code null}), that is called by the reading thread
+     * @return the length of copied data
+     * @throws IORuntimeException
+     *             if copying fails
+     */
+    public static long copyToAllSilently(final ReadableByteChannel source, final WritableByteChannel[] targets,
+                                         final boolean closeChannels, final InputStreamListener listener) {
+        Validate.notNull(source, "Source channel must not be null.");
+        Validate.notEmpty(targets, "Target channels must not be empty.");
+        Validate.noNullElements(targets, "Target channels must not contain null.");
+        // the channel streams wrap the arrays of the ring buffer without copying them
+        final OutputStream[] outputStreams = new OutputStream[targets.length];
+        for (int i = 0; i < targets.length; i++) {
+            outputStreams[i] = Channels.newOutputStream(targets[i]);
+        }
+        try {
+            return copyToAllSilently(Channels.newInputStream(source), outputStreams, false, listener, null);
+
+        } finally {
+            if (closeChannels) {
+                closeSilently(source);
+                for (WritableByteChannel target : targets) {
+                    closeSilently(target);
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies data and compresses it into the gzip format with the default
+     * compression level and the shared compute pool of this library.
+     *
+     * @param inputStream
+     *            the uncompressed input data
+     * @param outputStream
+     *            the compressed output destination
+     * @param closeStreams
+     *            if {@code true} the streams will be closed otherwise they will stay open
+     * @param listener
+     *            a listener (may be {@code null}), that gets the uncompressed data
+     * @return the length of the uncompressed data
+     * @throws IORuntimeException
+     *             if copying fails
+     * @see #copyCompressedSilently(InputStream, OutputStream, boolean, InputStreamListener, int, Executor)
+     */
+    public static long copyCompressedSilently(final InputStream inputStream, final OutputStream outputStream,
+                                              final boolean closeStreams, final InputStreamListener listener) {
+        return copyCompressedSilently(inputStream, outputStream, closeStreams, listener,
+                Deflater.DEFAULT_COMPRESSION, null);
+    }
+
+    /**
+     * Copies data and compresses it into the gzip format.
+     * <p>
+     * The data is compressed in independent blocks of 128 KiB by the threads of
+     * the executor, while the next blocks are read (like pigz). Every block
+     * uses the end of the previous block as dictionary, so the compression
+     * ratio is almost the same as with a {@link java.util.zip.GZIPOutputStream}.
+     * The output is a standard gzip stream, that can be decompressed by any
+     * gzip implementation, for example with
+     * {@link #copyDecompressedSilently(InputStream, OutputStream, boolean, InputStreamListener)}.
+     * </p>
+     *
+     * @param inputStream
+     *            the uncompressed input data
+     * @param outputStream
+     *            the compressed output destination
+     * @param closeStreams
+     *            if {@code true} the streams will be closed otherwise they will stay open
+     * @param listener
+     *            a listener (may be {@code null}), that gets the uncompressed data
+     * @param level
+     *            the compression level ({@code 0} to {@code 9} or
+     *            {@link Deflater#DEFAULT_COMPRESSION})
+     * @param executor
+     *            the executor of the compression tasks (may be {@code null}, then the
+     *            shared compute pool of this library is used)
+     * @return the length of the uncompressed data
+     * @throws IllegalArgumentException
+     *             if the compression level is invalid
+     * @throws IORuntimeException
+     *             if copying fails
+     */
+    public static long copyCompressedSilently(final InputStream inputStream, final OutputStream outputStream,
+                                              final boolean closeStreams, final InputStreamListener listener,
+                                              final int level, final Executor executor) {
+        Validate.notNull(inputStream, "Input stream must not be null.");
+        Validate.notNull(outputStream, "Output stream must not be null.");
+        Validate.isTrue(level == Deflater.DEFAULT_COMPRESSION
+                || (level >= Deflater.NO_COMPRESSION && level <= Deflater.BEST_COMPRESSION),
+                "Invalid compression level: " + level);
+        final IoMetrics ioMetrics = metrics;
+        final long startTime = startTime(ioMetrics);
+        Throwable failure = null;
+        long totalLen = 0L;
+        try {
+            final Executor service = executor == null ? SharedExecutors.compute() : executor;
+            final int parallelism = service instanceof ForkJoinPool
+                    ? ((ForkJoinPool) service).getParallelism()
+                    : Runtime.getRuntime().availableProcessors();
+            totalLen = new ParallelGzipCompressor(level, service, parallelism)
+                    .compress(inputStream, outputStream, listener);
+
+        } catch (Exception e) {
+            failure = e;
+            throw new IORuntimeException(e);
+        } finally {
+            if (closeStreams) {
+                closeSilently(inputStream);
+                closeSilently(outputStream);
+            }
+            record(ioMetrics, IoMetrics.Operation.COPY, totalLen, startTime, failure, closeStreams);
+        }
+        return totalLen;
+    }
+
+    /**
+     * Copies gzip compressed data and decompresses it. Concatenated gzip
+     * members are decompressed one after the other.
+     *
+     * @param inputStream
+     *            the compressed input data
+     * @param outputStream
+     *            the uncompressed output destination
+     * @param closeStreams
+     *            if {@code true} the streams will be closed otherwise they will stay open
+     * @param listener
+     *            a listener (may be {@code null}), that gets the uncompressed data
+     * @return the length of the uncompressed data
+     * @throws IORuntimeException
+     *             if the input is not in the gzip format or copying fails
+     */
+    public static long copyDecompressedSilently(final InputStream inputStream, final OutputStream outputStream,
+                                                final boolean closeStreams, final InputStreamListener listener) {
+        Validate.notNull(inputStream, "Input stream must not be null.");
+        Validate.notNull(outputStream, "Output stream must not be null.");
+        final GZIPInputStream gzipInputStream;
+        try {
+            gzipInputStream = new GZIPInputStream(inputStream, ParallelGzipCompressor.BLOCK_SIZE);
+        } catch (IOException e) {
+            if (closeStreams) {
+                closeSilently(inputStream);
+                closeSilently(outputStream);
+            }
+            throw new IORuntimeException(e);
+        }
+        return copySilently(gzipInputStream, outputStream, closeStreams, listener);
+    }
+
+    /**
+     * Copies data and converts it from one charset into another. Malformed input
+     * and unmappable characters are replaced.
+     *
+     * @param inputStream
+     *            the input data
+     * @param sourceCharset
+     *            the charset of the input data
+     * @param outputStream
+     *            the output destination
+     * @param targetCharset
+     *            the charset of the output
+     * @param closeStreams
+     *            if {@code true} the streams will be closed otherwise they will stay open
+     * @param listener
+     *            a listener (may be {@code null}), that gets the input data
+     * @return the length of the written data
+     * @throws IORuntimeException
+     *             if copying fails
+     * @see CharsetTranscoder
+     */
+    public static long transcodeSilently(final InputStream inputStream, final Charset sourceCharset,
+                                         final OutputStream outputStream, final Charset targetCharset,
+                                         final boolean closeStreams, final InputStreamListener listener) {
+        Validate.notNull(inputStream, "Input stream must not be null.");
+        Validate.notNull(outputStream, "Output stream must not be null.");
+        final CharsetTranscoder transcoder = new CharsetTranscoder(sourceCharset, targetCharset);
+        final IoMetrics ioMetrics = metrics;
+        final long startTime = startTime(ioMetrics);
+        Throwable failure = null;
+        long totalLen = 0L;
+        try {
+            totalLen = transcoder.transcode(inputStream, outputStream, listener);
+            outputStream.flush();
+
+        } catch (Exception e) {
+            failure = e;
+            throw new IORuntimeException(e);
+        } finally {
+            if (closeStreams) {
+                closeSilently(inputStream);
+                closeSilently(outputStream);
+            }
+            record(ioMetrics, IoMetrics.Operation.COPY, totalLen, startTime, failure, closeStreams);
         }
         return totalLen;
     }
 
+    /**
+     * Copies data and calculates hash values of it with one pass over the
+     * input.
+     * <p>
+     * The hash values are calculated from the same buffers, that are written to
+     * the output stream, so the data isn't read a second time for verification.
+     * With more than one algorithm every chunk is hashed by one task per
+     * algorithm in the shared compute pool of this library, while the next
+     * chunk is read.
+     * </p>
+     *
+     * @param inputStream
+     *            the input data
+     * @param outputStream
+     *            the output destination
+     * @param closeStreams
+     *            if {@code true} the streams will be closed otherwise they will stay open
+     * @param listener
+     *            a listener (may be {@code null})
+     * @param algorithms
+     *            the names of the hash algorithms
+     * @return the length of copied data and the hash values
+     * @throws IllegalArgumentException
+     *             if a stream is {@code null} or the algorithms are empty
+     * @throws CodingException
+     *             if an algorithm is not available
+     * @throws IORuntimeException
+     *             if copying fails
+     */
+    public static CopyResult copyAndDigestSilently(final InputStream inputStream, final OutputStream outputStream,
+                                                   final boolean closeStreams, final InputStreamListener listener,
+                                                   final String... algorithms) {
+        Validate.notNull(inputStream, "Input stream must not be null.");
+        Validate.notNull(outputStream, "Output stream must not be null.");
+        Validate.notEmpty(algorithms, "Algorithms must not be empty.");
+        Validate.noNullElements(algorithms, "Algorithms must not contain null.");
+        final IoMetrics ioMetrics = metrics;
+        final long startTime = startTime(ioMetrics);
+        Throwable failure = null;
+        ParallelDigester digester = null;
+        try {
+            final MessageDigest[] mds = new MessageDigest[algorithms.length];
+            for (int i = 0; i < algorithms.length; i++) {
+                mds[i] = CodingUtils.getMessageDigestSilently(algorithms[i]);
+            }
+            digester = new ParallelDigester(mds, SharedExecutors.compute());
+            final byte[][] hashes = digester.digest(inputStream, outputStream, listener);
+            final Map<String, byte[]> digests = new LinkedHashMap<>(algorithms.length);
+            for (int i = 0; i < algorithms.length; i++) {
+                digests.put(algorithms[i], hashes[i]);
+            }
+            return new CopyResult(digester.getLength(), digests);
+
+        } catch (CodingException e) {
+            failure = e;
+            if (digester == null) {
+                // an algorithm is not available
+                throw e;
+            }
+            throw new IORuntimeException(e);
+        } catch (Exception e) {
+            failure = e;
+            throw new IORuntimeException(e);
+        } finally {
+            if (closeStreams) {
+                closeSilently(inputStream);
+                closeSilently(outputStream);
+            }
+            record(ioMetrics, IoMetrics.Operation.COPY, digester == null ? 0L : digester.getLength(), startTime,
+                    failure, closeStreams);
+        }
+    }
+
+    /**
+     * Copies a file and verifies the hash value of the copied data.
+     *
+     * @param source
+     *            the source file
+     * @param target
+     *            the target file, that will be created or replaced
+     * @param atomicRename
+     *            if {@code true} the data is written into a temporary file, that
+     *            is renamed to the target file after verification
+     * @param listener
+     *            a listener (may be {@code null})
+     * @param algorithm
+     *            the name of the hash algorithm
+     * @param expectedDigest
+     *            the expected hash value (may be {@code null}, then the hash value
+     *            is calculated but not verified)
+     * @return the length of copied data and the hash value
+     * @throws IllegalArgumentException
+     *             if the source, the target or the algorithm is {@code null}
+     *             or the target is a root directory
+     * @throws CodingException
+     *             if the algorithm is not available
+     * @throws DigestMismatchException
+     *             if the hash value isn't equal to the expected one
+     * @throws IORuntimeException
+     *             if copying fails
+     * @see #copyVerifiedSilently(InputStream, boolean, Path, boolean, InputStreamListener, String, byte[])
+     */
+    public static CopyResult copyVerifiedSilently(final Path source, final Path target, final boolean atomicRename,
+                                                  final InputStreamListener listener, final String algorithm,
+                                                  final byte[] expectedDigest) {
+        Validate.notNull(source, "Source must not be null.");
+        // validate before the file is opened, so that it cannot leak
+        Validate.notNull(target, "Target must not be null.");
+        Validate.isTrue(target.getFileName() != null, "Target must not be a root directory.");
+        Validate.notBlank(algorithm, "Algorithm must not be blank.");
+        final InputStream inputStream;
+        try {
+            inputStream = Files.newInputStream(source);
+        } catch (IOException e) {
+            throw new IORuntimeException(e);
+        }
+        return copyVerifiedSilently(inputStream, true, target, atomicRename, listener, algorithm, expectedDigest);
+    }
+
+    /**
+     * Copies data into a file and verifies the hash value of the copied data.
+     * <p>
+     * The hash value is calculated while copying (see
+     * {@link #copyAndDigestSilently(InputStream, OutputStream, boolean, InputStreamListener, String...)}).
+     * If it isn't equal to the expected hash value, the written file is deleted
+     * and a {@link DigestMismatchException} is thrown.
+     * </p>
+     * <p>
+     * With atomic rename the data is written into a temporary file in the
+     * directory of the target file. Only after the data is verified and forced
+     * to the storage device, the temporary file is moved to the target file
+     * with {@link StandardCopyOption#ATOMIC_MOVE}. So the target file is never
+     * visible with partial or unverified data and an existing target file stays
+     * untouched, if copying fails. If the file system doesn't support atomic
+     * moves, the file is moved without that guarantee. The temporary file is
+     * created with the default permissions of new files; if the target file
+     * exists, it gets the POSIX file permissions of the target file (if the
+     * file system supports them).
+     * </p>
+     * <p>
+     * Without atomic rename the data is written directly into the target file.
+     * If copying or verification fails, a target file, that was created by this
+     * method, is deleted. An existing target file is not deleted, it is left
+     * with partial or unverified data.
+     * </p>
+     *
+     * @param inputStream
+     *            the input data
+     * @param closeInputStream
+     *            if {@code true} the input stream will be closed otherwise it will stay open
+     * @param target
+     *            the target file, that will be created or replaced
+     * @param atomicRename
+     *            if {@code true} the data is written into a temporary file, that
+     *            is renamed to the target file after verification
+     * @param listener
+     *            a listener (may be {@code null})
+     * @param algorithm
+     *            the name of the hash algorithm
+     * @param expectedDigest
+     *            the expected hash value (may be {@code null}, then the hash value
+     *            is calculated but not verified)
+     * @return the length of copied data and the hash value
+     * @throws IllegalArgumentException
+     *             if the input stream, the target or the algorithm is {@code null}
+     *             or the target is a root directory
+     * @throws CodingException
+     *             if the algorithm is not available
+     * @throws DigestMismatchException
+     *             if the hash value isn't equal to the expected one
+     * @throws IORuntimeException
+     *             if copying fails
+     */
+    public static CopyResult copyVerifiedSilently(final InputStream inputStream, final boolean closeInputStream,
+                                                  final Path target, final boolean atomicRename,
+                                                  final InputStreamListener listener, final String algorithm,
+                                                  final byte[] expectedDigest) {
+        Validate.notNull(inputStream, "Input stream must not be null.");
+        Validate.notNull(target, "Target must not be null.");
+        Validate.isTrue(target.getFileName() != null, "Target must not be a root directory.");
+        Validate.notBlank(algorithm, "Algorithm must not be blank.");
+        Path file = null;
+        FileChannel channel = null;
+        boolean committed = false;
+        try {
+            if (atomicRename) {
+                final Path dir = target.toAbsolutePath().getParent();
+                while (channel == null) {
+                    file = dir.resolve("." + target.getFileName() + "." + ThreadLocalRandom.current().nextLong()
+                            + ".tmp");
+                    try {
+                        // not Files.createTempFile, it would create the file only readable by the owner
+                        channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW);
+                    } catch (FileAlreadyExistsException e) { // NOSONAR
+                        file = null;
+                    }
+                }
+                copyPermissionsSilently(target, file);
+            } else {
+                if (!Files.exists(target)) {
+                    // only a new target file will be deleted, if copying fails
+                    file = target;
+                }
+                channel = FileChannel.open(target, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING);
+            }
+            final CopyResult result = copyAndDigestSilently(inputStream, Channels.newOutputStream(channel),
+                    false, listener, algorithm);
+            if (expectedDigest != null && !result.matches(algorithm, expectedDigest)) {
+                throw new DigestMismatchException(algorithm, expectedDigest, result.getDigests().get(algorithm));
+            }
+            if (atomicRename) {
+                channel.force(true);
+                channel.close();
+                try {
+                    Files.move(file, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) { // NOSONAR
+                    Files.move(file, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } else {
+                channel.close();
+            }
+            committed = true;
+            return result;
+
+        } catch (IOException e) {
+            throw new IORuntimeException(e);
+        } finally {
+            closeSilently(channel);
+            if (!committed && file != null) {
+                deleteSilently(file);
+            }
+            if (closeInputStream) {
+                closeSilently(inputStream);
+            }
+        }
+    }
+
+    /**
+     * Sets the POSIX file permissions of the source file (if it exists) on the
+     * target file.
+     */
+    private static void copyPermissionsSilently(final Path source, final Path target) {
+        try {
+            final PosixFileAttributeView view = Files.getFileAttributeView(source, PosixFileAttributeView.class);
+            if (view != null && Files.exists(source)) {
+                Files.setPosixFilePermissions(target, view.readAttributes().permissions());
+            }
+        } catch (IOException | UnsupportedOperationException ignored) { // NOSONAR
+            // the target keeps the default permissions
+        }
+    }
+
+    private static void deleteSilently(final Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) { // NOSONAR
+            // ignored
+        }
+    }
+
+    /**
+     * Returns the number of bytes or chars, that may be read at once.
+     */
+    private static int chunkSize(final int bufferSize, final RateLimiter rateLimiter) {
+        return rateLimiter == null ? bufferSize : (int) Math.min(bufferSize, rateLimiter.getMaxPermits());
+    }
+
+    private static boolean isTransferListener(final InputStreamListener listener) {
+        return listener == null || listener instanceof TransferListener;
+    }
+
+    /**
+     * Transfers the source file from it's current position to the end into the
+     * target channel. The position of the source file will be updated.
+     */
+    private static long transferTo(final FileChannel source, final WritableByteChannel target,
+                                   final TransferListener listener) throws IOException {
+        final long start = source.position();
+        final long size = source.size();
+        long position = start;
+        while (position < size) {
+            final long len = source.transferTo(position, Math.min(MAX_TRANSFER_SIZE, size - position), target);
+            if (len <= 0L) {
+                break;
+            }
+            position = position + len;
+            if (listener != null) {
+                listener.onTransferredBytes(len);
+            }
+        }
+        source.position(position);
+        return position - start;
+    }
+
+    /**
+     * Transfers the source channel until it's end into the target file at it's
+     * current position. The position of the target file will be updated.
+     */
+    private static long transferFrom(final ReadableByteChannel source, final FileChannel target,
+                                     final TransferListener listener) throws IOException {
+        final long start = target.position();
+        long position = start;
+        long len;
+        while ((len = target.transferFrom(source, position, MAX_TRANSFER_SIZE)) > 0L) {
+            position = position + len;
+            if (listener != null) {
+                listener.onTransferredBytes(len);
+            }
+        }
+        target.position(position);
+        return position - start;
+    }
+
+    /**
+     * Copies a file asynchronously. The target file will be created or
+     * overwritten.
+     *
+     * @param source
+     *            the source file
+     * @param target
+     *            the target file
+     * @param listener
+     *            a listener (may be {@code null}), that is called by the threads
+     *            of the asynchronous channel group
+     * @return the future of the copy operation with the length of copied data,
+     *         the copy operation can be cancelled with this future
+     * @throws IORuntimeException
+     *             if the files cannot be opened
+     */
+    public static Future<Long> copyAsync(final Path source, final Path target, final InputStreamListener listener) {
+        return copyAsync(source, target, listener, null, null);
+    }
+
+    /**
+     * Copies a file asynchronously. The target file will be created or
+     * overwritten.
+     * <p>
+     * The data is read and written with {@link AsynchronousFileChannel}s, so no
+     * thread is blocked while waiting for IO. When the copy operation is
+     * completed, failed (the exception is an {@link IORuntimeException}) or
+     * cancelled (the exception is a {@link CancellationException}), the
+     * completion handler is called. The handler may be called after the
+     * waiting threads of the returned future were released.
+     * </p>
+     *
+     * @param source
+     *            the source file
+     * @param target
+     *            the target file
+     * @param listener
+     *            a listener (may be {@code null}), that is called by the threads
+     *            of the asynchronous channel group
+     * @param attachment
+     *            the object to attach to the copy operation (may be {@code null})
+     * @param handler
+     *            the completion handler (may be {@code null})
+     * @param <A>
+     *            the type of the attachment
+     * @return the future of the copy operation with the length of copied data,
+     *         the copy operation can be cancelled with this future
+     * @throws IORuntimeException
+     *             if the files cannot be opened
+     */
+    public static <A> Future<Long> copyAsync(final Path source, final Path target,
+                                             final InputStreamListener listener, final A attachment,
+                                             final CompletionHandler<Long, ? super A> handler) {
+        Validate.notNull(source, "Source must not be null.");
+        Validate.notNull(target, "Target must not be null.");
+        AsynchronousFileChannel sourceChannel = null;
+        try {
+            sourceChannel = AsynchronousFileChannel.open(source, StandardOpenOption.READ);
+            final AsynchronousFileChannel targetChannel = AsynchronousFileChannel.open(target,
+                    StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+            final AsyncFileCopy<A> copy = new AsyncFileCopy<>(sourceChannel, targetChannel, listener,
+                    attachment, handler);
+            copy.start();
+            return copy;
+
+        } catch (IOException e) {
+            closeSilently(sourceChannel);
+            throw new IORuntimeException(e);
+        }
+    }
+
+    /**
+     * Copies data asynchronously with the specified executor. This is useful
+     * for streams, that are not backed by a file.
+     * <p>
+     * When the copy operation is completed, failed (the exception is an
+     * {@link IORuntimeException}) or cancelled (the exception is a
+     * {@link CancellationException}), the completion handler is called. If the
+     * copy operation is cancelled with interruption, the copying thread will be
+     * interrupted, but not every stream stops blocking on interruption.
+     * </p>
+     *
+     * @param inputStream
+     *            the input data
+     * @param outputStream
+     *            the output destination
+     * @param closeStreams
+     *            if {@code true} the streams will be closed otherwise they will stay open
+     * @param listener
+     *            a listener (may be {@code null}), that is called by the copying thread
+     * @param executor
+     *            the executor (may be {@code null}, then a shared executor with
+     *            daemon threads is used)
+     * @param attachment
+     *            the object to attach to the copy operation (may be {@code null})
+     * @param handler
+     *            the completion handler (may be {@code null})
+     * @param <A>
+     *            the type of the attachment
+     * @return the future of the copy operation with the length of copied data
+     */
+    public static <A> Future<Long> copyAsync(final InputStream inputStream, final OutputStream outputStream,
+                                             final boolean closeStreams, final InputStreamListener listener,
+                                             final Executor executor, final A attachment,
+                                             final CompletionHandler<Long, ? super A> handler) {
+        Validate.notNull(inputStream, "Input stream must not be null.");
+        Validate.notNull(outputStream, "Output stream must not be null.");
+        final FutureTask<Long> task = new FutureTask<Long>(new Callable<Long>() {
+            @Override
+            public Long call() throws Exception {
+                return copySilently(inputStream, outputStream, closeStreams, listener);
+            }
+        }) {
+            @Override
+            protected void done() {
+                if (handler == null) {
+                    return;
+                }
+                if (isCancelled()) {
+                    handler.failed(new CancellationException(), attachment);
+                    return;
+                }
+                try {
+                    handler.completed(get(), attachment);
+                } catch (ExecutionException e) {
+                    handler.failed(e.getCause(), attachment);
+                } catch (InterruptedException e) { // NOSONAR
+                    // cannot happen, because the task is done
+                    handler.failed(e, attachment);
+                }
+            }
+        };
+        (executor == null ? SharedExecutors.io() : executor).execute(task);
+        return task;
+    }
+
     /**
      * Copies characters.
      * 
@@ -133,27 +1223,72 @@ public abstract class IoUtils {
      */
     public static long copySilently(final Reader reader, final Writer writer, final boolean closeReaderAndWriter,
                                     final ReaderListener listener) {
+        return copySilently(reader, writer, closeReaderAndWriter, listener, null);
+    }
 
+    /**
+     * Copies characters with a limited rate.
+     * <p>
+     * Before a chunk of characters is written, the permits for it's characters
+     * are taken from the rate limiter. The listener is called after every chunk,
+     * so it can report the current rate of the rate limiter
+     * ({@link RateLimiter#getCurrentRate()}).
+     * </p>
+     *
+     * @param reader
+     *            the reader
+     * @param writer
+     *            the writer
+     * @param closeReaderAndWriter
+     *            if {@code true} the reader and writer will be closed otherwise they will stay open
+     * @param listener
+     *            a listener (may be {@code null})
+     * @param rateLimiter
+     *            the rate limiter in characters per second (may be {@code null},
+     *            then the rate is not limited)
+     * @return the size of the characters
+     * @throws IORuntimeException
+     *             if copying fails or the current thread is interrupted
+     */
+    public static long copySilently(final Reader reader, final Writer writer, final boolean closeReaderAndWriter,
+                                    final ReaderListener listener, final RateLimiter rateLimiter) {
+
+        final BufferPool bufferPool = BufferPool.getDefault();
+        final IoMetrics ioMetrics = metrics;
+        final long startTime = startTime(ioMetrics);
+        Throwable failure = null;
         long totalLen = 0L;
         int len;
-        char[] buf = new char[4096];
+        char[] buf = bufferPool.acquireChars(0L);
         try {
-            while ((len = reader.read(buf)) != -1) {
+            while ((len = reader.read(buf, 0, chunkSize(buf.length, rateLimiter))) != -1) {
+                if (rateLimiter != null) {
+                    rateLimiter.acquire(len);
+                }
                 writer.write(buf, 0, len);
                 totalLen = totalLen + len;
                 if (listener != null) {
                     listener.onReadChars(buf, 0, len);
                 }
+                buf = bufferPool.growChars(buf, totalLen);
             }
+            ListenerUtils.flush(listener);
             writer.flush();
 
+        } catch (InterruptedException e) {
+            failure = e;
+            Thread.currentThread().interrupt();
+            throw new IORuntimeException(e);
         } catch (Exception e) {
+            failure = e;
             throw new IORuntimeException(e);
         } finally {
+            bufferPool.releaseChars(buf);
 			if (closeReaderAndWriter) {
 			    closeSilently(reader);
 			    closeSilently(writer);
 			}
+            record(ioMetrics, IoMetrics.Operation.COPY, totalLen, startTime, failure, closeReaderAndWriter);
 		}
         return totalLen;
     }
@@ -202,4 +1337,15 @@ public abstract class IoUtils {
         }
     }
 
+    @SuppressWarnings("WeakerAccess")
+    public static void closeSilently(final Channel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) { // NOSONAR
+                // ignored
+            }
+        }
+    }
+
 }
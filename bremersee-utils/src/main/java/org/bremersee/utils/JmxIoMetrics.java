@@ -0,0 +1,171 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.bremersee.utils;
+
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * <p>
+ * The default implementation of the metrics. The statistics of every
+ * operation are exposed as MBean with the object name
+ * {@code org.bremersee.utils:type=IoMetrics,operation=<operation>}, for
+ * example {@code org.bremersee.utils:type=IoMetrics,operation=copy}.
+ * </p>
+ *
+ * @author Christian Bremer
+ */
+public class JmxIoMetrics implements IoMetrics {
+
+    /**
+     * The domain of the object names.
+     */
+    public static final String DOMAIN = "org.bremersee.utils";
+
+    /**
+     * The metrics, whose MBeans are registered, by MBean server. It is the lock
+     * of the registrations, too.
+     */
+    private static final Map<MBeanServer, JmxIoMetrics> REGISTERED = new WeakHashMap<>();
+
+    private final Map<Operation, IoOperationStats> stats = new EnumMap<>(Operation.class);
+
+    private MBeanServer mBeanServer; // guarded by REGISTERED
+
+    /**
+     * Creates the metrics. The MBeans are not registered.
+     */
+    public JmxIoMetrics() {
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new IoOperationStats());
+        }
+    }
+
+    /**
+     * Returns the object name of the statistics of the given operation.
+     *
+     * @param operation the operation
+     * @return the object name
+     */
+    public static ObjectName getObjectName(final Operation operation) {
+        try {
+            return new ObjectName(DOMAIN + ":type=IoMetrics,operation=" + operation.name().toLowerCase());
+        } catch (JMException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Returns the statistics of the given operation.
+     *
+     * @param operation the operation
+     * @return the statistics
+     */
+    public IoOperationStats getStats(final Operation operation) {
+        return stats.get(operation);
+    }
+
+    /**
+     * Registers the MBeans at the platform MBean server. MBeans, that are
+     * registered with the same names, are replaced.
+     *
+     * @return this metrics
+     * @throws IllegalStateException if the registration fails
+     */
+    public JmxIoMetrics register() {
+        return register(ManagementFactory.getPlatformMBeanServer());
+    }
+
+    /**
+     * Registers the MBeans at the given MBean server. MBeans, that are
+     * registered with the same names, are replaced. Metrics, whose MBeans are
+     * replaced, are no longer registered, so unregistering them doesn't remove
+     * the MBeans of this metrics.
+     *
+     * @param server the MBean server
+     * @return this metrics
+     * @throws IllegalStateException if the registration fails
+     */
+    public JmxIoMetrics register(final MBeanServer server) {
+        synchronized (REGISTERED) {
+            unregister();
+            final JmxIoMetrics replaced = REGISTERED.remove(server);
+            if (replaced != null) {
+                replaced.mBeanServer = null;
+            }
+            try {
+                for (Map.Entry<Operation, IoOperationStats> entry : stats.entrySet()) {
+                    final ObjectName name = getObjectName(entry.getKey());
+                    if (server.isRegistered(name)) {
+                        server.unregisterMBean(name);
+                    }
+                    server.registerMBean(entry.getValue(), name);
+                }
+            } catch (JMException e) {
+                throw new IllegalStateException("Registering MBeans failed.", e);
+            }
+            mBeanServer = server;
+            REGISTERED.put(server, this);
+            return this;
+        }
+    }
+
+    /**
+     * Unregisters the MBeans, if they are registered and have not been
+     * replaced by the MBeans of other metrics.
+     */
+    public void unregister() {
+        synchronized (REGISTERED) {
+            if (mBeanServer == null) {
+                return;
+            }
+            for (Operation operation : stats.keySet()) {
+                try {
+                    mBeanServer.unregisterMBean(getObjectName(operation));
+                } catch (JMException ignored) { // NOSONAR
+                    // already unregistered
+                }
+            }
+            REGISTERED.remove(mBeanServer);
+            mBeanServer = null;
+        }
+    }
+
+    @Override
+    public void onCompleted(final Operation operation, final long bytes, final long elapsedNanos) {
+        stats.get(operation).completed(bytes, elapsedNanos);
+    }
+
+    @Override
+    public void onFailed(final Operation operation, final long bytes, final long elapsedNanos,
+                         final Throwable cause) {
+        stats.get(operation).failed(bytes, elapsedNanos);
+    }
+
+    @Override
+    public void onClosed(final Operation operation) {
+        stats.get(operation).closed();
+    }
+
+}
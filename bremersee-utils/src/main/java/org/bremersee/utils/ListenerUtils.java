@@ -0,0 +1,234 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.bremersee.utils;
+
+import org.apache.commons.lang3.Validate;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.concurrent.Executor;
+
+/**
+ * <p>
+ * Listener utilities.
+ * </p>
+ * <p>
+ * The listeners of the copy and digest operations are called in the reading
+ * thread for every chunk. Slow listeners can be decoupled with a pipeline:
+ * </p>
+ * <pre>
+ * InputStreamListener listener = ListenerUtils.batch(
+ *     ListenerUtils.async(ListenerUtils.fanOut(progressListener, auditListener), 16, true),
+ *     256 * 1024, 500L);
+ * IoUtils.copySilently(in, out, true, listener);
+ * </pre>
+ * <p>
+ * Listeners, that implement {@link Flushable}, are flushed by the operations
+ * of this library, when the end of the data is reached.
+ * </p>
+ *
+ * @author Christian Bremer
+ */
+public abstract class ListenerUtils {
+
+    /**
+     * Never construct.
+     */
+    private ListenerUtils() {
+        super();
+    }
+
+    /**
+     * Creates a listener, that calls all the given listeners in the given order.
+     * The returned listener is {@link Flushable} and flushes all flushable listeners.
+     *
+     * @param listeners the listeners
+     * @return the fan-out listener
+     */
+    public static InputStreamListener fanOut(final InputStreamListener... listeners) {
+        Validate.noNullElements(listeners, "Listeners must not be null.");
+        return new InputStreamFanOut(listeners.clone());
+    }
+
+    /**
+     * Creates a listener, that calls all the given listeners in the given order.
+     * The returned listener is {@link Flushable} and flushes all flushable listeners.
+     *
+     * @param listeners the listeners
+     * @return the fan-out listener
+     */
+    public static ReaderListener fanOut(final ReaderListener... listeners) {
+        Validate.noNullElements(listeners, "Listeners must not be null.");
+        return new ReaderFanOut(listeners.clone());
+    }
+
+    /**
+     * Creates a listener, that delivers the data in batches.
+     *
+     * @param target         the listener, that gets the batches
+     * @param batchSize      the number of bytes of a batch
+     * @param maxDelayMillis the maximum time in milliseconds between two deliveries
+     *                       ({@code 0} or less disables time based delivery)
+     * @return the batching listener
+     * @see BatchingInputStreamListener
+     */
+    public static BatchingInputStreamListener batch(final InputStreamListener target, final int batchSize,
+                                                    final long maxDelayMillis) {
+        return new BatchingInputStreamListener(target, batchSize, maxDelayMillis);
+    }
+
+    /**
+     * Creates a listener, that delivers the data in batches.
+     *
+     * @param target         the listener, that gets the batches
+     * @param batchSize      the number of chars of a batch
+     * @param maxDelayMillis the maximum time in milliseconds between two deliveries
+     *                       ({@code 0} or less disables time based delivery)
+     * @return the batching listener
+     * @see BatchingReaderListener
+     */
+    public static BatchingReaderListener batch(final ReaderListener target, final int batchSize,
+                                               final long maxDelayMillis) {
+        return new BatchingReaderListener(target, batchSize, maxDelayMillis);
+    }
+
+    /**
+     * Creates a listener, that delivers the data in a thread of the shared IO
+     * executor of this library.
+     *
+     * @param target          the listener, that gets the data
+     * @param queueCapacity   the maximum number of queued chunks
+     * @param discardWhenFull if {@code true} chunks are discarded, when the queue is full,
+     *                        otherwise the reading thread waits
+     * @return the asynchronous listener
+     * @see AsyncInputStreamListener
+     */
+    public static AsyncInputStreamListener async(final InputStreamListener target, final int queueCapacity,
+                                                 final boolean discardWhenFull) {
+        return new AsyncInputStreamListener(target, queueCapacity, discardWhenFull);
+    }
+
+    /**
+     * Creates a listener, that delivers the data with the given executor.
+     *
+     * @param target          the listener, that gets the data
+     * @param executor        the executor of the delivery
+     * @param queueCapacity   the maximum number of queued chunks
+     * @param discardWhenFull if {@code true} chunks are discarded, when the queue is full,
+     *                        otherwise the reading thread waits
+     * @return the asynchronous listener
+     * @see AsyncInputStreamListener
+     */
+    public static AsyncInputStreamListener async(final InputStreamListener target, final Executor executor,
+                                                 final int queueCapacity, final boolean discardWhenFull) {
+        return new AsyncInputStreamListener(target, executor, queueCapacity, discardWhenFull);
+    }
+
+    /**
+     * Creates a listener, that delivers the data in a thread of the shared IO
+     * executor of this library.
+     *
+     * @param target          the listener, that gets the data
+     * @param queueCapacity   the maximum number of queued chunks
+     * @param discardWhenFull if {@code true} chunks are discarded, when the queue is full,
+     *                        otherwise the reading thread waits
+     * @return the asynchronous listener
+     * @see AsyncReaderListener
+     */
+    public static AsyncReaderListener async(final ReaderListener target, final int queueCapacity,
+                                            final boolean discardWhenFull) {
+        return new AsyncReaderListener(target, queueCapacity, discardWhenFull);
+    }
+
+    /**
+     * Creates a listener, that delivers the data with the given executor.
+     *
+     * @param target          the listener, that gets the data
+     * @param executor        the executor of the delivery
+     * @param queueCapacity   the maximum number of queued chunks
+     * @param discardWhenFull if {@code true} chunks are discarded, when the queue is full,
+     *                        otherwise the reading thread waits
+     * @return the asynchronous listener
+     * @see AsyncReaderListener
+     */
+    public static AsyncReaderListener async(final ReaderListener target, final Executor executor,
+                                            final int queueCapacity, final boolean discardWhenFull) {
+        return new AsyncReaderListener(target, executor, queueCapacity, discardWhenFull);
+    }
+
+    /**
+     * Flushes the listener, if it is {@link Flushable}.
+     *
+     * @param listener the listener (may be {@code null})
+     * @throws IOException if flushing fails
+     */
+    static void flush(final Object listener) throws IOException {
+        if (listener instanceof Flushable) {
+            ((Flushable) listener).flush();
+        }
+    }
+
+    private static void flushAll(final Object[] listeners) throws IOException {
+        for (Object listener : listeners) {
+            flush(listener);
+        }
+    }
+
+    private static class InputStreamFanOut implements InputStreamListener, Flushable {
+
+        private final InputStreamListener[] listeners;
+
+        InputStreamFanOut(final InputStreamListener[] listeners) {
+            this.listeners = listeners;
+        }
+
+        @Override
+        public void onReadBytes(final byte[] buffer, final int offset, final int len) {
+            for (InputStreamListener listener : listeners) {
+                listener.onReadBytes(buffer, offset, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            flushAll(listeners);
+        }
+    }
+
+    private static class ReaderFanOut implements ReaderListener, Flushable {
+
+        private final ReaderListener[] listeners;
+
+        ReaderFanOut(final ReaderListener[] listeners) {
+            this.listeners = listeners;
+        }
+
+        @Override
+        public void onReadChars(final char[] buffer, final int offset, final int len) {
+            for (ReaderListener listener : listeners) {
+                listener.onReadChars(buffer, offset, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            flushAll(listeners);
+        }
+    }
+
+}
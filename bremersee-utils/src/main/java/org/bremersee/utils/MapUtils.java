@@ -22,6 +22,7 @@ import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * <p>
@@ -32,6 +33,12 @@ import java.util.Map.Entry;
  */
 public abstract class MapUtils {
 
+    /**
+     * The number of entries, above which
+     * {@link #sort(Map, Comparator, ForkJoinPool)} sorts with several threads.
+     */
+    public static final int PARALLEL_SORT_THRESHOLD = 100000;
+
     /**
      * Never construct.
      */
@@ -41,13 +48,21 @@ public abstract class MapUtils {
 
     /**
      * <p>
-     * A map entry comparator.
+     * A map entry comparator, that compares the values and breaks ties by the
+     * keys.
+     * </p>
+     * <p>
+     * {@code null} values are sorted last. Values and keys of different
+     * classes are ordered by their class names. If the values are equal, the
+     * keys are compared. If the keys are equal, too (or are of a class, that
+     * is not comparable), the entries are equal, so a stable sort keeps them
+     * in the iteration order of the map.
      * </p>
      *
      * @author Christian Bremer
      */
     @SuppressWarnings({"rawtypes", "unchecked"})
-    private static class MapEntryComparator implements Comparator<Map.Entry<?, ?>> {
+    static class MapEntryComparator implements Comparator<Map.Entry<?, ?>> {
 
         private final Comparator valueComparator;
 
@@ -70,21 +85,75 @@ public abstract class MapUtils {
          */
         @Override
         public int compare(final Entry<?, ?> e1, final Entry<?, ?> e2) {
-            int c = 0;
-            if (e1 != null && e1.getValue() != null && e2 != null && e2.getValue() != null) {
-
-                final Object value1 = e1.getValue();
-                final Object value2 = e2.getValue();
-                if (valueComparator != null) {
-                    c = valueComparator.compare(value1, value2);
-                } else if (value1 instanceof Comparable && value2 instanceof Comparable) {
-                    c = ((Comparable) value1).compareTo(value2);
+            if (e1 == e2) {
+                return 0;
+            }
+            if (e1 == null || e2 == null) {
+                return e1 == null ? 1 : -1;
+            }
+            final int c = compareValues(e1.getValue(), e2.getValue());
+            return c != 0 ? c : compareKeys(e1.getKey(), e2.getKey());
+        }
+
+        /**
+         * Compares two values, {@code null} is greater than any other value.
+         * Without a value comparator the values are compared like keys.
+         *
+         * @param value1 the first value (may be {@code null})
+         * @param value2 the second value (may be {@code null})
+         * @return the result of the comparison
+         * @see #compareKeys(Object, Object)
+         */
+        int compareValues(final Object value1, final Object value2) {
+            if (value1 == null || value2 == null) {
+                return value1 == null ? (value2 == null ? 0 : 1) : -1;
+            }
+            if (valueComparator != null) {
+                return valueComparator.compare(value1, value2);
+            }
+            return compareKeys(value1, value2);
+        }
+
+        /**
+         * Compares two keys, {@code null} is greater than any other key.
+         * <p>
+         * Keys of different classes are ordered by the names of their classes
+         * (and by the identity of the classes, if the names are equal). Keys of
+         * the same comparable class are compared by their natural sort order,
+         * keys of the same class, that is not comparable, are equal. This is a
+         * total preorder, so it can be used by any sort algorithm; callers, that
+         * need a strict order, break the remaining ties by the position of the
+         * entries.
+         * </p>
+         *
+         * @param key1 the first key (may be {@code null})
+         * @param key2 the second key (may be {@code null})
+         * @return the result of the comparison
+         */
+        static int compareKeys(final Object key1, final Object key2) {
+            if (key1 == null || key2 == null) {
+                return key1 == null ? (key2 == null ? 0 : 1) : -1;
+            }
+            final Class<?> class1 = comparisonClass(key1);
+            final Class<?> class2 = comparisonClass(key2);
+            if (class1 != class2) {
+                final int c = class1.getName().compareTo(class2.getName());
+                if (c != 0) {
+                    return c;
                 }
+                final int h1 = System.identityHashCode(class1);
+                final int h2 = System.identityHashCode(class2);
+                return h1 < h2 ? -1 : (h1 == h2 ? 0 : 1);
             }
-            if (c == 0) {
-                c = -1;
+            if (key1 instanceof Comparable) {
+                return ((Comparable) key1).compareTo(key2);
             }
-            return c;
+            return 0;
+        }
+
+        private static Class<?> comparisonClass(final Object o) {
+            // constants of an enum with bodies are instances of subclasses
+            return o instanceof Enum ? ((Enum<?>) o).getDeclaringClass() : o.getClass();
         }
 
     }
@@ -104,6 +173,14 @@ public abstract class MapUtils {
 
     /**
      * Sort the map by it's values and return an unmodifiable map.
+     * <p>
+     * Entries with equal values are sorted by their keys, if the keys are
+     * comparable, otherwise they keep the iteration order of the map. Values
+     * and keys of different classes are ordered by their class names.
+     * {@code null} values are sorted last. If the map is updated often and
+     * read in sorted order, a {@link ValueSortedMap} avoids sorting it again
+     * on every read.
+     * </p>
      *
      * @param map             the map
      * @param valueComparator a value comparator
@@ -116,13 +193,141 @@ public abstract class MapUtils {
                                         final Comparator<? extends V> valueComparator) {
 
         Validate.notNull(map, "Map must not be null.");
-        final List<Entry<?, ?>> entries = new ArrayList<Entry<?, ?>>(map.entrySet()); // NOSONAR
-        Collections.sort(entries, new MapEntryComparator(valueComparator));
-        final Map<Object, Object> sortedMap = new LinkedHashMap<>(entries.size());
+        final Entry<?, ?>[] entries = map.entrySet().toArray(new Entry<?, ?>[map.size()]);
+        Arrays.sort(entries, new MapEntryComparator(valueComparator));
+        return (Map<K, V>) toUnmodifiableMap(entries);
+    }
+
+    /**
+     * Sort the map by it's values with several threads and return an
+     * unmodifiable map.
+     * <p>
+     * Maps with more than {@link #PARALLEL_SORT_THRESHOLD} entries are sorted
+     * with a parallel merge sort in the fork join pool, smaller maps are sorted
+     * by the current thread. The merge sort is stable, so the result is always
+     * the same as the one of {@link #sort(Map, Comparator)}.
+     * </p>
+     *
+     * @param map             the map
+     * @param valueComparator a value comparator (may be {@code null}, then the natural sort
+     *                        order of the values is used)
+     * @param pool            the fork join pool (may be {@code null}, then a shared pool is used)
+     * @param <K>             type of the key
+     * @param <V>             type of the value
+     * @return the sorted map
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> Map<K, V> sort(final Map<? extends K, ? extends V> map,
+                                        final Comparator<? extends V> valueComparator,
+                                        final ForkJoinPool pool) {
+
+        Validate.notNull(map, "Map must not be null.");
+        if (map.size() <= PARALLEL_SORT_THRESHOLD) {
+            return sort(map, valueComparator);
+        }
+        final Entry<?, ?>[] entries = map.entrySet().toArray(new Entry<?, ?>[map.size()]);
+        ParallelMergeSort.sort(entries, new MapEntryComparator(valueComparator),
+                pool == null ? SharedExecutors.compute() : pool);
+        return (Map<K, V>) toUnmodifiableMap(entries);
+    }
+
+    private static Map<Object, Object> toUnmodifiableMap(final Entry<?, ?>[] entries) {
+        final Map<Object, Object> sortedMap = new LinkedHashMap<>(Math.max(16, (int) (entries.length / .75f) + 1));
         for (final Entry<?, ?> entry : entries) {
             sortedMap.put(entry.getKey(), entry.getValue());
         }
-        return (Map<K, V>) Collections.unmodifiableMap(sortedMap);
+        return Collections.unmodifiableMap(sortedMap);
+    }
+
+    /**
+     * Returns the first {@code k} entries of the map in the natural sort order
+     * of the values as unmodifiable map.
+     *
+     * @param map the map
+     * @param k   the maximum number of entries
+     * @param <K> type of the key
+     * @param <V> type of the value
+     * @return the first entries in sorted order
+     * @see #topK(Map, int, Comparator)
+     */
+    public static <K, V> Map<K, V> topK(final Map<? extends K, ? extends V> map, final int k) {
+        return topK(map, k, null);
+    }
+
+    /**
+     * Returns the first {@code k} entries of the map in the order of the
+     * values as unmodifiable map. The result is equal to the first {@code k}
+     * entries of {@link #sort(Map, Comparator)}, so the entries with the
+     * highest values are returned with a reverse comparator, e. g.
+     * {@link Collections#reverseOrder()}.
+     * <p>
+     * The map is not sorted, instead the entries are selected with a bounded
+     * heap in {@code O(n log k)} time and {@code O(k)} memory.
+     * </p>
+     *
+     * @param map             the map
+     * @param k               the maximum number of entries
+     * @param valueComparator a value comparator (may be {@code null}, then the natural sort
+     *                        order of the values is used)
+     * @param <K>             type of the key
+     * @param <V>             type of the value
+     * @return the first entries in sorted order
+     * @throws IllegalArgumentException if the map is {@code null} or {@code k} is negative
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> Map<K, V> topK(final Map<? extends K, ? extends V> map, final int k,
+                                        final Comparator<? extends V> valueComparator) {
+        Validate.notNull(map, "Map must not be null.");
+        Validate.isTrue(k >= 0, "k must not be negative.");
+        return (Map<K, V>) Collections.unmodifiableMap(TopEntries.select(map, k, valueComparator));
+    }
+
+    /**
+     * Returns the first {@code k} entries of the map in the order of the
+     * values as unmodifiable map, selected by several threads.
+     * <p>
+     * The entries are split into chunks, whose first entries are selected in
+     * parallel with bounded heaps, that are merged afterwards. The result is
+     * the same as the one of {@link #topK(Map, int, Comparator)}. For the
+     * chunks the entries are copied into an array, so this is only faster for
+     * large maps with hundreds of thousands of entries, smaller maps are
+     * processed by the current thread.
+     * </p>
+     *
+     * @param map             the map
+     * @param k               the maximum number of entries
+     * @param valueComparator a value comparator (may be {@code null}, then the natural sort
+     *                        order of the values is used)
+     * @param pool            the fork join pool (may be {@code null}, then a shared pool is used)
+     * @param <K>             type of the key
+     * @param <V>             type of the value
+     * @return the first entries in sorted order
+     * @throws IllegalArgumentException if the map is {@code null} or {@code k} is negative
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> Map<K, V> topK(final Map<? extends K, ? extends V> map, final int k,
+                                        final Comparator<? extends V> valueComparator,
+                                        final ForkJoinPool pool) {
+        Validate.notNull(map, "Map must not be null.");
+        Validate.isTrue(k >= 0, "k must not be negative.");
+        if (map.size() <= 2 * TopEntries.SEQUENTIAL_THRESHOLD) {
+            return topK(map, k, valueComparator);
+        }
+        final ForkJoinPool forkJoinPool = pool == null ? SharedExecutors.compute() : pool;
+        return (Map<K, V>) Collections.unmodifiableMap(
+                TopEntries.select(map, k, valueComparator, forkJoinPool));
+    }
+
+    /**
+     * Returns a typed view of the map, that converts the value of a key only
+     * once and caches the result until the value is replaced.
+     *
+     * @param map the map
+     * @return the typed view
+     * @throws IllegalArgumentException if the map is {@code null}
+     */
+    public static TypedMapView typedView(final Map<?, ?> map) {
+        return new TypedMapView(map);
     }
 
     /**
@@ -147,11 +352,19 @@ public abstract class MapUtils {
      * Get a value as collection. If no value exists with the specified key, an
      * empty collection will be returned.
      *
+     * <p>
+     * A primitive array (like {@code int[]}) is returned as read-only list
+     * view, that is backed by the array, so it's elements are not copied, but
+     * boxed, when they are read. Adding to or changing this list throws an
+     * {@link UnsupportedOperationException}. Up to version 1.0.5 a primitive
+     * array was copied into a modifiable list. An object array or a single
+     * value is returned as new modifiable list.
+     * </p>
+     *
      * @param map the map
      * @param key the key
      * @return a collection
      */
-    @SuppressWarnings("ManualArrayToCollectionCopy")
     public static Collection<?> getValueAsCollection(Map<?, ?> map, Object key) { // NOSONAR
         Validate.notNull(map, "Map must not be null.");
         Validate.notNull(map, "Key must not be null.");
@@ -162,67 +375,11 @@ public abstract class MapUtils {
         if (value instanceof Collection) {
             return (Collection<?>) value;
         }
+        if (value instanceof Object[]) {
+            return new ArrayList<>(Arrays.asList((Object[]) value));
+        }
         if (value.getClass().isArray()) {
-            if (value instanceof boolean[]) {
-                final boolean[] values = (boolean[]) value;
-                final List<Object> list = new ArrayList<>(values.length);
-                for (final boolean v : values) {
-                    list.add(v);
-                }
-                return list;
-            } else if (value instanceof byte[]) {
-                final byte[] values = (byte[]) value;
-                final List<Object> list = new ArrayList<>(values.length);
-                for (final byte v : values) {
-                    list.add(v);
-                }
-                return list;
-            } else if (value instanceof short[]) {
-                final short[] values = (short[]) value;
-                final List<Object> list = new ArrayList<>(values.length);
-                for (final short v : values) {
-                    list.add(v);
-                }
-                return list;
-            } else if (value instanceof int[]) {
-                final int[] values = (int[]) value;
-                final List<Object> list = new ArrayList<>(values.length);
-                for (final int v : values) {
-                    list.add(v);
-                }
-                return list;
-            } else if (value instanceof long[]) {
-                final long[] values = (long[]) value;
-                final List<Object> list = new ArrayList<>(values.length);
-                for (final long v : values) {
-                    list.add(v);
-                }
-                return list;
-            } else if (value instanceof char[]) {
-                final char[] values = (char[]) value;
-                final List<Object> list = new ArrayList<>(values.length);
-                for (final char v : values) {
-                    list.add(v);
-                }
-                return list;
-            } else if (value instanceof float[]) {
-                final float[] values = (float[]) value;
-                final List<Object> list = new ArrayList<>(values.length);
-                for (final float v : values) {
-                    list.add(v);
-                }
-                return list;
-            } else if (value instanceof double[]) {
-                final double[] values = (double[]) value;
-                final List<Object> list = new ArrayList<>(values.length);
-                for (final double v : values) {
-                    list.add(v);
-                }
-                return list;
-            } else {
-                final Object[] values = (Object[]) value;
-                return new ArrayList<>(Arrays.asList(values));
-            }
+            return ArrayViews.asList(value);
         }
         final List<Object> list = new ArrayList<>(1);
         list.add(value);
@@ -232,6 +389,11 @@ public abstract class MapUtils {
     /**
      * Get a value as list. If no value exists with the specified key, an empty
      * list will be returned.
+     * <p>
+     * A primitive array is returned as read-only list view (see
+     * {@link #getValueAsCollection(Map, Object)}); up to version 1.0.5 it was
+     * copied into a modifiable list.
+     * </p>
      *
      * @param map the map
      * @param key the key
@@ -262,6 +424,123 @@ public abstract class MapUtils {
         return new LinkedHashSet<Object>(col); // NOSONAR
     }
 
+    /**
+     * Get a value as int array. If no value exists with the specified key, the
+     * default value will be returned. If the value or one of it's elements
+     * cannot be converted, the default value will be returned, too.
+     * <p>
+     * If the value is an {@code int[]}, it is returned without copying or
+     * boxing (so it must not be changed), otherwise the elements of the
+     * array, collection or the single value are converted like by
+     * {@link #getValueAsInteger(Map, Object, Integer)}.
+     * </p>
+     *
+     * @param map          the map
+     * @param key          the key
+     * @param defaultValue a default value
+     * @return the value of the key
+     */
+    public static int[] getValueAsIntArray(final Map<?, ?> map, final Object key,
+                                           final int[] defaultValue) {
+        Validate.notNull(map, "Map must not be null.");
+        final Object value = map.get(key);
+        if (value instanceof int[]) {
+            return (int[]) value;
+        }
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            final Collection<?> values = getValueAsCollection(map, key);
+            final int[] array = new int[values.size()];
+            int i = 0;
+            for (final Object v : values) {
+                array[i++] = v instanceof Integer ? (Integer) v : Integer.parseInt(v.toString());
+            }
+            return array;
+        } catch (Exception e) { // NOSONAR
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Get a value as long array. If no value exists with the specified key, the
+     * default value will be returned. If the value or one of it's elements
+     * cannot be converted, the default value will be returned, too.
+     * <p>
+     * If the value is a {@code long[]}, it is returned without copying or
+     * boxing (so it must not be changed), otherwise the elements of the
+     * array, collection or the single value are converted like by
+     * {@link #getValueAsLong(Map, Object, Long)}.
+     * </p>
+     *
+     * @param map          the map
+     * @param key          the key
+     * @param defaultValue a default value
+     * @return the value of the key
+     */
+    public static long[] getValueAsLongArray(final Map<?, ?> map, final Object key,
+                                             final long[] defaultValue) {
+        Validate.notNull(map, "Map must not be null.");
+        final Object value = map.get(key);
+        if (value instanceof long[]) {
+            return (long[]) value;
+        }
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            final Collection<?> values = getValueAsCollection(map, key);
+            final long[] array = new long[values.size()];
+            int i = 0;
+            for (final Object v : values) {
+                array[i++] = v instanceof Long ? (Long) v : Long.parseLong(v.toString());
+            }
+            return array;
+        } catch (Exception e) { // NOSONAR
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Get a value as double array. If no value exists with the specified key, the
+     * default value will be returned. If the value or one of it's elements
+     * cannot be converted, the default value will be returned, too.
+     * <p>
+     * If the value is a {@code double[]}, it is returned without copying or
+     * boxing (so it must not be changed), otherwise the elements of the
+     * array, collection or the single value are converted like by
+     * {@link #getValueAsDouble(Map, Object, Double)}.
+     * </p>
+     *
+     * @param map          the map
+     * @param key          the key
+     * @param defaultValue a default value
+     * @return the value of the key
+     */
+    public static double[] getValueAsDoubleArray(final Map<?, ?> map, final Object key,
+                                                 final double[] defaultValue) {
+        Validate.notNull(map, "Map must not be null.");
+        final Object value = map.get(key);
+        if (value instanceof double[]) {
+            return (double[]) value;
+        }
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            final Collection<?> values = getValueAsCollection(map, key);
+            final double[] array = new double[values.size()];
+            int i = 0;
+            for (final Object v : values) {
+                array[i++] = v instanceof Double ? (Double) v : Double.parseDouble(v.toString());
+            }
+            return array;
+        } catch (Exception e) { // NOSONAR
+            return defaultValue;
+        }
+    }
+
     /**
      * Get a value as string. If no value exists with the specified key, the
      * default value will be returned. If the value cannot be cast to the return
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.utils;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.security.Provider;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <p>
+ * A cache of message digests by algorithm and provider.
+ * </p>
+ * <p>
+ * The provider lookup is done only once per algorithm and provider. The
+ * resulting message digest is kept as prototype and new instances are cloned
+ * from it, if the implementation supports cloning. In addition every thread
+ * can get it's own instance, that is reused.
+ * </p>
+ *
+ * @author Christian Bremer
+ */
+final class MessageDigestCache {
+
+    private static final ConcurrentMap<String, Prototype> PROTOTYPES = new ConcurrentHashMap<>();
+
+    private static final ThreadLocal<Map<String, MessageDigest>> INSTANCES
+            = new ThreadLocal<Map<String, MessageDigest>>() {
+        @Override
+        protected Map<String, MessageDigest> initialValue() {
+            return new HashMap<>();
+        }
+    };
+
+    /**
+     * Never construct.
+     */
+    private MessageDigestCache() {
+        super();
+    }
+
+    private static String key(final String algorithm, final Object provider) {
+        if (provider instanceof Provider) {
+            return algorithm + '\u0000' + ((Provider) provider).getName();
+        }
+        return provider == null ? algorithm : algorithm + '\u0000' + provider;
+    }
+
+    private static Prototype prototype(final String key, final String algorithm, final Object provider)
+            throws NoSuchAlgorithmException, NoSuchProviderException {
+        Prototype prototype = PROTOTYPES.get(key);
+        if (prototype == null) {
+            final MessageDigest md;
+            if (provider instanceof Provider) {
+                md = MessageDigest.getInstance(algorithm, (Provider) provider);
+            } else if (provider != null) {
+                md = MessageDigest.getInstance(algorithm, provider.toString());
+            } else {
+                md = MessageDigest.getInstance(algorithm);
+            }
+            prototype = new Prototype(md, algorithm, provider);
+            final Prototype existing = PROTOTYPES.putIfAbsent(key, prototype);
+            if (existing != null) {
+                prototype = existing;
+            }
+        }
+        return prototype;
+    }
+
+    /**
+     * Returns a new message digest.
+     *
+     * @param algorithm the algorithm
+     * @param provider  the provider as {@link Provider} or name (may be {@code null})
+     * @return the new message digest
+     * @throws NoSuchAlgorithmException if the algorithm is not available
+     * @throws NoSuchProviderException  if the provider is not available
+     */
+    static MessageDigest newInstance(final String algorithm, final Object provider)
+            throws NoSuchAlgorithmException, NoSuchProviderException {
+        return prototype(key(algorithm, provider), algorithm, provider).newInstance();
+    }
+
+    /**
+     * Returns the reset message digest of the current thread.
+     *
+     * @param algorithm the algorithm
+     * @param provider  the provider as {@link Provider} or name (may be {@code null})
+     * @return the message digest of the current thread
+     * @throws NoSuchAlgorithmException if the algorithm is not available
+     * @throws NoSuchProviderException  if the provider is not available
+     */
+    static MessageDigest threadLocalInstance(final String algorithm, final Object provider)
+            throws NoSuchAlgorithmException, NoSuchProviderException {
+        final String key = key(algorithm, provider);
+        final Map<String, MessageDigest> instances = INSTANCES.get();
+        MessageDigest md = instances.get(key);
+        if (md == null) {
+            md = prototype(key, algorithm, provider).newInstance();
+            instances.put(key, md);
+        } else {
+            md.reset();
+        }
+        return md;
+    }
+
+    /**
+     * A message digest in it's initial state, that is never updated.
+     */
+    private static class Prototype {
+
+        private final MessageDigest md;
+
+        private final String algorithm;
+
+        private final Object provider;
+
+        private volatile boolean cloneable = true;
+
+        Prototype(final MessageDigest md, final String algorithm, final Object provider) {
+            this.md = md;
+            this.algorithm = algorithm;
+            this.provider = provider;
+        }
+
+        MessageDigest newInstance() throws NoSuchAlgorithmException, NoSuchProviderException {
+            if (cloneable) {
+                try {
+                    return (MessageDigest) md.clone();
+                } catch (CloneNotSupportedException e) { // NOSONAR
+                    cloneable = false;
+                }
+            }
+            if (provider instanceof Provider) {
+                return MessageDigest.getInstance(algorithm, (Provider) provider);
+            }
+            return MessageDigest.getInstance(algorithm, md.getProvider());
+        }
+    }
+
+}
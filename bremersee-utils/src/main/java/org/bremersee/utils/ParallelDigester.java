@@ -0,0 +1,185 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.utils;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * <p>
+ * Calculates several hash values of the same data with one pass over the
+ * input.
+ * </p>
+ * <p>
+ * Every chunk of data is hashed by one task per message digest, while the
+ * next chunk is read (and optionally written to a sink). So the hash values
+ * are calculated in parallel and overlap with IO.
+ * </p>
+ *
+ * @author Christian Bremer
+ */
+final class ParallelDigester {
+
+    private static final int CHUNK_SIZE = 256 * 1024;
+
+    private final MessageDigest[] digests;
+
+    private final Executor executor;
+
+    private long length;
+
+    /**
+     * Creates a digester.
+     *
+     * @param digests  the message digests, that will be reset before calculating
+     * @param executor the executor that runs the hash tasks
+     */
+    ParallelDigester(final MessageDigest[] digests, final Executor executor) {
+        this.digests = digests;
+        this.executor = executor;
+    }
+
+    /**
+     * Reads the input stream to it's end and calculates the hash values.
+     *
+     * @param inputStream the input stream
+     * @param sink        an output stream that gets the data, too (may be {@code null})
+     * @param listener    a listener (may be {@code null})
+     * @return the hash values in the order of the message digests
+     * @throws Exception if reading, writing or hashing fails
+     */
+    byte[][] digest(final InputStream inputStream, final OutputStream sink, final InputStreamListener listener)
+            throws Exception {
+
+        for (final MessageDigest md : digests) {
+            md.reset();
+        }
+        final BufferPool bufferPool = BufferPool.getDefault();
+        // one pooled array holds the current and the next chunk
+        final byte[] buffer = bufferPool.acquireBytes(2L * CHUNK_SIZE);
+        final int chunkSize = buffer.length / 2;
+        int current = 0;
+        Chunk pending = null;
+        length = 0L;
+        try {
+            int len;
+            while ((len = inputStream.read(buffer, current, chunkSize)) != -1) {
+                if (pending != null) {
+                    pending.await();
+                }
+                pending = digests.length == 1 ? null : new Chunk(buffer, current, len);
+                if (pending == null) {
+                    digests[0].update(buffer, current, len);
+                }
+                if (sink != null) {
+                    sink.write(buffer, current, len);
+                }
+                length = length + len;
+                if (listener != null) {
+                    listener.onReadBytes(buffer, current, len);
+                }
+                current = chunkSize - current;
+            }
+            if (pending != null) {
+                pending.await();
+                pending = null;
+            }
+            ListenerUtils.flush(listener);
+            if (sink != null) {
+                sink.flush();
+            }
+            final byte[][] results = new byte[digests.length][];
+            for (int i = 0; i < digests.length; i++) {
+                results[i] = digests[i].digest();
+            }
+            return results;
+
+        } finally {
+            if (pending != null) {
+                // the buffers must not be reused before the tasks are done
+                pending.awaitUninterruptibly();
+            }
+            bufferPool.releaseBytes(buffer);
+        }
+    }
+
+    /**
+     * Returns the number of bytes, that have been read by the last call of
+     * {@link #digest(InputStream, OutputStream, InputStreamListener)}.
+     *
+     * @return the number of read bytes
+     */
+    long getLength() {
+        return length;
+    }
+
+    /**
+     * A chunk of data, that is hashed by one task per message digest.
+     */
+    private class Chunk {
+
+        private final CountDownLatch latch = new CountDownLatch(digests.length);
+
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        Chunk(final byte[] buffer, final int offset, final int len) {
+            for (final MessageDigest md : digests) {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            md.update(buffer, offset, len);
+                        } catch (Throwable t) { // NOSONAR
+                            failure.compareAndSet(null, t);
+                        } finally {
+                            latch.countDown();
+                        }
+                    }
+                });
+            }
+        }
+
+        void awaitUninterruptibly() {
+            boolean interrupted = false;
+            while (latch.getCount() > 0L) {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) { // NOSONAR
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        void await() throws Exception {
+            latch.await();
+            final Throwable t = failure.get();
+            if (t instanceof Exception) {
+                throw (Exception) t;
+            } else if (t != null) {
+                throw new CodingException(t);
+            }
+        }
+    }
+
+}
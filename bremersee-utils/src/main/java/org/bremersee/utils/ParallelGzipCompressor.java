@@ -0,0 +1,248 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.bremersee.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * <p>
+ * Compresses a stream into the gzip format with several threads (like pigz).
+ * </p>
+ * <p>
+ * The input is split into blocks, that are compressed independently by tasks
+ * of an executor. Every block is a raw deflate stream, that ends with a sync
+ * flush (the last block is finished instead), and uses the last 32 KiB of the
+ * previous block as dictionary. The concatenation of the blocks is a single
+ * valid deflate stream, so the output is a standard gzip stream with one
+ * member. The CRC-32 of the trailer is calculated by the reading thread.
+ * </p>
+ * <p>
+ * The input blocks are reused, when the task of the block and the task of
+ * the following block, that uses it as dictionary, are finished. So a
+ * compression needs at most two blocks more than the blocks in flight.
+ * </p>
+ *
+ * @author Christian Bremer
+ */
+final class ParallelGzipCompressor {
+
+    /**
+     * The size of an uncompressed block.
+     */
+    static final int BLOCK_SIZE = 128 * 1024;
+
+    /**
+     * The size of the deflate window, that is used as dictionary.
+     */
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+
+    private static final byte[] HEADER = {
+            0x1f, (byte) 0x8b, // magic number
+            Deflater.DEFLATED, // compression method
+            0, // flags
+            0, 0, 0, 0, // modification time
+            0, // extra flags
+            (byte) 0xff // operating system (unknown)
+    };
+
+    private final int level;
+
+    private final Executor executor;
+
+    private final int maxBlocksInFlight;
+
+    /**
+     * Creates a compressor.
+     *
+     * @param level       the compression level ({@code 0} to {@code 9} or
+     *                    {@link Deflater#DEFAULT_COMPRESSION})
+     * @param executor    the executor of the compression tasks
+     * @param parallelism the number of threads of the executor, that may be used
+     */
+    ParallelGzipCompressor(final int level, final Executor executor, final int parallelism) {
+        this.level = level;
+        this.executor = executor;
+        this.maxBlocksInFlight = 2 * Math.max(1, parallelism);
+    }
+
+    /**
+     * Compresses the input stream to it's end into the output stream. The
+     * output stream is flushed, but not closed.
+     *
+     * @param inputStream  the uncompressed input
+     * @param outputStream the compressed output
+     * @param listener     a listener (may be {@code null}), that gets the uncompressed data
+     * @return the number of uncompressed bytes
+     * @throws IOException if reading, compressing or writing fails
+     */
+    long compress(final InputStream inputStream, final OutputStream outputStream,
+                  final InputStreamListener listener) throws IOException {
+        final CRC32 crc = new CRC32();
+        final Deque<FutureTask<byte[]>> blocks = new ArrayDeque<>();
+        final Deque<byte[]> inputs = new ArrayDeque<>();
+        final Deque<byte[]> free = new ArrayDeque<>();
+        long totalLen = 0L;
+        try {
+            outputStream.write(HEADER);
+            byte[] previous = null;
+            byte[] dictionary = null;
+            byte[] current = new byte[BLOCK_SIZE];
+            int currentLen = readFully(inputStream, current);
+            while (true) {
+                crc.update(current, 0, currentLen);
+                totalLen = totalLen + currentLen;
+                if (listener != null && currentLen > 0) {
+                    listener.onReadBytes(current, 0, currentLen);
+                }
+                byte[] next = null;
+                int nextLen = 0;
+                if (currentLen == BLOCK_SIZE) {
+                    next = free.isEmpty() ? new byte[BLOCK_SIZE] : free.pop();
+                    nextLen = readFully(inputStream, next);
+                }
+                final boolean last = nextLen <= 0;
+                final FutureTask<byte[]> block = new FutureTask<>(new Block(previous, current, currentLen, last));
+                executor.execute(block);
+                blocks.add(block);
+                inputs.add(current);
+                while (blocks.size() >= maxBlocksInFlight) {
+                    outputStream.write(await(blocks.remove()));
+                    // the previous input was used by this and by it's own task
+                    if (dictionary != null) {
+                        free.push(dictionary);
+                    }
+                    dictionary = inputs.remove();
+                }
+                if (last) {
+                    break;
+                }
+                previous = current;
+                current = next;
+                currentLen = nextLen;
+            }
+            while (!blocks.isEmpty()) {
+                outputStream.write(await(blocks.remove()));
+            }
+            writeIntLe(outputStream, crc.getValue());
+            writeIntLe(outputStream, totalLen);
+            outputStream.flush();
+            ListenerUtils.flush(listener);
+            return totalLen;
+
+        } finally {
+            for (FutureTask<byte[]> block : blocks) {
+                block.cancel(false);
+            }
+        }
+    }
+
+    private static int readFully(final InputStream inputStream, final byte[] buffer) throws IOException {
+        int len = 0;
+        int n;
+        while (len < buffer.length && (n = inputStream.read(buffer, len, buffer.length - len)) != -1) {
+            len = len + n;
+        }
+        return len;
+    }
+
+    private static byte[] await(final FutureTask<byte[]> block) throws IOException {
+        try {
+            return block.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Compression was interrupted.");
+        } catch (ExecutionException e) {
+            throw new IOException("Compression of a block failed.", e.getCause());
+        }
+    }
+
+    private static void writeIntLe(final OutputStream outputStream, final long value) throws IOException {
+        outputStream.write((int) value & 0xff);
+        outputStream.write((int) (value >>> 8) & 0xff);
+        outputStream.write((int) (value >>> 16) & 0xff);
+        outputStream.write((int) (value >>> 24) & 0xff);
+    }
+
+    /**
+     * Compresses one block.
+     */
+    private class Block implements Callable<byte[]> {
+
+        private final byte[] previous;
+
+        private final byte[] data;
+
+        private final int len;
+
+        private final boolean last;
+
+        Block(final byte[] previous, final byte[] data, final int len, final boolean last) {
+            this.previous = previous;
+            this.data = data;
+            this.len = len;
+            this.last = last;
+        }
+
+        @Override
+        public byte[] call() {
+            final Deflater deflater = new Deflater(level, true);
+            try {
+                if (previous != null) {
+                    deflater.setDictionary(previous, previous.length - DICTIONARY_SIZE, DICTIONARY_SIZE);
+                }
+                deflater.setInput(data, 0, len);
+                if (last) {
+                    deflater.finish();
+                }
+                byte[] buffer = new byte[len + (len >>> 3) + 64];
+                int count = 0;
+                while (true) {
+                    if (count == buffer.length) {
+                        buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                    }
+                    final int space = buffer.length - count;
+                    final int n = last
+                            ? deflater.deflate(buffer, count, space)
+                            : deflater.deflate(buffer, count, space, Deflater.SYNC_FLUSH);
+                    count = count + n;
+                    // a sync flush is complete, if it didn't fill the output buffer
+                    if (last ? deflater.finished() : n < space) {
+                        break;
+                    }
+                }
+                return Arrays.copyOf(buffer, count);
+
+            } finally {
+                deflater.end();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.bremersee.utils;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * <p>
+ * A stable merge sort of an array, that sorts the halves in parallel.
+ * </p>
+ * <p>
+ * Ranges up to a threshold are sorted with {@link Arrays#sort(Object[], int, int, Comparator)},
+ * which is stable, too. So the result is the same as the one of a sequential
+ * sort, even if the comparator returns {@code 0} for different elements.
+ * </p>
+ *
+ * @author Christian Bremer
+ */
+final class ParallelMergeSort {
+
+    /**
+     * The number of elements, that are sorted by a task without splitting it.
+     */
+    private static final int SEQUENTIAL_THRESHOLD = 8192;
+
+    /**
+     * Never construct.
+     */
+    private ParallelMergeSort() {
+        super();
+    }
+
+    /**
+     * Sorts the array.
+     *
+     * @param array      the array
+     * @param comparator the comparator
+     * @param pool       the fork join pool
+     * @param <T>        the type of the elements
+     */
+    static <T> void sort(final T[] array, final Comparator<? super T> comparator, final ForkJoinPool pool) {
+        if (array.length <= SEQUENTIAL_THRESHOLD) {
+            Arrays.sort(array, comparator);
+            return;
+        }
+        final T[] buffer = Arrays.copyOf(array, array.length);
+        pool.invoke(new SortTask<>(array, buffer, comparator, 0, array.length));
+    }
+
+    /**
+     * Sorts a range of the array.
+     */
+    private static class SortTask<T> extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final T[] array;
+
+        private final T[] buffer;
+
+        private final Comparator<? super T> comparator;
+
+        private final int from;
+
+        private final int to;
+
+        SortTask(final T[] array, final T[] buffer, final Comparator<? super T> comparator,
+                 final int from, final int to) {
+            this.array = array;
+            this.buffer = buffer;
+            this.comparator = comparator;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                Arrays.sort(array, from, to, comparator);
+                return;
+            }
+            final int middle = (from + to) >>> 1;
+            invokeAll(new SortTask<>(array, buffer, comparator, from, middle),
+                    new SortTask<>(array, buffer, comparator, middle, to));
+            if (comparator.compare(array[middle - 1], array[middle]) <= 0) {
+                // the halves are already in order
+                return;
+            }
+            merge(middle);
+        }
+
+        private void merge(final int middle) {
+            System.arraycopy(array, from, buffer, from, to - from);
+            int left = from;
+            int right = middle;
+            int i = from;
+            while (left < middle && right < to) {
+                // equal elements are taken from the left half, so the sort is stable
+                if (comparator.compare(buffer[right], buffer[left]) < 0) {
+                    array[i++] = buffer[right++];
+                } else {
+                    array[i++] = buffer[left++];
+                }
+            }
+            if (left < middle) {
+                System.arraycopy(buffer, left, array, i, middle - left);
+            }
+            // the rest of the right half is already in place
+        }
+    }
+
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.utils;
+
+import org.apache.commons.lang3.Validate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * A token bucket, that limits the rate of a copy operation (bytes or chars
+ * per second).
+ * </p>
+ * <p>
+ * A rate limiter is thread safe. If it is shared by several concurrent copy
+ * operations, it limits their total rate.
+ * </p>
+ * <p>
+ * A caller may take more permits than there are tokens in the bucket. Then the
+ * caller waits until the debt is paid, so the average rate never exceeds the
+ * limit.
+ * </p>
+ *
+ * @author Christian Bremer
+ */
+public class RateLimiter {
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1L);
+
+    /**
+     * The duration of the window, that is used to measure the current rate.
+     */
+    private static final long MEASURE_WINDOW = NANOS_PER_SECOND;
+
+    private long permitsPerSecond;
+
+    private long maxPermits;
+
+    private double tokens;
+
+    private long lastRefill;
+
+    private long windowStart;
+
+    private long windowPermits;
+
+    private double measuredRate = -1d;
+
+    /**
+     * Creates a rate limiter, whose bucket holds the permits of one second.
+     *
+     * @param permitsPerSecond the maximum rate
+     * @throws IllegalArgumentException if the rate is not positive
+     */
+    public RateLimiter(final long permitsPerSecond) {
+        this(permitsPerSecond, permitsPerSecond);
+    }
+
+    /**
+     * Creates a rate limiter.
+     *
+     * @param permitsPerSecond the maximum rate
+     * @param maxPermits       the size of the bucket (the maximum burst)
+     * @throws IllegalArgumentException if the rate or the size of the bucket are not positive
+     */
+    public RateLimiter(final long permitsPerSecond, final long maxPermits) {
+        setRate(permitsPerSecond, maxPermits);
+        this.tokens = this.maxPermits;
+        this.lastRefill = System.nanoTime();
+        this.windowStart = lastRefill;
+    }
+
+    /**
+     * Changes the rate.
+     *
+     * @param permitsPerSecond the maximum rate
+     * @param maxPermits       the size of the bucket (the maximum burst)
+     * @throws IllegalArgumentException if the rate or the size of the bucket are not positive
+     */
+    public synchronized void setRate(final long permitsPerSecond, final long maxPermits) {
+        Validate.isTrue(permitsPerSecond > 0L, "Permits per second must be greater than 0.");
+        Validate.isTrue(maxPermits > 0L, "Max permits must be greater than 0.");
+        this.permitsPerSecond = permitsPerSecond;
+        this.maxPermits = maxPermits;
+        this.tokens = Math.min(tokens, maxPermits);
+    }
+
+    /**
+     * Returns the maximum rate.
+     *
+     * @return the maximum rate in permits per second
+     */
+    public synchronized long getRate() {
+        return permitsPerSecond;
+    }
+
+    /**
+     * Returns the size of the bucket. A copy operation should not take more
+     * permits at once.
+     *
+     * @return the size of the bucket
+     */
+    public synchronized long getMaxPermits() {
+        return maxPermits;
+    }
+
+    /**
+     * Returns the rate of the permits, that were taken during the last second.
+     * If the limiter is shared, this is the total rate of all copy operations.
+     *
+     * @return the current rate in permits per second
+     */
+    public synchronized double getCurrentRate() {
+        final long now = System.nanoTime();
+        measure(now, 0L);
+        if (measuredRate >= 0d) {
+            return measuredRate;
+        }
+        final long elapsed = Math.max(now - windowStart, 1L);
+        return windowPermits * (double) NANOS_PER_SECOND / elapsed;
+    }
+
+    private void measure(final long now, final long permits) {
+        final long elapsed = now - windowStart;
+        if (elapsed >= MEASURE_WINDOW) {
+            measuredRate = windowPermits * (double) NANOS_PER_SECOND / elapsed;
+            windowStart = now;
+            windowPermits = 0L;
+        }
+        windowPermits = windowPermits + permits;
+    }
+
+    /**
+     * Takes the permits and returns the time to wait in nanoseconds.
+     */
+    private synchronized long reserve(final long permits) {
+        final long now = System.nanoTime();
+        tokens = Math.min(maxPermits, tokens + (now - lastRefill) * (double) permitsPerSecond / NANOS_PER_SECOND);
+        lastRefill = now;
+        tokens = tokens - permits;
+        measure(now, permits);
+        if (tokens >= 0d) {
+            return 0L;
+        }
+        return (long) Math.ceil(-tokens * NANOS_PER_SECOND / permitsPerSecond);
+    }
+
+    /**
+     * Takes the specified number of permits and blocks until the rate is not
+     * exceeded.
+     *
+     * @param permits the number of permits (bytes or chars)
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     */
+    public void acquire(final long permits) throws InterruptedException {
+        if (permits <= 0L) {
+            return;
+        }
+        final long wait = reserve(permits);
+        if (wait > 0L) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+}
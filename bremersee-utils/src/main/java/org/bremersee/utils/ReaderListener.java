@@ -20,14 +20,22 @@ package org.bremersee.utils;
  * <p>
  * Intercepter for reading characters.
  * </p>
+ * <p>
+ * If a listener implements {@link java.io.Flushable}, it is flushed by the
+ * operations of this library, when the end of the reader is reached.
+ * </p>
  * 
  * @author Christian Bremer
+ * @see ListenerUtils
  *
  */
 public interface ReaderListener {
 
     /**
      * This method is called by reading a characters.
+     * <br>
+     * The buffer may be reused after this method returns, so the listener must
+     * not keep a reference to it.
      * 
      * @param buffer
      *            the char buffer
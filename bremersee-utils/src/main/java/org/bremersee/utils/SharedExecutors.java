@@ -0,0 +1,99 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.utils;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * Executors that are shared by the asynchronous and parallel operations of
+ * this library. All threads are daemon threads.
+ * </p>
+ *
+ * @author Christian Bremer
+ */
+final class SharedExecutors {
+
+    /**
+     * Never construct.
+     */
+    private SharedExecutors() {
+        super();
+    }
+
+    /**
+     * Lazy holder of the IO executor.
+     */
+    private static class IoExecutorHolder {
+
+        static final ExecutorService INSTANCE = Executors.newCachedThreadPool(
+                new DaemonThreadFactory("bremersee-utils-io-"));
+    }
+
+    /**
+     * Lazy holder of the compute pool.
+     */
+    private static class ComputePoolHolder {
+
+        static final ForkJoinPool INSTANCE = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Returns an unbounded executor for tasks, that block on IO.
+     *
+     * @return the IO executor
+     */
+    static ExecutorService io() {
+        return IoExecutorHolder.INSTANCE;
+    }
+
+    /**
+     * Returns a pool for CPU bound tasks, that has as many threads as there are
+     * processors.
+     *
+     * @return the compute pool
+     */
+    static ForkJoinPool compute() {
+        return ComputePoolHolder.INSTANCE;
+    }
+
+    /**
+     * A thread factory, that creates named daemon threads.
+     */
+    private static class DaemonThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger counter = new AtomicInteger();
+
+        private final String namePrefix;
+
+        DaemonThreadFactory(final String namePrefix) {
+            this.namePrefix = namePrefix;
+        }
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread thread = new Thread(runnable, namePrefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.bremersee.utils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * <p>
+ * Selects the first entries of a map in the order of
+ * {@link MapUtils#sort(Map, Comparator)} without sorting all entries.
+ * </p>
+ * <p>
+ * The candidates are kept in a bounded heap, whose head is the worst
+ * candidate. An entry replaces the head, if it is better, so selecting
+ * {@code k} of {@code n} entries takes {@code O(n log k)} time and
+ * {@code O(k)} memory. Entries with equal values and keys, that are not
+ * comparable, are ordered by their position in the iteration order of the
+ * map, so the result is the same as the beginning of the sorted map.
+ * </p>
+ *
+ * @author Christian Bremer
+ */
+final class TopEntries {
+
+    /**
+     * The number of entries, that are selected by a task without splitting it.
+     */
+    static final int SEQUENTIAL_THRESHOLD = 64 * 1024;
+
+    /**
+     * Never construct.
+     */
+    private TopEntries() {
+        super();
+    }
+
+    /**
+     * Selects the first entries by iterating over the map.
+     *
+     * @param map             the map
+     * @param k               the maximum number of entries
+     * @param valueComparator the value comparator (may be {@code null})
+     * @return the first entries in sorted order
+     */
+    static Map<Object, Object> select(final Map<?, ?> map, final int k, final Comparator<?> valueComparator) {
+        final Heap heap = new Heap(k, map.size(), new MapUtils.MapEntryComparator(valueComparator));
+        int index = 0;
+        for (final Map.Entry<?, ?> entry : map.entrySet()) {
+            heap.offer(entry.getKey(), entry.getValue(), index++);
+        }
+        return heap.toMap();
+    }
+
+    /**
+     * Selects the first entries of chunks of the map in parallel and merges
+     * the heaps of the chunks.
+     *
+     * @param map             the map
+     * @param k               the maximum number of entries
+     * @param valueComparator the value comparator (may be {@code null})
+     * @param pool            the fork join pool
+     * @return the first entries in sorted order
+     */
+    static Map<Object, Object> select(final Map<?, ?> map, final int k, final Comparator<?> valueComparator,
+                                      final ForkJoinPool pool) {
+        final Object[] entries = map.entrySet().toArray();
+        final MapUtils.MapEntryComparator comparator = new MapUtils.MapEntryComparator(valueComparator);
+        return pool.invoke(new SelectTask(entries, k, comparator, 0, entries.length)).toMap();
+    }
+
+    /**
+     * A candidate with it's position in the iteration order of the map.
+     */
+    private static class Candidate {
+
+        private Object key;
+
+        private Object value;
+
+        private int index;
+
+        Candidate(final Object key, final Object value, final int index) {
+            this.key = key;
+            this.value = value;
+            this.index = index;
+        }
+    }
+
+    /**
+     * A heap of at most {@code k} candidates, whose head is the worst one.
+     */
+    private static class Heap {
+
+        private final int k;
+
+        private final MapUtils.MapEntryComparator comparator;
+
+        private final PriorityQueue<Candidate> queue;
+
+        Heap(final int k, final int size, final MapUtils.MapEntryComparator comparator) {
+            this.k = k;
+            this.comparator = comparator;
+            this.queue = new PriorityQueue<>(Math.max(1, Math.min(k, size)), new Comparator<Candidate>() {
+                @Override
+                public int compare(final Candidate c1, final Candidate c2) {
+                    return compareTo(c2.key, c2.value, c2.index, c1);
+                }
+            });
+        }
+
+        private int compareTo(final Object key, final Object value, final int index, final Candidate candidate) {
+            int c = comparator.compareValues(value, candidate.value);
+            if (c == 0) {
+                c = MapUtils.MapEntryComparator.compareKeys(key, candidate.key);
+            }
+            return c != 0 ? c : (index < candidate.index ? -1 : (index == candidate.index ? 0 : 1));
+        }
+
+        void offer(final Object key, final Object value, final int index) {
+            if (queue.size() < k) {
+                queue.add(new Candidate(key, value, index));
+            } else if (k > 0 && compareTo(key, value, index, queue.peek()) < 0) {
+                // the replaced candidate is reused
+                final Candidate candidate = queue.poll();
+                candidate.key = key;
+                candidate.value = value;
+                candidate.index = index;
+                queue.add(candidate);
+            }
+        }
+
+        void merge(final Heap other) {
+            for (final Candidate candidate : other.queue) {
+                offer(candidate.key, candidate.value, candidate.index);
+            }
+        }
+
+        Map<Object, Object> toMap() {
+            final Candidate[] candidates = queue.toArray(new Candidate[queue.size()]);
+            Arrays.sort(candidates, Collections.reverseOrder(queue.comparator()));
+            final Map<Object, Object> result = new LinkedHashMap<>(candidates.length);
+            for (final Candidate candidate : candidates) {
+                result.put(candidate.key, candidate.value);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Selects the first entries of a range of the entry array.
+     */
+    private static class SelectTask extends RecursiveTask<Heap> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Object[] entries;
+
+        private final int k;
+
+        private final MapUtils.MapEntryComparator comparator;
+
+        private final int from;
+
+        private final int to;
+
+        SelectTask(final Object[] entries, final int k, final MapUtils.MapEntryComparator comparator,
+                   final int from, final int to) {
+            this.entries = entries;
+            this.k = k;
+            this.comparator = comparator;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Heap compute() {
+            if (to - from > SEQUENTIAL_THRESHOLD) {
+                final int middle = (from + to) >>> 1;
+                final SelectTask right = new SelectTask(entries, k, comparator, middle, to);
+                right.fork();
+                final Heap heap = new SelectTask(entries, k, comparator, from, middle).compute();
+                heap.merge(right.join());
+                return heap;
+            }
+            final Heap heap = new Heap(k, to - from, comparator);
+            for (int i = from; i < to; i++) {
+                final Map.Entry<?, ?> entry = (Map.Entry<?, ?>) entries[i];
+                heap.offer(entry.getKey(), entry.getValue(), i);
+            }
+            return heap;
+        }
+    }
+
+}
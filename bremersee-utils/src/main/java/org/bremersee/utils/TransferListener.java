@@ -0,0 +1,45 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.utils;
+
+/**
+ * <p>
+ * Intercepter for transferring data, that only wants to know how many bytes
+ * were copied.
+ * </p>
+ * <p>
+ * If the listener of a copy operation implements this interface, the data may
+ * be transferred directly between channels (e. g. with
+ * {@link java.nio.channels.FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)})
+ * without reading it into the heap. In this case only
+ * {@link #onTransferredBytes(long)} is called. If the data must be copied
+ * through a buffer, {@link #onReadBytes(byte[], int, int)} is called instead.
+ * </p>
+ *
+ * @author Christian Bremer
+ */
+public interface TransferListener extends InputStreamListener {
+
+    /**
+     * This method is called after data was transferred without passing a
+     * buffer.
+     *
+     * @param len the number of transferred bytes
+     */
+    void onTransferredBytes(long len);
+
+}
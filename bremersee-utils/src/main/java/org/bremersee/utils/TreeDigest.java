@@ -0,0 +1,219 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * <p>
+ * Calculates the tree hash of a file.
+ * </p>
+ * <p>
+ * The file is split into segments of a fixed size (the last segment may be
+ * shorter, an empty file consists of one empty segment). The tree hash is
+ * defined as follows ({@code H} is the message digest, {@code ||} is
+ * concatenation):
+ * </p>
+ * <ul>
+ * <li>The hash of a leaf is {@code H(0x00 || segment)}.</li>
+ * <li>The hash of an inner node is {@code H(0x01 || left || right)}.</li>
+ * <li>The nodes of a level are combined pairwise from left to right. If a
+ * level has an odd number of nodes, the last node is moved up to the next
+ * level unchanged.</li>
+ * <li>The root hash is the single node of the top level.</li>
+ * </ul>
+ * <p>
+ * The root hash depends on the segment size, so the same segment size must be
+ * used to verify a hash.
+ * </p>
+ *
+ * @author Christian Bremer
+ */
+final class TreeDigest {
+
+    private static final byte LEAF_PREFIX = 0x00;
+
+    private static final byte NODE_PREFIX = 0x01;
+
+    /**
+     * The number of segments, that are hashed by a task without splitting it.
+     */
+    private static final int SEQUENTIAL_THRESHOLD = 2;
+
+    /**
+     * Never construct.
+     */
+    private TreeDigest() {
+        super();
+    }
+
+    private static int segmentCount(final long size, final int segmentSize) {
+        final long count = size == 0L ? 1L : (size + segmentSize - 1L) / segmentSize;
+        if (count > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Segment size is too small for a file of " + size + " bytes.");
+        }
+        return (int) count;
+    }
+
+    /**
+     * Calculates the tree hash with memory mapped segments, that are hashed in
+     * parallel.
+     *
+     * @param file        the file
+     * @param prototype   the message digest, that is cloned for every segment
+     * @param segmentSize the segment size
+     * @param pool        the fork join pool
+     * @return the root hash
+     * @throws IOException if the file cannot be read
+     */
+    static byte[] digest(final Path file, final MessageDigest prototype, final int segmentSize,
+                         final ForkJoinPool pool) throws IOException {
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            final byte[][] leaves = new byte[segmentCount(size, segmentSize)][];
+            pool.invoke(new LeafTask(channel, size, prototype, segmentSize, leaves, 0, leaves.length));
+            return combine(leaves, prototype);
+        }
+    }
+
+    /**
+     * Calculates the tree hash by reading the file sequentially. This is the
+     * reference implementation of {@link #digest(Path, MessageDigest, int, ForkJoinPool)}.
+     *
+     * @param file        the file
+     * @param md          the message digest
+     * @param segmentSize the segment size
+     * @return the root hash
+     * @throws IOException if the file cannot be read
+     */
+    static byte[] digestSequentially(final Path file, final MessageDigest md, final int segmentSize)
+            throws IOException {
+
+        final long size = Files.size(file);
+        final byte[][] leaves = new byte[segmentCount(size, segmentSize)][];
+        final byte[] buffer = new byte[4096];
+        try (InputStream in = Files.newInputStream(file)) {
+            for (int i = 0; i < leaves.length; i++) {
+                md.reset();
+                md.update(LEAF_PREFIX);
+                long remaining = Math.min(segmentSize, size - (long) i * segmentSize);
+                while (remaining > 0L) {
+                    final int len = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                    if (len == -1) {
+                        throw new IOException("File was truncated while reading.");
+                    }
+                    md.update(buffer, 0, len);
+                    remaining = remaining - len;
+                }
+                leaves[i] = md.digest();
+            }
+        }
+        return combine(leaves, md);
+    }
+
+    private static byte[] combine(final byte[][] leaves, final MessageDigest md) {
+        byte[][] level = leaves;
+        while (level.length > 1) {
+            final byte[][] next = new byte[(level.length + 1) / 2][];
+            for (int i = 0; i < next.length; i++) {
+                final int left = 2 * i;
+                if (left + 1 < level.length) {
+                    md.reset();
+                    md.update(NODE_PREFIX);
+                    md.update(level[left]);
+                    md.update(level[left + 1]);
+                    next[i] = md.digest();
+                } else {
+                    next[i] = level[left];
+                }
+            }
+            level = next;
+        }
+        return level[0];
+    }
+
+    /**
+     * Hashes a range of segments.
+     */
+    private static class LeafTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final FileChannel channel;
+
+        private final long size;
+
+        private final MessageDigest prototype;
+
+        private final int segmentSize;
+
+        private final byte[][] leaves;
+
+        private final int from;
+
+        private final int to;
+
+        LeafTask(final FileChannel channel, final long size, final MessageDigest prototype,
+                 final int segmentSize, final byte[][] leaves, final int from, final int to) {
+            this.channel = channel;
+            this.size = size;
+            this.prototype = prototype;
+            this.segmentSize = segmentSize;
+            this.leaves = leaves;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > SEQUENTIAL_THRESHOLD) {
+                final int middle = (from + to) >>> 1;
+                invokeAll(new LeafTask(channel, size, prototype, segmentSize, leaves, from, middle),
+                        new LeafTask(channel, size, prototype, segmentSize, leaves, middle, to));
+                return;
+            }
+            final MessageDigest md = CodingUtils.cloneMessageDigestSilently(prototype);
+            for (int i = from; i < to; i++) {
+                final long position = (long) i * segmentSize;
+                final long len = Math.min(segmentSize, size - position);
+                md.reset();
+                md.update(LEAF_PREFIX);
+                if (len > 0L) {
+                    final MappedByteBuffer segment;
+                    try {
+                        segment = channel.map(FileChannel.MapMode.READ_ONLY, position, len);
+                    } catch (IOException e) {
+                        throw new IORuntimeException(e);
+                    }
+                    md.update(segment);
+                }
+                leaves[i] = md.digest();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,380 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.bremersee.utils;
+
+import org.apache.commons.lang3.Validate;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ * A typed view of a map, that converts the value of a key only once.
+ * </p>
+ * <p>
+ * The getters return the same results as the {@code getValueAs*} methods of
+ * {@link MapUtils}, but the converted values are cached per key and type. A
+ * cached value is used as long as the map contains the same value instance
+ * for the key. If the value is replaced (or removed), it is converted again on
+ * the next call. Changes within a value (for example adding an element to a
+ * list value) are not detected, {@link #clear()} drops all cached values.
+ * </p>
+ * <p>
+ * This implementation is not synchronized.
+ * </p>
+ *
+ * @author Christian Bremer
+ * @see MapUtils#typedView(Map)
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public class TypedMapView {
+
+    /**
+     * Marks a value, that cannot be converted.
+     */
+    private static final Object NO_VALUE = new Object();
+
+    /**
+     * The key of the single entry maps, that are converted.
+     */
+    private static final Object KEY = Boolean.TRUE;
+
+    private static final int TYPE_COUNT = Type.values().length;
+
+    private final Map<?, ?> map;
+
+    private final Map<Object, Conversions> cache = new HashMap<>();
+
+    /**
+     * Creates a typed view of the specified map.
+     *
+     * @param map the map
+     * @throws IllegalArgumentException if the map is {@code null}
+     */
+    public TypedMapView(final Map<?, ?> map) {
+        Validate.notNull(map, "Map must not be null.");
+        this.map = map;
+    }
+
+    /**
+     * Returns the underlying map.
+     *
+     * @return the map
+     */
+    public Map<?, ?> getMap() {
+        return map;
+    }
+
+    /**
+     * Drops all cached values.
+     */
+    public void clear() {
+        cache.clear();
+    }
+
+    /**
+     * Returns the cached conversions of the current value of the key.
+     *
+     * @return the conversions or {@code null}, if the map has no value with the key
+     */
+    private Conversions conversions(final Object key) {
+        final Object value = map.get(key);
+        if (value == null) {
+            cache.remove(key);
+            return null;
+        }
+        Conversions conversions = cache.get(key);
+        if (conversions == null || conversions.source != value) {
+            conversions = new Conversions(value);
+            cache.put(key, conversions);
+        }
+        return conversions;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T get(final Object key, final Type type, final T defaultValue) {
+        final Conversions conversions = conversions(key);
+        if (conversions == null) {
+            return defaultValue;
+        }
+        Object converted = conversions.values[type.ordinal()];
+        if (converted == null) {
+            converted = type.convert(conversions.asMap());
+            if (converted == null) {
+                converted = NO_VALUE;
+            }
+            conversions.values[type.ordinal()] = converted;
+        }
+        return converted == NO_VALUE ? defaultValue : (T) converted;
+    }
+
+    /**
+     * Get a value as string.
+     *
+     * @param key          the key
+     * @param defaultValue a default value
+     * @return the value of the key
+     * @see MapUtils#getValueAsString(Map, Object, String)
+     */
+    public String getString(final Object key, final String defaultValue) {
+        return get(key, Type.STRING, defaultValue);
+    }
+
+    /**
+     * Get a value as boolean.
+     *
+     * @param key          the key
+     * @param defaultValue a default value
+     * @return the value of the key
+     * @see MapUtils#getValueAsBoolean(Map, Object, Boolean)
+     */
+    public Boolean getBoolean(final Object key, final Boolean defaultValue) {
+        return get(key, Type.BOOLEAN, defaultValue);
+    }
+
+    /**
+     * Get a value as {@code BigInteger}.
+     *
+     * @param key          the key
+     * @param defaultValue a default value
+     * @return the value of the key
+     * @see MapUtils#getValueAsBigInteger(Map, Object, BigInteger)
+     */
+    public BigInteger getBigInteger(final Object key, final BigInteger defaultValue) {
+        return get(key, Type.BIG_INTEGER, defaultValue);
+    }
+
+    /**
+     * Get a value as long.
+     *
+     * @param key          the key
+     * @param defaultValue a default value
+     * @return the value of the key
+     * @see MapUtils#getValueAsLong(Map, Object, Long)
+     */
+    public Long getLong(final Object key, final Long defaultValue) {
+        return get(key, Type.LONG, defaultValue);
+    }
+
+    /**
+     * Get a value as integer.
+     *
+     * @param key          the key
+     * @param defaultValue a default value
+     * @return the value of the key
+     * @see MapUtils#getValueAsInteger(Map, Object, Integer)
+     */
+    public Integer getInteger(final Object key, final Integer defaultValue) {
+        return get(key, Type.INTEGER, defaultValue);
+    }
+
+    /**
+     * Get a value as byte.
+     *
+     * @param key          the key
+     * @param defaultValue a default value
+     * @return the value of the key
+     * @see MapUtils#getValueAsByte(Map, Object, Byte)
+     */
+    public Byte getByte(final Object key, final Byte defaultValue) {
+        return get(key, Type.BYTE, defaultValue);
+    }
+
+    /**
+     * Get a value as short.
+     *
+     * @param key          the key
+     * @param defaultValue a default value
+     * @return the value of the key
+     * @see MapUtils#getValueAsShort(Map, Object, Short)
+     */
+    public Short getShort(final Object key, final Short defaultValue) {
+        return get(key, Type.SHORT, defaultValue);
+    }
+
+    /**
+     * Get a value as {@code BigDecimal}.
+     *
+     * @param key          the key
+     * @param defaultValue a default value
+     * @return the value of the key
+     * @see MapUtils#getValueAsBigDecimal(Map, Object, BigDecimal)
+     */
+    public BigDecimal getBigDecimal(final Object key, final BigDecimal defaultValue) {
+        return get(key, Type.BIG_DECIMAL, defaultValue);
+    }
+
+    /**
+     * Get a value as double.
+     *
+     * @param key          the key
+     * @param defaultValue a default value
+     * @return the value of the key
+     * @see MapUtils#getValueAsDouble(Map, Object, Double)
+     */
+    public Double getDouble(final Object key, final Double defaultValue) {
+        return get(key, Type.DOUBLE, defaultValue);
+    }
+
+    /**
+     * Get a value as float.
+     *
+     * @param key          the key
+     * @param defaultValue a default value
+     * @return the value of the key
+     * @see MapUtils#getValueAsFloat(Map, Object, Float)
+     */
+    public Float getFloat(final Object key, final Float defaultValue) {
+        return get(key, Type.FLOAT, defaultValue);
+    }
+
+    /**
+     * Get a value as enum.
+     *
+     * @param key          the key
+     * @param enumType     the enumeration type
+     * @param defaultValue a default value
+     * @param <T>          type of the enum
+     * @return the value of the key
+     * @throws IllegalArgumentException if the enumeration type is {@code null}
+     * @see MapUtils#getValueAsEnum(Map, Object, Class, Enum)
+     */
+    public <T extends Enum<T>> T getEnum(final Object key, final Class<T> enumType, final T defaultValue) {
+        Validate.notNull(enumType, "Enum type must not be null.");
+        final Conversions conversions = conversions(key);
+        if (conversions == null) {
+            return defaultValue;
+        }
+        if (conversions.enumType != enumType) {
+            final T converted = MapUtils.getValueAsEnum(conversions.asMap(), KEY, enumType, null);
+            conversions.enumType = enumType;
+            conversions.enumValue = enumType.isInstance(converted) ? converted : NO_VALUE;
+        }
+        return conversions.enumValue == NO_VALUE ? defaultValue : enumType.cast(conversions.enumValue);
+    }
+
+    /**
+     * The supported types (except enumerations).
+     */
+    private enum Type {
+
+        STRING {
+            @Override
+            Object convert(final Map<?, ?> map) {
+                return MapUtils.getValueAsString(map, KEY, null);
+            }
+        },
+
+        BOOLEAN {
+            @Override
+            Object convert(final Map<?, ?> map) {
+                return MapUtils.getValueAsBoolean(map, KEY, null);
+            }
+        },
+
+        BIG_INTEGER {
+            @Override
+            Object convert(final Map<?, ?> map) {
+                return MapUtils.getValueAsBigInteger(map, KEY, null);
+            }
+        },
+
+        LONG {
+            @Override
+            Object convert(final Map<?, ?> map) {
+                return MapUtils.getValueAsLong(map, KEY, null);
+            }
+        },
+
+        INTEGER {
+            @Override
+            Object convert(final Map<?, ?> map) {
+                return MapUtils.getValueAsInteger(map, KEY, null);
+            }
+        },
+
+        BYTE {
+            @Override
+            Object convert(final Map<?, ?> map) {
+                return MapUtils.getValueAsByte(map, KEY, null);
+            }
+        },
+
+        SHORT {
+            @Override
+            Object convert(final Map<?, ?> map) {
+                return MapUtils.getValueAsShort(map, KEY, null);
+            }
+        },
+
+        BIG_DECIMAL {
+            @Override
+            Object convert(final Map<?, ?> map) {
+                return MapUtils.getValueAsBigDecimal(map, KEY, null);
+            }
+        },
+
+        DOUBLE {
+            @Override
+            Object convert(final Map<?, ?> map) {
+                return MapUtils.getValueAsDouble(map, KEY, null);
+            }
+        },
+
+        FLOAT {
+            @Override
+            Object convert(final Map<?, ?> map) {
+                return MapUtils.getValueAsFloat(map, KEY, null);
+            }
+        };
+
+        /**
+         * Converts the value of {@link #KEY} of the specified map.
+         *
+         * @param map a map with the single key {@link #KEY}
+         * @return the converted value or {@code null}, if it cannot be converted
+         */
+        abstract Object convert(Map<?, ?> map);
+    }
+
+    /**
+     * The converted values of a value instance.
+     */
+    private static class Conversions {
+
+        private final Object source;
+
+        private final Object[] values = new Object[TYPE_COUNT];
+
+        private Class<?> enumType;
+
+        private Object enumValue;
+
+        Conversions(final Object source) {
+            this.source = source;
+        }
+
+        Map<?, ?> asMap() {
+            return Collections.singletonMap(KEY, source);
+        }
+    }
+
+}
@@ -0,0 +1,374 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.bremersee.utils;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * <p>
+ * A map, that iterates over it's entries in the order of the values.
+ * </p>
+ * <p>
+ * The entries are kept sorted while they are put and removed, so reading the
+ * map in sorted order doesn't need to sort it again (in contrast to
+ * {@link MapUtils#sort(Map, Comparator)}). Getting a value by key takes
+ * constant time, putting and removing an entry takes {@code O(log n)} time.
+ * </p>
+ * <p>
+ * The order is the same as the one of {@link MapUtils#sort(Map, Comparator)}:
+ * {@code null} values are last, entries with equal values are sorted by their
+ * keys (keys of different classes by the names of their classes), if the keys
+ * are comparable, otherwise by the time they were put into the map.
+ * </p>
+ * <p>
+ * The values must not be changed in a way, that changes their order, while
+ * they are in the map. The entries of this map don't support
+ * {@link Map.Entry#setValue(Object)}, use {@link #put(Object, Object)} instead.
+ * This implementation is not synchronized.
+ * </p>
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ * @author Christian Bremer
+ */
+@SuppressWarnings("WeakerAccess")
+public class ValueSortedMap<K, V> extends AbstractMap<K, V> {
+
+    private final Comparator<? super V> valueComparator;
+
+    private final Map<K, Node<K, V>> nodes = new HashMap<>();
+
+    private final TreeSet<Node<K, V>> sortedNodes;
+
+    private long sequence;
+
+    private Set<Entry<K, V>> entrySet;
+
+    /**
+     * Creates an empty map, that is sorted by the natural order of the values.
+     */
+    public ValueSortedMap() {
+        this((Comparator<? super V>) null);
+    }
+
+    /**
+     * Creates an empty map, that is sorted with the specified value comparator.
+     *
+     * @param valueComparator the value comparator (may be {@code null}, then the
+     *                        natural sort order of the values is used)
+     */
+    public ValueSortedMap(final Comparator<? super V> valueComparator) {
+        this.valueComparator = valueComparator;
+        final MapUtils.MapEntryComparator entryComparator = new MapUtils.MapEntryComparator(valueComparator);
+        this.sortedNodes = new TreeSet<>(new Comparator<Node<K, V>>() {
+            @Override
+            public int compare(final Node<K, V> n1, final Node<K, V> n2) {
+                final int c = entryComparator.compare(n1, n2);
+                return c != 0 ? c : compareSequence(n1.sequence, n2.sequence);
+            }
+        });
+    }
+
+    /**
+     * Creates a map with the entries of the specified map, that is sorted by
+     * the natural order of the values.
+     *
+     * @param map the entries
+     */
+    public ValueSortedMap(final Map<? extends K, ? extends V> map) {
+        this(map, null);
+    }
+
+    /**
+     * Creates a map with the entries of the specified map, that is sorted with
+     * the specified value comparator.
+     *
+     * @param map             the entries
+     * @param valueComparator the value comparator (may be {@code null}, then the
+     *                        natural sort order of the values is used)
+     */
+    public ValueSortedMap(final Map<? extends K, ? extends V> map, final Comparator<? super V> valueComparator) {
+        this(valueComparator);
+        putAll(map);
+    }
+
+    private static int compareSequence(final long s1, final long s2) {
+        return s1 < s2 ? -1 : (s1 == s2 ? 0 : 1);
+    }
+
+    /**
+     * Returns the value comparator.
+     *
+     * @return the value comparator or {@code null}, if the natural sort order of
+     * the values is used
+     */
+    public Comparator<? super V> getValueComparator() {
+        return valueComparator;
+    }
+
+    /**
+     * Returns the entry with the lowest value.
+     *
+     * @return the first entry or {@code null}, if the map is empty
+     */
+    public Entry<K, V> firstEntry() {
+        return sortedNodes.isEmpty() ? null : sortedNodes.first();
+    }
+
+    /**
+     * Returns the entry with the highest value.
+     *
+     * @return the last entry or {@code null}, if the map is empty
+     */
+    public Entry<K, V> lastEntry() {
+        return sortedNodes.isEmpty() ? null : sortedNodes.last();
+    }
+
+    /**
+     * Returns an iterator over the entries from the highest to the lowest
+     * value.
+     *
+     * @return the descending iterator
+     */
+    public Iterator<Entry<K, V>> descendingIterator() {
+        return new EntryIterator(sortedNodes.descendingIterator());
+    }
+
+    @Override
+    public int size() {
+        return nodes.size();
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return nodes.containsKey(key);
+    }
+
+    @Override
+    public V get(final Object key) {
+        final Node<K, V> node = nodes.get(key);
+        return node == null ? null : node.value;
+    }
+
+    @Override
+    public V put(final K key, final V value) {
+        final Node<K, V> node = nodes.get(key);
+        if (node == null) {
+            final Node<K, V> newNode = new Node<>(key, value, sequence++);
+            sortedNodes.add(newNode);
+            nodes.put(key, newNode);
+            return null;
+        }
+        final V oldValue = node.value;
+        removeSorted(node);
+        node.value = value;
+        try {
+            sortedNodes.add(node);
+        } catch (RuntimeException e) {
+            // the value cannot be compared, so the old entry is restored
+            node.value = oldValue;
+            sortedNodes.add(node);
+            throw e;
+        }
+        return oldValue;
+    }
+
+    @Override
+    public V remove(final Object key) {
+        final Node<K, V> node = nodes.remove(key);
+        if (node == null) {
+            return null;
+        }
+        removeSorted(node);
+        return node.value;
+    }
+
+    /**
+     * Removes the node from the sorted nodes. If the node cannot be found by
+     * it's order, because it's value has been changed in a way, that changes
+     * the order, it is searched by identity, so the map stays consistent.
+     *
+     * @param node the node
+     * @throws IllegalStateException if the node is not in the sorted nodes
+     */
+    private void removeSorted(final Node<K, V> node) {
+        if (sortedNodes.remove(node)) {
+            return;
+        }
+        final Iterator<Node<K, V>> iterator = sortedNodes.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next() == node) {
+                iterator.remove();
+                return;
+            }
+        }
+        throw new IllegalStateException("Entry of key " + node.getKey() + " is missing in the sorted entries.");
+    }
+
+    @Override
+    public void clear() {
+        nodes.clear();
+        sortedNodes.clear();
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    /**
+     * An entry of this map.
+     */
+    private static class Node<K, V> implements Entry<K, V> {
+
+        private final K key;
+
+        private final long sequence;
+
+        private V value;
+
+        Node(final K key, final V value, final long sequence) {
+            this.key = key;
+            this.value = value;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public V setValue(final V value) {
+            throw new UnsupportedOperationException("The value must be changed with put(key, value).");
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            final Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+            return eq(key, e.getKey()) && eq(value, e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return (key == null ? 0 : key.hashCode()) ^ (value == null ? 0 : value.hashCode());
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+
+        private static boolean eq(final Object o1, final Object o2) {
+            return o1 == null ? o2 == null : o1.equals(o2);
+        }
+    }
+
+    /**
+     * The entries of this map in the order of the values.
+     */
+    private class EntrySet extends AbstractSet<Entry<K, V>> {
+
+        @Override
+        public Iterator<Entry<K, V>> iterator() {
+            return new EntryIterator(sortedNodes.iterator());
+        }
+
+        @Override
+        public int size() {
+            return nodes.size();
+        }
+
+        @Override
+        public boolean contains(final Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            final Node<K, V> node = nodes.get(((Map.Entry<?, ?>) o).getKey());
+            return node != null && node.equals(o);
+        }
+
+        @Override
+        public boolean remove(final Object o) {
+            if (!contains(o)) {
+                return false;
+            }
+            ValueSortedMap.this.remove(((Map.Entry<?, ?>) o).getKey());
+            return true;
+        }
+
+        @Override
+        public void clear() {
+            ValueSortedMap.this.clear();
+        }
+    }
+
+    /**
+     * An iterator over the entries, that supports removing.
+     */
+    private class EntryIterator implements Iterator<Entry<K, V>> {
+
+        private final Iterator<Node<K, V>> iterator;
+
+        private Node<K, V> current;
+
+        EntryIterator(final Iterator<Node<K, V>> iterator) {
+            this.iterator = iterator;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            current = iterator.next();
+            return current;
+        }
+
+        @Override
+        public void remove() {
+            if (current == null) {
+                throw new IllegalStateException();
+            }
+            iterator.remove();
+            nodes.remove(current.getKey());
+            current = null;
+        }
+    }
+
+}
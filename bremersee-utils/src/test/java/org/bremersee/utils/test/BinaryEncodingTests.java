@@ -0,0 +1,116 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.utils.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import org.bremersee.utils.BinaryEncoding;
+import org.bremersee.utils.CodingUtils;
+import org.bremersee.utils.DecodingInputStream;
+import org.bremersee.utils.EncodingOutputStream;
+import org.bremersee.utils.IORuntimeException;
+import org.bremersee.utils.IoUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Christian Bremer
+ */
+public class BinaryEncodingTests {
+
+    private static final String[] SOURCES = {"", "f", "fo", "foo", "foob", "fooba", "foobar"};
+
+    private static String encode(final byte[] bytes, final BinaryEncoding encoding, final int lineLength) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        IoUtils.copySilently(new ByteArrayInputStream(bytes), new EncodingOutputStream(out, encoding, lineLength),
+                true);
+        return CodingUtils.toStringSilently(out.toByteArray(), "US-ASCII");
+    }
+
+    private static byte[] decode(final String text, final BinaryEncoding encoding) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        IoUtils.copySilently(new DecodingInputStream(new ByteArrayInputStream(
+                CodingUtils.toBytesSilently(text, "US-ASCII")), encoding), out, true);
+        return out.toByteArray();
+    }
+
+    private static void assertEncoding(final BinaryEncoding encoding, final String... expected) {
+        for (int i = 0; i < SOURCES.length; i++) {
+            final byte[] bytes = CodingUtils.toBytesSilently(SOURCES[i], "US-ASCII");
+            Assert.assertEquals(expected[i], encode(bytes, encoding, 0));
+            Assert.assertArrayEquals(bytes, decode(expected[i], encoding));
+        }
+    }
+
+    @Test
+    public void testVectors() {
+
+        System.out.println("Testing encoding test vectors of RFC 4648 ...");
+        assertEncoding(BinaryEncoding.BASE64, "", "Zg==", "Zm8=", "Zm9v", "Zm9vYg==", "Zm9vYmE=", "Zm9vYmFy");
+        assertEncoding(BinaryEncoding.BASE32, "", "MY======", "MZXQ====", "MZXW6===", "MZXW6YQ=", "MZXW6YTB",
+                "MZXW6YTBOI======");
+        assertEncoding(BinaryEncoding.HEX, "", "66", "666f", "666f6f", "666f6f62", "666f6f6261", "666f6f626172");
+
+        Assert.assertEquals("-_8=", encode(new byte[]{-5, -1}, BinaryEncoding.BASE64_URL, 0));
+        Assert.assertArrayEquals(new byte[]{-5, -1}, decode("-_8", BinaryEncoding.BASE64_URL));
+        Assert.assertArrayEquals(new byte[]{-85}, decode("AB", BinaryEncoding.HEX));
+        System.out.println("OK");
+    }
+
+    @Test
+    public void testRoundTrip() {
+
+        System.out.println("Testing encoding round trip ...");
+        final byte[] bytes = new byte[100003];
+        new Random(7L).nextBytes(bytes);
+        for (final BinaryEncoding encoding : BinaryEncoding.values()) {
+            Assert.assertArrayEquals(bytes, decode(encode(bytes, encoding, 0), encoding));
+            final String lines = encode(bytes, encoding, 76);
+            Assert.assertEquals(78, lines.indexOf("\r\n", 77) - lines.indexOf("\r\n"));
+            Assert.assertArrayEquals(bytes, decode(lines, encoding));
+        }
+        System.out.println("OK");
+    }
+
+    @Test
+    public void testIllegalData() throws IOException {
+
+        System.out.println("Testing decoding illegal data ...");
+        for (final String illegal : new String[]{"Zg=a", "Z", "Zm9v!"}) {
+            try {
+                decode(illegal, BinaryEncoding.BASE64);
+                Assert.fail("Illegal data '" + illegal + "' must not be decoded.");
+            } catch (IORuntimeException e) {
+                // expected
+            }
+        }
+
+        final EncodingOutputStream out = new EncodingOutputStream(new ByteArrayOutputStream(), BinaryEncoding.HEX);
+        out.finish();
+        try {
+            out.write(1);
+            Assert.fail("Finished stream must not accept data.");
+        } catch (IOException e) {
+            // expected
+        }
+        System.out.println("OK");
+    }
+
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.utils.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.bremersee.utils.BufferPool;
+import org.bremersee.utils.IoUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Christian Bremer
+ */
+public class BufferPoolTests {
+
+    @Test
+    public void testAcquireAndRelease() {
+
+        System.out.println("Testing buffer pool ...");
+        final BufferPool pool = new BufferPool(1000, 10000);
+        Assert.assertEquals(1024, pool.getMinSize());
+        Assert.assertEquals(16384, pool.getMaxSize());
+
+        final byte[] bytes = pool.acquireBytes(0L);
+        Assert.assertEquals(1024, bytes.length);
+        pool.releaseBytes(bytes);
+        Assert.assertSame(bytes, pool.acquireBytes(1L));
+        Assert.assertEquals(4096, pool.acquireBytes(3000L).length);
+        Assert.assertEquals(16384, pool.acquireBytes(Long.MAX_VALUE).length);
+
+        final char[] chars = pool.acquireChars(2048L);
+        Assert.assertEquals(2048, chars.length);
+        pool.releaseChars(chars);
+        Assert.assertSame(chars, pool.acquireChars(2048L));
+
+        // foreign buffers are not pooled
+        final byte[] foreign = new byte[3000];
+        pool.releaseBytes(foreign);
+        Assert.assertNotSame(foreign, pool.acquireBytes(3000L));
+
+        System.out.println("OK");
+    }
+
+    @Test
+    public void testGrow() {
+
+        System.out.println("Testing growing buffers ...");
+        final BufferPool pool = new BufferPool(1024, 4096);
+        byte[] bytes = pool.acquireBytes(0L);
+        Assert.assertSame(bytes, pool.growBytes(bytes, 1024L));
+        bytes = pool.growBytes(bytes, 8192L);
+        Assert.assertEquals(2048, bytes.length);
+        bytes = pool.growBytes(bytes, 1000000L);
+        Assert.assertEquals(4096, bytes.length);
+        Assert.assertSame(bytes, pool.growBytes(bytes, Long.MAX_VALUE));
+
+        char[] chars = pool.acquireChars(0L);
+        chars = pool.growChars(chars, 8192L);
+        Assert.assertEquals(2048, chars.length);
+
+        ByteBuffer direct = pool.acquireDirect(0L);
+        Assert.assertTrue(direct.isDirect());
+        Assert.assertEquals(1024, direct.capacity());
+        direct = pool.growDirect(direct, 8192L);
+        Assert.assertEquals(2048, direct.capacity());
+        direct.put((byte) 1);
+        pool.releaseDirect(direct);
+        final ByteBuffer reused = pool.acquireDirect(2048L);
+        Assert.assertSame(direct, reused);
+        Assert.assertEquals(0, reused.position());
+        pool.releaseDirect(ByteBuffer.allocate(2048));
+        Assert.assertTrue(pool.acquireDirect(2048L).isDirect());
+
+        final byte[] data = new byte[3 * 1024 * 1024 + 17];
+        new Random(1L).nextBytes(data);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final long len = IoUtils.copySilently(new ByteArrayInputStream(data), out, true);
+        Assert.assertEquals(data.length, len);
+        Assert.assertArrayEquals(data, out.toByteArray());
+
+        System.out.println("OK");
+    }
+
+    @Test
+    public void testKeepOnlyLargestBuffer() {
+
+        System.out.println("Testing buffer pool keeps only the largest buffer ...");
+        final BufferPool pool = new BufferPool(1024, 8192, 2048);
+        final byte[] small = pool.acquireBytes(0L);
+        final byte[] large = pool.acquireBytes(8192L);
+        pool.releaseBytes(large);
+        pool.releaseBytes(small);
+        // the smaller buffer is dropped, the larger one serves smaller requests, too
+        Assert.assertSame(large, pool.acquireBytes(0L));
+        Assert.assertNotSame(small, pool.acquireBytes(0L));
+
+        final char[] chars = pool.acquireChars(4096L);
+        pool.releaseChars(pool.acquireChars(0L));
+        pool.releaseChars(chars);
+        Assert.assertSame(chars, pool.acquireChars(1024L));
+
+        // direct buffers are only kept up to their size limit
+        final ByteBuffer direct = pool.acquireDirect(2048L);
+        pool.releaseDirect(direct);
+        Assert.assertSame(direct, pool.acquireDirect(0L));
+        final ByteBuffer largeDirect = pool.acquireDirect(4096L);
+        pool.releaseDirect(largeDirect);
+        Assert.assertNotSame(largeDirect, pool.acquireDirect(4096L));
+
+        System.out.println("OK");
+    }
+
+}
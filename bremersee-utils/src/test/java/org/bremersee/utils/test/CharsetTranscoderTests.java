@@ -0,0 +1,137 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.bremersee.utils.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+
+import org.bremersee.utils.CharsetTranscoder;
+import org.bremersee.utils.IoUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Christian Bremer
+ */
+public class CharsetTranscoderTests {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+
+    private static final Charset UTF_16 = Charset.forName("UTF-16BE");
+
+    private static String createCsv() {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            sb.append(i).append(";Müller;Straße ").append(i % 100).append(";Köln\r\n");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns a stream, that reads only one byte at once, so that multibyte
+     * sequences are split between reads.
+     */
+    private static InputStream trickle(final byte[] bytes) {
+        return new FilterInputStream(new ByteArrayInputStream(bytes)) {
+            @Override
+            public int read(final byte[] b, final int off, final int len) throws IOException {
+                return super.read(b, off, Math.min(len, 1));
+            }
+        };
+    }
+
+    private static byte[] transcode(final CharsetTranscoder transcoder, final InputStream in) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final long len = transcoder.transcode(in, out, null);
+        Assert.assertEquals(out.size(), len);
+        return out.toByteArray();
+    }
+
+    @Test
+    public void testTranscode() throws Exception {
+
+        System.out.println("Testing transcoding ...");
+        final String csv = createCsv();
+
+        final CharsetTranscoder toLatin1 = new CharsetTranscoder(UTF_8, ISO_8859_1);
+        Assert.assertTrue(toLatin1.isAsciiFastPath());
+        Assert.assertArrayEquals(csv.getBytes(ISO_8859_1),
+                transcode(toLatin1, new ByteArrayInputStream(csv.getBytes(UTF_8))));
+        // the transcoder can be reused
+        Assert.assertArrayEquals(csv.getBytes(ISO_8859_1),
+                transcode(toLatin1, new ByteArrayInputStream(csv.getBytes(UTF_8))));
+
+        final CharsetTranscoder toUtf8 = new CharsetTranscoder(ISO_8859_1, UTF_8);
+        Assert.assertArrayEquals(csv.getBytes(UTF_8),
+                transcode(toUtf8, new ByteArrayInputStream(csv.getBytes(ISO_8859_1))));
+
+        final CharsetTranscoder toUtf16 = new CharsetTranscoder(UTF_8, UTF_16);
+        Assert.assertFalse(toUtf16.isAsciiFastPath());
+        Assert.assertArrayEquals(csv.getBytes(UTF_16),
+                transcode(toUtf16, new ByteArrayInputStream(csv.getBytes(UTF_8))));
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        IoUtils.transcodeSilently(new ByteArrayInputStream(csv.getBytes(UTF_16)), UTF_16, out, UTF_8, true, null);
+        Assert.assertArrayEquals(csv.getBytes(UTF_8), out.toByteArray());
+
+        System.out.println("OK");
+    }
+
+    @Test
+    public void testSplitSequences() throws Exception {
+
+        System.out.println("Testing transcoding of split sequences ...");
+        final String text = "aäb€😀c üß";
+        Assert.assertArrayEquals(text.getBytes(UTF_16),
+                transcode(new CharsetTranscoder(UTF_8, UTF_16), trickle(text.getBytes(UTF_8))));
+        Assert.assertArrayEquals(text.getBytes(UTF_8),
+                transcode(new CharsetTranscoder(UTF_8, UTF_8), trickle(text.getBytes(UTF_8))));
+
+        System.out.println("OK");
+    }
+
+    @Test
+    public void testMalformedInput() throws Exception {
+
+        System.out.println("Testing transcoding of malformed input ...");
+        // an incomplete sequence before an ASCII byte and at the end
+        final byte[] malformed = {'a', (byte) 0xc3, 'b', (byte) 0xe2, (byte) 0x82};
+        final byte[] replaced = transcode(new CharsetTranscoder(UTF_8, ISO_8859_1),
+                new ByteArrayInputStream(malformed));
+        Assert.assertEquals("a?b?", new String(replaced, ISO_8859_1));
+
+        try {
+            transcode(new CharsetTranscoder(UTF_8, ISO_8859_1, CodingErrorAction.REPORT),
+                    new ByteArrayInputStream(malformed));
+            Assert.fail("Malformed input was not reported.");
+        } catch (CharacterCodingException e) {
+            // expected
+        }
+
+        System.out.println("OK");
+    }
+
+}
@@ -17,19 +17,36 @@
 package org.bremersee.utils.test;
 
 import junit.framework.TestCase;
+import org.bremersee.utils.CodingException;
 import org.bremersee.utils.CodingUtils;
+import org.junit.Assert;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
 import java.security.MessageDigest;
 import java.security.Provider;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
 
 /**
  * @author Christian Bremer
  */
 public class CodingUtilsTests {
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     @Test
     public void testMessageDigest() {
         MessageDigest md = CodingUtils.getMessageDigestSilently("SHA");
@@ -46,6 +63,48 @@ public class CodingUtilsTests {
         TestCase.assertNotNull(md);
     }
     
+    @Test
+    public void testThreadLocalMessageDigest() throws Exception {
+
+        System.out.println("Testing thread local message digests ...");
+
+        TestCase.assertNotSame(CodingUtils.getMessageDigestSilently("SHA-256"),
+                CodingUtils.getMessageDigestSilently("SHA-256"));
+
+        final MessageDigest md = CodingUtils.getThreadLocalMessageDigestSilently("SHA-256");
+        md.update((byte) 1);
+        TestCase.assertSame(md, CodingUtils.getThreadLocalMessageDigestSilently("SHA-256"));
+        TestCase.assertSame(md, CodingUtils.getThreadLocalMessageDigestSilently("SHA-256", ""));
+        TestCase.assertNotSame(md, CodingUtils.getThreadLocalMessageDigestSilently("SHA-256", "SUN"));
+
+        final byte[] bytes = "Hello world".getBytes("UTF-8");
+        final byte[] expected = MessageDigest.getInstance("SHA-256").digest(bytes);
+        // the thread local message digest is reset before it is returned
+        Assert.assertArrayEquals(expected, CodingUtils.digestSilently("SHA-256", bytes));
+        Assert.assertArrayEquals(expected, CodingUtils.digestSilently("SHA-256", "SUN", bytes));
+
+        final MessageDigest[] other = new MessageDigest[1];
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                other[0] = CodingUtils.getThreadLocalMessageDigestSilently("SHA-256");
+            }
+        });
+        thread.start();
+        thread.join();
+        TestCase.assertNotNull(other[0]);
+        TestCase.assertNotSame(md, other[0]);
+
+        try {
+            CodingUtils.digestSilently("NO-SUCH-ALGORITHM", bytes);
+            Assert.fail("Unknown algorithm must fail.");
+        } catch (CodingException e) {
+            // expected
+        }
+
+        System.out.println("OK");
+    }
+
     @Test
     public void testDigest() {
         
@@ -79,6 +138,127 @@ public class CodingUtilsTests {
         System.out.println("OK");
     }
 
+    @Test
+    public void testDigestFile() throws Exception {
+
+        System.out.println("Testing file hash ...");
+
+        final byte[] bytes = new byte[1024 * 1024 + 11];
+        new Random(11L).nextBytes(bytes);
+        final File file = folder.newFile();
+        Files.write(file.toPath(), bytes);
+
+        Assert.assertArrayEquals(MessageDigest.getInstance("SHA-256").digest(bytes),
+                CodingUtils.digestFileSilently(file.toPath(), "SHA-256"));
+        Assert.assertArrayEquals(MessageDigest.getInstance("MD5").digest(new byte[0]),
+                CodingUtils.digestFileSilently(folder.newFile().toPath(), "MD5"));
+
+        System.out.println("OK");
+    }
+
+    @Test
+    public void testDigestChannel() throws Exception {
+
+        System.out.println("Testing channel and buffer hash ...");
+
+        final byte[] bytes = new byte[300000];
+        new Random(14L).nextBytes(bytes);
+        final byte[] expected = MessageDigest.getInstance("SHA-256").digest(bytes);
+        final MessageDigest md = CodingUtils.getMessageDigestSilently("SHA-256");
+
+        final ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+        Assert.assertArrayEquals(expected, CodingUtils.digestSilently(md, direct));
+        Assert.assertFalse(direct.hasRemaining());
+
+        Assert.assertArrayEquals(expected, CodingUtils.digestSilently(md,
+                Channels.newChannel(new ByteArrayInputStream(bytes)), true, null));
+
+        // a file channel is hashed from it's current position
+        final File file = folder.newFile();
+        Files.write(file.toPath(), bytes);
+        try (FileChannel channel = FileChannel.open(file.toPath())) {
+            channel.position(100L);
+            Assert.assertArrayEquals(
+                    MessageDigest.getInstance("SHA-256").digest(Arrays.copyOfRange(bytes, 100, bytes.length)),
+                    CodingUtils.digestSilently(md, channel, false, null));
+            Assert.assertEquals(bytes.length, channel.position());
+        }
+
+        System.out.println("OK");
+    }
+
+    @Test
+    public void testDigestAll() throws Exception {
+
+        System.out.println("Testing multiple hashes ...");
+
+        final byte[] bytes = new byte[2 * 1024 * 1024 + 3];
+        new Random(4L).nextBytes(bytes);
+
+        final Map<String, byte[]> hashes = CodingUtils.digestAllSilently(new ByteArrayInputStream(bytes), true,
+                "MD5", "SHA-1", "SHA-256");
+        TestCase.assertEquals(3, hashes.size());
+        for (final Map.Entry<String, byte[]> entry : hashes.entrySet()) {
+            Assert.assertArrayEquals(MessageDigest.getInstance(entry.getKey()).digest(bytes), entry.getValue());
+        }
+
+        final ByteArrayInputStreamListener listener = new ByteArrayInputStreamListener();
+        final byte[][] single = CodingUtils.digestAllSilently(
+                new MessageDigest[]{MessageDigest.getInstance("SHA-512")},
+                new ByteArrayInputStream(bytes), true, listener);
+        Assert.assertArrayEquals(MessageDigest.getInstance("SHA-512").digest(bytes), single[0]);
+        Assert.assertArrayEquals(bytes, listener.getBytes());
+
+        System.out.println("OK");
+    }
+
+    @Test
+    public void testTreeDigest() throws Exception {
+
+        System.out.println("Testing tree hash ...");
+
+        final byte[] bytes = new byte[3000];
+        new Random(5L).nextBytes(bytes);
+        final File file = folder.newFile();
+        Files.write(file.toPath(), bytes);
+
+        // three segments: ((leaf0, leaf1), leaf2)
+        final MessageDigest md = MessageDigest.getInstance("SHA-256");
+        md.update((byte) 0);
+        md.update(bytes, 0, 1024);
+        final byte[] leaf0 = md.digest();
+        md.update((byte) 0);
+        md.update(bytes, 1024, 1024);
+        final byte[] leaf1 = md.digest();
+        md.update((byte) 0);
+        md.update(bytes, 2048, bytes.length - 2048);
+        final byte[] leaf2 = md.digest();
+        md.update((byte) 1);
+        md.update(leaf0);
+        md.update(leaf1);
+        final byte[] node = md.digest();
+        md.update((byte) 1);
+        md.update(node);
+        md.update(leaf2);
+        final byte[] expected = md.digest();
+
+        Assert.assertArrayEquals(expected, CodingUtils.treeDigestSequentiallySilently(file.toPath(), "SHA-256", 1024));
+        Assert.assertArrayEquals(expected, CodingUtils.treeDigestSilently(file.toPath(), "SHA-256", 1024, null));
+
+        for (final int segmentSize : new int[]{1, 7, 100, 2999, 3000, 3001}) {
+            Assert.assertArrayEquals(
+                    CodingUtils.treeDigestSequentiallySilently(file.toPath(), "SHA-1", segmentSize),
+                    CodingUtils.treeDigestSilently(file.toPath(), "SHA-1", segmentSize, null));
+        }
+
+        final File empty = folder.newFile();
+        md.update((byte) 0);
+        Assert.assertArrayEquals(md.digest(), CodingUtils.treeDigestSilently(empty.toPath(), "SHA-256"));
+
+        System.out.println("OK");
+    }
+
     @Test
     public void testToHex() {
 
@@ -87,11 +267,51 @@ public class CodingUtilsTests {
         final String source = "Hello world";
         final String hex = CodingUtils.toHex(source.getBytes(), true);
         TestCase.assertNotNull(hex);
+        TestCase.assertEquals("48656C6C6F20776F726C64", hex);
+        TestCase.assertEquals("00ff7f80", CodingUtils.toHex(new byte[]{0, -1, 127, -128}));
+        TestCase.assertNull(CodingUtils.toHex(null));
+
+        final char[] chars = new char[6];
+        TestCase.assertEquals(4, CodingUtils.toHex(new byte[]{1, -85, 2}, 1, 2, false, chars, 1));
+        TestCase.assertEquals("ab02", new String(chars, 1, 4));
+
+        TestCase.assertEquals("x00FF", CodingUtils.appendHex(new byte[]{0, -1}, true, new StringBuilder("x"))
+                .toString());
+        final CharBuffer charBuffer = CharBuffer.allocate(4);
+        CodingUtils.appendHex(new byte[]{16, 32}, false, charBuffer);
+        charBuffer.flip();
+        TestCase.assertEquals("1020", charBuffer.toString());
 
         System.out.println("Hex of '" + source + "': " + hex);
         System.out.println("OK");
     }
 
+    @Test
+    public void testFromHex() {
+
+        System.out.println("Testing from hex ...");
+
+        final byte[] bytes = new byte[256];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+        Assert.assertArrayEquals(bytes, CodingUtils.fromHex(CodingUtils.toHex(bytes)));
+        Assert.assertArrayEquals(bytes, CodingUtils.fromHex(CodingUtils.toHex(bytes, true)));
+        Assert.assertArrayEquals(new byte[0], CodingUtils.fromHex(""));
+        TestCase.assertNull(CodingUtils.fromHex(null));
+
+        for (final String invalid : new String[]{"abc", "0g", "\u00e40"}) {
+            try {
+                CodingUtils.fromHex(invalid);
+                Assert.fail("Invalid hex '" + invalid + "' must not be decoded.");
+            } catch (CodingException e) {
+                // expected
+            }
+        }
+
+        System.out.println("OK");
+    }
+
     @Test
     public void testToBytes() {
 
@@ -110,4 +330,75 @@ public class CodingUtilsTests {
         System.out.println("OK");
     }
 
+    @Test
+    public void testGetCharset() {
+
+        System.out.println("Testing charset lookup ...");
+
+        final Charset utf8 = Charset.forName("UTF-8");
+        TestCase.assertEquals(utf8, CodingUtils.getCharsetSilently("UTF-8"));
+        TestCase.assertEquals(utf8, CodingUtils.getCharsetSilently("utf8"));
+        TestCase.assertEquals(Charset.forName("ISO-8859-1"), CodingUtils.getCharsetSilently("latin1"));
+        TestCase.assertEquals(Charset.defaultCharset(), CodingUtils.getCharsetSilently(" "));
+        for (int i = 0; i < 2; i++) {
+            // the second lookup is answered by the cache
+            try {
+                CodingUtils.getCharsetSilently("no-such-charset");
+                Assert.fail("Unsupported charset was found.");
+            } catch (CodingException e) {
+                TestCase.assertTrue(e.getMessage().contains("no-such-charset"));
+            }
+        }
+        try {
+            CodingUtils.toBytesSilently("text", "illegal name!");
+            Assert.fail("Illegal charset name was accepted.");
+        } catch (CodingException e) {
+            // expected
+        }
+
+        System.out.println("OK");
+    }
+
+    @Test
+    public void testToBytesIntoBuffer() {
+
+        System.out.println("Testing to bytes into a buffer ...");
+
+        final Charset utf8 = Charset.forName("UTF-8");
+        final byte[] dst = new byte[32];
+        int len = CodingUtils.toBytesSilently("Hello", utf8, dst, 2);
+        TestCase.assertEquals(5, len);
+        TestCase.assertEquals("Hello", new String(dst, 2, len, utf8));
+
+        final String text = "Grüße € 😀";
+        len = CodingUtils.toBytesSilently(text, utf8, dst, 0);
+        Assert.assertArrayEquals(text.getBytes(utf8), Arrays.copyOf(dst, len));
+
+        final ByteBuffer utf16 = ByteBuffer.allocateDirect(64);
+        len = CodingUtils.toBytesSilently(text, Charset.forName("UTF-16BE"), utf16);
+        TestCase.assertEquals(text.length() * 2, len);
+
+        final ByteBuffer small = ByteBuffer.allocate(4);
+        try {
+            CodingUtils.toBytesSilently("Hello", utf8, small);
+            Assert.fail("Buffer overflow was not detected.");
+        } catch (BufferOverflowException e) {
+            TestCase.assertEquals(0, small.position());
+        }
+
+        final char[] chars = new char[32];
+        final byte[] bytes = text.getBytes(utf8);
+        len = CodingUtils.toCharsSilently(bytes, 0, bytes.length, utf8, chars, 1);
+        TestCase.assertEquals(text, new String(chars, 1, len));
+
+        try {
+            CodingUtils.toCharsSilently(bytes, 0, bytes.length, utf8, new char[3], 0);
+            Assert.fail("Buffer overflow was not detected.");
+        } catch (BufferOverflowException e) {
+            // expected
+        }
+
+        System.out.println("OK");
+    }
+
 }
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.utils.test;
+
+import java.io.ByteArrayInputStream;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.bremersee.utils.CodingException;
+import org.bremersee.utils.CodingUtils;
+import org.bremersee.utils.DigestSession;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Christian Bremer
+ */
+public class DigestSessionTests {
+
+    @Test
+    public void testAgainstMessageDigest() throws Exception {
+
+        System.out.println("Testing digest session against message digest ...");
+        final Random random = new Random(9L);
+        for (final String algorithm : new String[]{"SHA-224", "SHA-256", "SHA-384", "SHA-512"}) {
+            for (final int len : new int[]{0, 1, 55, 56, 63, 64, 65, 111, 112, 127, 128, 129, 1000, 100000}) {
+                final byte[] bytes = new byte[len];
+                random.nextBytes(bytes);
+                final byte[] expected = MessageDigest.getInstance(algorithm).digest(bytes);
+                Assert.assertArrayEquals(algorithm + " of " + len + " bytes",
+                        expected, DigestSession.start(algorithm).update(bytes).digest());
+            }
+        }
+
+        final byte[] abc = "abc".getBytes("US-ASCII");
+        Assert.assertEquals("4634270f707b6a54daae7530460842e20e37ed265ceee9a43e8924aa",
+                CodingUtils.toHex(DigestSession.start("SHA-512/224").update(abc).digest()));
+        Assert.assertEquals("53048e2681941ef99b2e29b76b4c7dabe4c2d0c634fc6d46e0e2f13107e7af23",
+                CodingUtils.toHex(DigestSession.start("SHA-512/256").update(abc).digest()));
+        System.out.println("OK");
+    }
+
+    @Test
+    public void testCheckpoints() throws Exception {
+
+        System.out.println("Testing digest session checkpoints ...");
+        final byte[] bytes = new byte[10000];
+        new Random(10L).nextBytes(bytes);
+        for (final String algorithm : DigestSession.getSupportedAlgorithms()) {
+            DigestSession session = DigestSession.start(algorithm);
+            int offset = 0;
+            for (final int chunk : new int[]{1, 63, 200, 3, 4096, 5637}) {
+                session.update(bytes, offset, chunk);
+                offset = offset + chunk;
+                final byte[] checkpoint = session.checkpoint();
+                session = DigestSession.resume(checkpoint);
+                Assert.assertEquals(offset, session.getLength());
+                Assert.assertArrayEquals(checkpoint, session.checkpoint());
+            }
+            Assert.assertEquals(bytes.length, offset);
+            final DigestSession whole = DigestSession.start(algorithm);
+            Assert.assertEquals(bytes.length, whole.updateSilently(new ByteArrayInputStream(bytes), true, null));
+            Assert.assertArrayEquals(whole.digest(), session.digest());
+            // digest doesn't change the session
+            Assert.assertArrayEquals(whole.digest(), session.digest());
+        }
+        Assert.assertEquals("SHA-256", DigestSession.start("sha256").getAlgorithm());
+        System.out.println("OK");
+    }
+
+    @Test
+    public void testInvalidCheckpoints() {
+
+        System.out.println("Testing invalid digest session checkpoints ...");
+        final byte[] checkpoint = DigestSession.start("SHA-256").update(new byte[70]).checkpoint();
+        final byte[][] invalids = {
+                new byte[0],
+                Arrays.copyOf(checkpoint, checkpoint.length - 1),
+                Arrays.copyOf(checkpoint, checkpoint.length + 1),
+                DigestSession.start("SHA-256").checkpoint().clone()
+        };
+        invalids[3][0] = 0;
+        for (final byte[] invalid : invalids) {
+            try {
+                DigestSession.resume(invalid);
+                Assert.fail("Invalid checkpoint must not be resumed.");
+            } catch (CodingException e) {
+                // expected
+            }
+        }
+        try {
+            DigestSession.start("MD5");
+            Assert.fail("MD5 is not supported.");
+        } catch (CodingException e) {
+            // expected
+        }
+        System.out.println("OK");
+    }
+
+}
@@ -18,20 +18,66 @@ package org.bremersee.utils.test;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.CompletionHandler;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
+import org.bremersee.utils.CodingException;
 import org.bremersee.utils.CodingUtils;
+import org.bremersee.utils.CopyResult;
+import org.bremersee.utils.DigestMismatchException;
+import org.bremersee.utils.IORuntimeException;
 import org.bremersee.utils.IoUtils;
 import org.bremersee.utils.ReaderListener;
+import org.bremersee.utils.TransferListener;
 import org.junit.Assert;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 /**
  * @author Christian Bremer
  */
 public class IoUtilsTests {
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static byte[] createRandomBytes(final int len) {
+        final byte[] bytes = new byte[len];
+        new Random(len).nextBytes(bytes);
+        return bytes;
+    }
+
+    private File createFile(final byte[] bytes) throws IOException {
+        final File file = folder.newFile();
+        Files.write(file.toPath(), bytes);
+        return file;
+    }
+
     @Test
     public void testCopyingBytes() {
         
@@ -76,5 +122,411 @@ public class IoUtilsTests {
 
         System.out.println("OK");
     }
-    
+
+    @Test
+    public void testTransferringFiles() throws IOException {
+
+        System.out.println("Testing transferring files ...");
+        final byte[] bytes = createRandomBytes(100000);
+        final File source = createFile(bytes);
+
+        final long[] transferred = new long[1];
+        final ByteArrayInputStreamListener bufferListener = new ByteArrayInputStreamListener();
+        final TransferListener listener = new TransferListener() {
+
+            @Override
+            public void onTransferredBytes(long len) {
+                transferred[0] = transferred[0] + len;
+            }
+
+            @Override
+            public void onReadBytes(byte[] buffer, int offset, int len) {
+                bufferListener.onReadBytes(buffer, offset, len);
+            }
+        };
+
+        File target = folder.newFile();
+        long len = IoUtils.copySilently(new FileInputStream(source), new FileOutputStream(target), true, listener);
+        Assert.assertEquals(bytes.length, len);
+        Assert.assertEquals(bytes.length, transferred[0]);
+        Assert.assertEquals(0, bufferListener.getBytes().length);
+        Assert.assertArrayEquals(bytes, Files.readAllBytes(target.toPath()));
+
+        // a plain listener needs the bytes, so they are copied through a buffer
+        final ByteArrayInputStreamListener plainListener = new ByteArrayInputStreamListener();
+        target = folder.newFile();
+        IoUtils.copySilently(new FileInputStream(source), new FileOutputStream(target), true, plainListener);
+        Assert.assertArrayEquals(bytes, plainListener.getBytes());
+        Assert.assertArrayEquals(bytes, Files.readAllBytes(target.toPath()));
+
+        // the current position of the source is respected
+        final FileInputStream in = new FileInputStream(source);
+        Assert.assertEquals(1000L, in.skip(1000L));
+        target = folder.newFile();
+        len = IoUtils.copySilently(in, new FileOutputStream(target), true);
+        Assert.assertEquals(bytes.length - 1000L, len);
+        Assert.assertEquals(bytes.length - 1000L, Files.size(target.toPath()));
+
+        System.out.println("OK");
+    }
+
+    @Test
+    public void testCopyingChannels() throws IOException {
+
+        System.out.println("Testing copying channels ...");
+        final byte[] bytes = createRandomBytes(50000);
+        final File source = createFile(bytes);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long len = IoUtils.copySilently(FileChannel.open(source.toPath()), Channels.newChannel(out), true, null);
+        Assert.assertEquals(bytes.length, len);
+        Assert.assertArrayEquals(bytes, out.toByteArray());
+
+        final File target = folder.newFile();
+        len = IoUtils.copySilently(Channels.newChannel(new ByteArrayInputStream(bytes)),
+                FileChannel.open(target.toPath(), StandardOpenOption.WRITE), true, null);
+        Assert.assertEquals(bytes.length, len);
+        Assert.assertArrayEquals(bytes, Files.readAllBytes(target.toPath()));
+
+        final ByteArrayInputStreamListener listener = new ByteArrayInputStreamListener();
+        out = new ByteArrayOutputStream();
+        IoUtils.copySilently(Channels.newChannel(new ByteArrayInputStream(bytes)), Channels.newChannel(out),
+                true, listener);
+        Assert.assertArrayEquals(bytes, out.toByteArray());
+        Assert.assertArrayEquals(bytes, listener.getBytes());
+
+        System.out.println("OK");
+    }
+
+    @Test
+    public void testCopyingDirectBuffers() throws IOException {
+
+        System.out.println("Testing copying direct buffers ...");
+        final byte[] bytes = createRandomBytes(70000);
+        final ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long len = IoUtils.copySilently(direct, Channels.newChannel(out), true);
+        Assert.assertEquals(bytes.length, len);
+        Assert.assertFalse(direct.hasRemaining());
+        Assert.assertArrayEquals(bytes, out.toByteArray());
+
+        final AtomicLong transferred = new AtomicLong();
+        final TransferListener listener = new TransferListener() {
+            @Override
+            public void onTransferredBytes(long len) {
+                transferred.addAndGet(len);
+            }
+
+            @Override
+            public void onReadBytes(byte[] buffer, int offset, int len) {
+                Assert.fail("Bytes must not be passed to a transfer listener.");
+            }
+        };
+        out = new ByteArrayOutputStream();
+        len = IoUtils.copySilently(Channels.newChannel(new ByteArrayInputStream(bytes)), Channels.newChannel(out),
+                true, listener);
+        Assert.assertEquals(bytes.length, len);
+        Assert.assertEquals(bytes.length, transferred.get());
+        Assert.assertArrayEquals(bytes, out.toByteArray());
+
+        System.out.println("OK");
+    }
+
+    @Test
+    public void testCopyingToAll() throws Exception {
+
+        System.out.println("Testing copying to several streams ...");
+        final byte[] bytes = createRandomBytes(1024 * 1024 + 7);
+        final ByteArrayOutputStream fast = new ByteArrayOutputStream();
+        final ByteArrayOutputStream slow = new ByteArrayOutputStream() {
+            @Override
+            public synchronized void write(byte[] b, int off, int len) {
+                try {
+                    Thread.sleep(1L);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.write(b, off, len);
+            }
+        };
+        final File file = folder.newFile();
+        final ByteArrayInputStreamListener listener = new ByteArrayInputStreamListener();
+        final long len = IoUtils.copyToAllSilently(new ByteArrayInputStream(bytes),
+                new OutputStream[]{fast, slow, new FileOutputStream(file)}, true, listener);
+        Assert.assertEquals(bytes.length, len);
+        Assert.assertArrayEquals(bytes, fast.toByteArray());
+        Assert.assertArrayEquals(bytes, slow.toByteArray());
+        Assert.assertArrayEquals(bytes, Files.readAllBytes(file.toPath()));
+        Assert.assertArrayEquals(bytes, listener.getBytes());
+
+        final ByteArrayOutputStream first = new ByteArrayOutputStream();
+        final ByteArrayOutputStream second = new ByteArrayOutputStream();
+        IoUtils.copyToAllSilently(Channels.newChannel(new ByteArrayInputStream(bytes)),
+                new WritableByteChannel[]{Channels.newChannel(first), Channels.newChannel(second)}, true, null);
+        Assert.assertArrayEquals(bytes, first.toByteArray());
+        Assert.assertArrayEquals(bytes, second.toByteArray());
+
+        // a failed copy doesn't flush the other output streams
+        final AtomicLong flushes = new AtomicLong();
+        final ByteArrayOutputStream other = new ByteArrayOutputStream() {
+            @Override
+            public void flush() {
+                flushes.incrementAndGet();
+            }
+        };
+        try {
+            IoUtils.copyToAllSilently(new ByteArrayInputStream(bytes), new OutputStream[]{other, new OutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    throw new IOException("Test");
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    throw new IOException("Test");
+                }
+            }}, true, null);
+            Assert.fail("Copy has not failed.");
+        } catch (IORuntimeException e) {
+            Assert.assertEquals("Test", e.getCause().getMessage());
+        }
+        Assert.assertEquals(0L, flushes.get());
+
+        System.out.println("OK");
+    }
+
+    @Test
+    public void testCopyingCompressed() throws Exception {
+
+        System.out.println("Testing copying compressed ...");
+        final StringBuilder sb = new StringBuilder();
+        final Random random = new Random(16L);
+        while (sb.length() < 3 * 1024 * 1024) {
+            sb.append("line ").append(random.nextInt(1000)).append('\n');
+        }
+        final byte[] text = sb.toString().getBytes("UTF-8");
+        final byte[] randomBytes = createRandomBytes(300000);
+
+        for (final byte[] bytes : new byte[][]{text, randomBytes, new byte[0], new byte[128 * 1024]}) {
+            final ByteArrayInputStreamListener listener = new ByteArrayInputStreamListener();
+            final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            final long len = IoUtils.copyCompressedSilently(new ByteArrayInputStream(bytes), compressed, true,
+                    listener);
+            Assert.assertEquals(bytes.length, len);
+            Assert.assertArrayEquals(bytes, listener.getBytes());
+
+            // the output is a standard gzip stream
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            IoUtils.copySilently(new GZIPInputStream(new ByteArrayInputStream(compressed.toByteArray())), out, true);
+            Assert.assertArrayEquals(bytes, out.toByteArray());
+
+            listener.reset();
+            final ByteArrayOutputStream decompressed = new ByteArrayOutputStream();
+            Assert.assertEquals(bytes.length, IoUtils.copyDecompressedSilently(
+                    new ByteArrayInputStream(compressed.toByteArray()), decompressed, true, listener));
+            Assert.assertArrayEquals(bytes, decompressed.toByteArray());
+            Assert.assertArrayEquals(bytes, listener.getBytes());
+        }
+
+        // the dictionaries keep the ratio close to a single stream
+        final ByteArrayOutputStream single = new ByteArrayOutputStream();
+        final GZIPOutputStream gzip = new GZIPOutputStream(single);
+        gzip.write(text);
+        gzip.close();
+        final ByteArrayOutputStream parallel = new ByteArrayOutputStream();
+        IoUtils.copyCompressedSilently(new ByteArrayInputStream(text), parallel, true, null);
+        Assert.assertTrue(parallel.size() < single.size() * 1.05d);
+
+        try {
+            IoUtils.copyDecompressedSilently(new ByteArrayInputStream(text), new ByteArrayOutputStream(), true, null);
+            Assert.fail("Plain text was decompressed.");
+        } catch (IORuntimeException e) {
+            // expected
+        }
+
+        System.out.println("OK");
+    }
+
+    @Test
+    public void testCopyingAsync() throws Exception {
+
+        System.out.println("Testing copying asynchronously ...");
+        final byte[] bytes = createRandomBytes(3 * 1024 * 1024 + 5);
+        final File source = createFile(bytes);
+        final File target = folder.newFile();
+
+        final AtomicLong completed = new AtomicLong(-1L);
+        final CountDownLatch latch = new CountDownLatch(1);
+        final CompletionHandler<Long, String> handler = new CompletionHandler<Long, String>() {
+            @Override
+            public void completed(Long result, String attachment) {
+                Assert.assertEquals("attachment", attachment);
+                completed.set(result);
+                latch.countDown();
+            }
+
+            @Override
+            public void failed(Throwable exc, String attachment) {
+                latch.countDown();
+            }
+        };
+
+        final ByteArrayInputStreamListener listener = new ByteArrayInputStreamListener();
+        Future<Long> future = IoUtils.copyAsync(source.toPath(), target.toPath(), listener, "attachment", handler);
+        Assert.assertEquals(Long.valueOf(bytes.length), future.get(10L, TimeUnit.SECONDS));
+        Assert.assertTrue(latch.await(10L, TimeUnit.SECONDS));
+        Assert.assertEquals(bytes.length, completed.get());
+        Assert.assertArrayEquals(bytes, listener.getBytes());
+        Assert.assertArrayEquals(bytes, Files.readAllBytes(target.toPath()));
+        Assert.assertFalse(future.cancel(true));
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        future = IoUtils.copyAsync(new ByteArrayInputStream(bytes), out, true, null, null, null, null);
+        Assert.assertEquals(Long.valueOf(bytes.length), future.get(10L, TimeUnit.SECONDS));
+        Assert.assertArrayEquals(bytes, out.toByteArray());
+
+        System.out.println("OK");
+    }
+
+    @Test
+    public void testCopyingVerified() throws IOException {
+
+        System.out.println("Testing copying verified ...");
+        final byte[] bytes = createRandomBytes(700000);
+        final byte[] sha256 = CodingUtils.digestSilently("SHA-256", bytes);
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final CopyResult result = IoUtils.copyAndDigestSilently(new ByteArrayInputStream(bytes), out, true, null,
+                "SHA-256", "MD5");
+        Assert.assertEquals(bytes.length, result.getLength());
+        Assert.assertArrayEquals(bytes, out.toByteArray());
+        Assert.assertArrayEquals(sha256, result.getDigest("SHA-256"));
+        Assert.assertArrayEquals(CodingUtils.digestSilently("MD5", bytes), result.getDigest("MD5"));
+        Assert.assertTrue(result.matches("SHA-256", sha256));
+
+        final File source = createFile(bytes);
+        final File target = new File(folder.getRoot(), "verified.bin");
+        for (final boolean atomicRename : new boolean[]{true, false}) {
+            Assert.assertTrue(!target.exists() || target.delete());
+            final CopyResult verified = IoUtils.copyVerifiedSilently(source.toPath(), target.toPath(), atomicRename,
+                    null, "SHA-256", sha256);
+            Assert.assertEquals(bytes.length, verified.getLength());
+            Assert.assertArrayEquals(bytes, Files.readAllBytes(target.toPath()));
+        }
+
+        // a mismatch neither replaces the existing file nor leaves a temporary file
+        final byte[] wrong = sha256.clone();
+        wrong[0] = (byte) ~wrong[0];
+        final byte[] other = createRandomBytes(1000);
+        try {
+            IoUtils.copyVerifiedSilently(new ByteArrayInputStream(other), true, target.toPath(), true, null,
+                    "SHA-256", wrong);
+            Assert.fail("Copy with wrong digest must fail.");
+        } catch (DigestMismatchException e) {
+            Assert.assertEquals("SHA-256", e.getAlgorithm());
+            Assert.assertArrayEquals(CodingUtils.digestSilently("SHA-256", other), e.getActualDigest());
+        }
+        Assert.assertArrayEquals(bytes, Files.readAllBytes(target.toPath()));
+        final String[] names = folder.getRoot().list();
+        Assert.assertNotNull(names);
+        for (final String name : names) {
+            Assert.assertFalse(name, name.startsWith(".verified.bin"));
+        }
+
+        // an unknown algorithm closes the streams
+        final AtomicLong closed = new AtomicLong();
+        try {
+            IoUtils.copyAndDigestSilently(new ByteArrayInputStream(bytes) {
+                @Override
+                public void close() {
+                    closed.incrementAndGet();
+                }
+            }, new ByteArrayOutputStream() {
+                @Override
+                public void close() {
+                    closed.incrementAndGet();
+                }
+            }, true, null, "SHA-256", "UNKNOWN");
+            Assert.fail("Copy with unknown algorithm must fail.");
+        } catch (CodingException e) {
+            Assert.assertEquals(2L, closed.get());
+        }
+        try {
+            IoUtils.copyVerifiedSilently(source.toPath(), target.toPath(), true, null, " ", sha256);
+            Assert.fail("Copy with blank algorithm must fail.");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        // without atomic rename an existing file is left with the unverified data
+        try {
+            IoUtils.copyVerifiedSilently(new ByteArrayInputStream(other), true, target.toPath(), false, null,
+                    "SHA-256", wrong);
+            Assert.fail("Copy with wrong digest must fail.");
+        } catch (DigestMismatchException e) {
+            // expected
+        }
+        Assert.assertArrayEquals(other, Files.readAllBytes(target.toPath()));
+
+        // without atomic rename a new unverified file is deleted
+        Assert.assertTrue(target.delete());
+        try {
+            IoUtils.copyVerifiedSilently(new ByteArrayInputStream(other), true, target.toPath(), false, null,
+                    "SHA-256", wrong);
+            Assert.fail("Copy with wrong digest must fail.");
+        } catch (DigestMismatchException e) {
+            // expected
+        }
+        Assert.assertFalse(target.exists());
+
+        if (Files.getFileAttributeView(target.toPath(), PosixFileAttributeView.class) != null) {
+            // a new file gets the default permissions, an existing file keeps it's permissions
+            IoUtils.copyVerifiedSilently(source.toPath(), target.toPath(), true, null, "SHA-256", sha256);
+            Assert.assertEquals(Files.getPosixFilePermissions(source.toPath()),
+                    Files.getPosixFilePermissions(target.toPath()));
+            final Set<PosixFilePermission> permissions = PosixFilePermissions.fromString("rw-r-----");
+            Files.setPosixFilePermissions(target.toPath(), permissions);
+            IoUtils.copyVerifiedSilently(source.toPath(), target.toPath(), true, null, "SHA-256", sha256);
+            Assert.assertEquals(permissions, Files.getPosixFilePermissions(target.toPath()));
+        }
+
+        System.out.println("OK");
+    }
+
+    @Test
+    public void testCancellingAsyncCopy() throws Exception {
+
+        System.out.println("Testing cancelling asynchronous copy ...");
+        final File source = createFile(createRandomBytes(1024 * 1024));
+        final File target = folder.newFile();
+
+        final CountDownLatch cancelled = new CountDownLatch(1);
+        final Future<Long> future = IoUtils.copyAsync(source.toPath(), target.toPath(),
+                new ByteArrayInputStreamListener() {
+                    @Override
+                    public void onReadBytes(byte[] buffer, int offset, int len) {
+                        try {
+                            // slow down, so that the copy can be cancelled
+                            Assert.assertTrue(cancelled.await(10L, TimeUnit.SECONDS));
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                }, null, null);
+        Assert.assertTrue(future.cancel(true));
+        cancelled.countDown();
+        Assert.assertTrue(future.isCancelled());
+        Assert.assertTrue(future.isDone());
+        try {
+            future.get();
+            Assert.fail("Cancelled copy must not return a result.");
+        } catch (CancellationException e) {
+            // expected
+        }
+
+        System.out.println("OK");
+    }
+
 }
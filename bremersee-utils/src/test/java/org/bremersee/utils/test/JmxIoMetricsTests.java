@@ -0,0 +1,217 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.bremersee.utils.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+
+import org.bremersee.utils.CodingException;
+import org.bremersee.utils.CodingUtils;
+import org.bremersee.utils.IORuntimeException;
+import org.bremersee.utils.IoMetrics;
+import org.bremersee.utils.IoOperationStats;
+import org.bremersee.utils.IoUtils;
+import org.bremersee.utils.JmxIoMetrics;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * @author Christian Bremer
+ */
+public class JmxIoMetricsTests {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @After
+    public void disableMetrics() {
+        IoUtils.setMetrics(null);
+    }
+
+    @Test
+    public void testCopyMetrics() throws Exception {
+
+        System.out.println("Testing copy metrics ...");
+        final MBeanServer server = MBeanServerFactory.newMBeanServer();
+        final JmxIoMetrics metrics = new JmxIoMetrics().register(server);
+        IoUtils.setMetrics(metrics);
+
+        final byte[] bytes = new byte[100000];
+        new Random(1L).nextBytes(bytes);
+        IoUtils.copySilently(new ByteArrayInputStream(bytes), new ByteArrayOutputStream(), true);
+        IoUtils.copySilently(new ByteArrayInputStream(bytes), new ByteArrayOutputStream(), false);
+        try {
+            IoUtils.copySilently(new InputStream() {
+                @Override
+                public int read() throws IOException {
+                    throw new IOException("Test");
+                }
+            }, new ByteArrayOutputStream(), true);
+            Assert.fail("Copy has not failed.");
+        } catch (IORuntimeException e) {
+            // expected
+        }
+
+        final IoOperationStats stats = metrics.getStats(IoMetrics.Operation.COPY);
+        Assert.assertEquals(2L, stats.getCount());
+        Assert.assertEquals(1L, stats.getErrorCount());
+        Assert.assertEquals(2L, stats.getCloseCount());
+        Assert.assertEquals(2L * bytes.length, stats.getBytes());
+        Assert.assertTrue(stats.getElapsedNanos() > 0L);
+        Assert.assertTrue(stats.getMaxElapsedNanos() <= stats.getElapsedNanos());
+        long histogramCount = 0L;
+        for (long count : stats.getThroughputHistogram()) {
+            histogramCount = histogramCount + count;
+        }
+        Assert.assertEquals(2L, histogramCount);
+        Assert.assertEquals(IoOperationStats.BUCKET_COUNT, stats.getThroughputBuckets().length);
+
+        final Object count = server.getAttribute(JmxIoMetrics.getObjectName(IoMetrics.Operation.COPY), "Count");
+        Assert.assertEquals(2L, count);
+
+        stats.reset();
+        Assert.assertEquals(0L, stats.getCount());
+        metrics.unregister();
+        Assert.assertFalse(server.isRegistered(JmxIoMetrics.getObjectName(IoMetrics.Operation.COPY)));
+
+        System.out.println("OK");
+    }
+
+    @Test
+    public void testDigestMetrics() {
+
+        System.out.println("Testing digest metrics ...");
+        final JmxIoMetrics metrics = new JmxIoMetrics();
+        IoUtils.setMetrics(metrics);
+
+        CodingUtils.digestSilently("SHA-256", new byte[1000]);
+        try {
+            CodingUtils.digestSilently(CodingUtils.getMessageDigestSilently("SHA-256"), new InputStream() {
+                @Override
+                public int read() throws IOException {
+                    throw new IOException("Test");
+                }
+            }, false);
+            Assert.fail("Digest has not failed.");
+        } catch (CodingException e) {
+            // expected
+        }
+        final IoOperationStats stats = metrics.getStats(IoMetrics.Operation.DIGEST);
+        Assert.assertEquals(1L, stats.getCount());
+        Assert.assertEquals(1L, stats.getErrorCount());
+        Assert.assertEquals(1000L, stats.getBytes());
+        Assert.assertEquals(0L, metrics.getStats(IoMetrics.Operation.COPY).getCount());
+
+        System.out.println("OK");
+    }
+
+    @Test
+    public void testCharacterAndFileMetrics() throws IOException {
+
+        System.out.println("Testing character and file metrics ...");
+        final JmxIoMetrics metrics = new JmxIoMetrics();
+        IoUtils.setMetrics(metrics);
+
+        IoUtils.copySilently(new StringReader("Hello"), new StringWriter(), true);
+        final IoOperationStats copyStats = metrics.getStats(IoMetrics.Operation.COPY);
+        Assert.assertEquals(1L, copyStats.getCount());
+        Assert.assertEquals(1L, copyStats.getCloseCount());
+        Assert.assertEquals(5L, copyStats.getBytes());
+
+        final Path file = folder.newFile().toPath();
+        Files.write(file, new byte[3000]);
+        CodingUtils.digestFileSilently(file, "SHA-256");
+        CodingUtils.treeDigestSilently(file, "SHA-256", 1024, null);
+        CodingUtils.digestAllSilently(new ByteArrayInputStream(new byte[500]), true, "SHA-256", "MD5");
+        final IoOperationStats digestStats = metrics.getStats(IoMetrics.Operation.DIGEST);
+        Assert.assertEquals(3L, digestStats.getCount());
+        Assert.assertEquals(3L, digestStats.getCloseCount());
+        Assert.assertEquals(6500L, digestStats.getBytes());
+
+        System.out.println("OK");
+    }
+
+    @Test
+    public void testEnablingTwice() {
+
+        System.out.println("Testing enabling metrics twice ...");
+        final ObjectName name = JmxIoMetrics.getObjectName(IoMetrics.Operation.COPY);
+        final JmxIoMetrics metrics = IoUtils.enableJmxMetrics();
+        try {
+            Assert.assertSame(metrics, IoUtils.enableJmxMetrics());
+            Assert.assertSame(metrics, IoUtils.getMetrics());
+            Assert.assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+        } finally {
+            metrics.unregister();
+        }
+
+        // replaced metrics don't unregister the MBeans of the new ones
+        final MBeanServer server = MBeanServerFactory.newMBeanServer();
+        final JmxIoMetrics first = new JmxIoMetrics().register(server);
+        final JmxIoMetrics second = new JmxIoMetrics().register(server);
+        first.unregister();
+        Assert.assertTrue(server.isRegistered(name));
+        second.unregister();
+        Assert.assertFalse(server.isRegistered(name));
+
+        System.out.println("OK");
+    }
+
+    @Test
+    public void testFailingMetrics() {
+
+        System.out.println("Testing failing metrics ...");
+        IoUtils.setMetrics(new IoMetrics() {
+            @Override
+            public void onCompleted(final Operation operation, final long bytes, final long elapsedNanos) {
+                throw new IllegalStateException("Test");
+            }
+
+            @Override
+            public void onFailed(final Operation operation, final long bytes, final long elapsedNanos,
+                                 final Throwable cause) {
+                throw new IllegalStateException("Test");
+            }
+
+            @Override
+            public void onClosed(final Operation operation) {
+                throw new IllegalStateException("Test");
+            }
+        });
+        Assert.assertEquals(3L, IoUtils.copySilently(
+                new ByteArrayInputStream(new byte[3]), new ByteArrayOutputStream(), true));
+
+        System.out.println("OK");
+    }
+
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.bremersee.utils.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executor;
+
+import org.bremersee.utils.AsyncInputStreamListener;
+import org.bremersee.utils.BatchingInputStreamListener;
+import org.bremersee.utils.InputStreamListener;
+import org.bremersee.utils.IoUtils;
+import org.bremersee.utils.ListenerUtils;
+import org.bremersee.utils.ReaderListener;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Christian Bremer
+ */
+public class ListenerUtilsTests {
+
+    private static byte[] createRandomBytes(final int len) {
+        final byte[] bytes = new byte[len];
+        new Random(len).nextBytes(bytes);
+        return bytes;
+    }
+
+    /**
+     * Returns a stream, that reads at most 100 bytes at once.
+     */
+    private static InputStream trickle(final byte[] bytes) {
+        return new FilterInputStream(new ByteArrayInputStream(bytes)) {
+            @Override
+            public int read(final byte[] b, final int off, final int len) throws IOException {
+                return super.read(b, off, Math.min(len, 100));
+            }
+        };
+    }
+
+    @Test
+    public void testBatching() {
+
+        System.out.println("Testing batching listener ...");
+        final byte[] bytes = createRandomBytes(100000);
+        final int[] calls = new int[1];
+        final ByteArrayInputStreamListener target = new ByteArrayInputStreamListener() {
+            @Override
+            public void onReadBytes(final byte[] buffer, final int offset, final int len) {
+                calls[0]++;
+                super.onReadBytes(buffer, offset, len);
+            }
+        };
+        final BatchingInputStreamListener listener = ListenerUtils.batch(target, 10000, 0L);
+        IoUtils.copySilently(trickle(bytes), new ByteArrayOutputStream(), true, listener);
+        // the rest of the last batch is delivered by flushing at the end of the copy
+        Assert.assertEquals(0, listener.getPendingLength());
+        Assert.assertArrayEquals(bytes, target.getBytes());
+        Assert.assertEquals(10, calls[0]);
+
+        System.out.println("OK");
+    }
+
+    @Test
+    public void testFanOut() {
+
+        System.out.println("Testing fan-out listener ...");
+        final byte[] bytes = createRandomBytes(50000);
+        final ByteArrayInputStreamListener first = new ByteArrayInputStreamListener();
+        final ByteArrayInputStreamListener second = new ByteArrayInputStreamListener();
+        final InputStreamListener listener = ListenerUtils.fanOut(
+                first, ListenerUtils.batch(second, 4096, 1000L));
+        IoUtils.copySilently(trickle(bytes), new ByteArrayOutputStream(), true, listener);
+        Assert.assertArrayEquals(bytes, first.getBytes());
+        Assert.assertArrayEquals(bytes, second.getBytes());
+
+        System.out.println("OK");
+    }
+
+    @Test
+    public void testAsync() throws Exception {
+
+        System.out.println("Testing asynchronous listener ...");
+        final byte[] bytes = createRandomBytes(200000);
+        final Thread reader = Thread.currentThread();
+        final List<Thread> threads = new ArrayList<>();
+        final ByteArrayInputStreamListener target = new ByteArrayInputStreamListener() {
+            @Override
+            public void onReadBytes(final byte[] buffer, final int offset, final int len) {
+                threads.add(Thread.currentThread());
+                super.onReadBytes(buffer, offset, len);
+            }
+        };
+        final AsyncInputStreamListener async = ListenerUtils.async(target, 4, false);
+        final InputStreamListener listener = ListenerUtils.batch(async, 8192, 0L);
+        IoUtils.copySilently(trickle(bytes), new ByteArrayOutputStream(), true, listener);
+        Assert.assertEquals(0L, async.getPendingCount());
+        Assert.assertEquals(0L, async.getDiscardedCount());
+        Assert.assertArrayEquals(bytes, target.getBytes());
+        Assert.assertFalse(threads.isEmpty());
+        Assert.assertFalse(threads.contains(reader));
+        async.close();
+
+        System.out.println("OK");
+    }
+
+    @Test
+    public void testAsyncDiscardWhenFull() throws Exception {
+
+        System.out.println("Testing asynchronous listener with a full queue ...");
+        final List<Runnable> tasks = new ArrayList<>();
+        final Executor executor = new Executor() {
+            @Override
+            public void execute(final Runnable command) {
+                tasks.add(command);
+            }
+        };
+        final ByteArrayInputStreamListener target = new ByteArrayInputStreamListener();
+        final AsyncInputStreamListener listener = ListenerUtils.async(target, executor, 2, true);
+        for (int i = 0; i < 5; i++) {
+            listener.onReadBytes(new byte[]{(byte) i}, 0, 1);
+        }
+        Assert.assertEquals(3L, listener.getDiscardedCount());
+        Assert.assertEquals(2L, listener.getPendingCount());
+        Assert.assertEquals(1, tasks.size());
+        tasks.get(0).run();
+        listener.flush();
+        Assert.assertEquals(0L, listener.getPendingCount());
+        Assert.assertArrayEquals(new byte[]{0, 1}, target.getBytes());
+
+        System.out.println("OK");
+    }
+
+    @Test
+    public void testAsyncFailure() throws Exception {
+
+        System.out.println("Testing asynchronous listener, that fails ...");
+        final AsyncInputStreamListener listener = ListenerUtils.async(new InputStreamListener() {
+            @Override
+            public void onReadBytes(final byte[] buffer, final int offset, final int len) {
+                throw new IllegalStateException("Test");
+            }
+        }, 4, false);
+        listener.onReadBytes(new byte[1], 0, 1);
+        try {
+            listener.flush();
+            Assert.fail("Failure of the listener is not reported.");
+        } catch (IOException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+
+        System.out.println("OK");
+    }
+
+    @Test
+    public void testReaderListeners() {
+
+        System.out.println("Testing reader listeners ...");
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            sb.append(i).append(' ');
+        }
+        final String text = sb.toString();
+        final StringBuilder first = new StringBuilder();
+        final StringBuilder second = new StringBuilder();
+        final ReaderListener listener = ListenerUtils.fanOut(
+                ListenerUtils.batch(new StringBuilderListener(first), 1000, 0L),
+                ListenerUtils.async(new StringBuilderListener(second), 4, false));
+        IoUtils.copySilently(new StringReader(text), new StringWriter(), true, listener);
+        Assert.assertEquals(text, first.toString());
+        Assert.assertEquals(text, second.toString());
+
+        System.out.println("OK");
+    }
+
+    private static class StringBuilderListener implements ReaderListener {
+
+        private final StringBuilder sb;
+
+        StringBuilderListener(final StringBuilder sb) {
+            this.sb = sb;
+        }
+
+        @Override
+        public void onReadChars(final char[] buffer, final int offset, final int len) {
+            sb.append(buffer, offset, len);
+        }
+    }
+
+}
@@ -151,4 +151,163 @@ public class MapUtilsTests {
         }));
     }
 
+    @Test
+    public void testSortMapWithEqualValues() {
+        System.out.println("Sorting map with equal values ...");
+        Map<String, Integer> unsorted = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            unsorted.put("key" + i, i % 3);
+        }
+        unsorted.put("null", null);
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>(MapUtils.sort(unsorted).entrySet());
+        TestCase.assertEquals(unsorted.size(), entries.size());
+        TestCase.assertEquals("null", entries.get(entries.size() - 1).getKey());
+        for (int i = 1; i < entries.size() - 1; i++) {
+            Map.Entry<String, Integer> e0 = entries.get(i - 1);
+            Map.Entry<String, Integer> e1 = entries.get(i);
+            int c = e0.getValue().compareTo(e1.getValue());
+            TestCase.assertTrue(c < 0 || (c == 0 && e0.getKey().compareTo(e1.getKey()) < 0));
+        }
+        System.out.println("OK");
+    }
+
+    private static <K, V> List<Map.Entry<K, V>> firstEntries(Map<K, V> map, int k) {
+        List<Map.Entry<K, V>> entries = new ArrayList<>(map.entrySet());
+        return new ArrayList<>(entries.subList(0, Math.min(k, entries.size())));
+    }
+
+    @Test
+    public void testTopK() {
+        System.out.println("Selecting top k entries ...");
+        Random random = new Random(22L);
+        Map<String, Integer> scores = new HashMap<>();
+        for (int i = 0; i < 400000; i++) {
+            scores.put("player" + i, random.nextInt(10000));
+        }
+        Comparator<Integer> highestFirst = Collections.reverseOrder();
+        Map<String, Integer> sorted = MapUtils.sort(scores, highestFirst);
+        for (int k : new int[]{0, 1, 10, 100}) {
+            List<Map.Entry<String, Integer>> expected = firstEntries(sorted, k);
+            TestCase.assertEquals(expected, new ArrayList<>(MapUtils.topK(scores, k, highestFirst).entrySet()));
+            TestCase.assertEquals(expected,
+                    new ArrayList<>(MapUtils.topK(scores, k, highestFirst, null).entrySet()));
+        }
+
+        // keys, that are not comparable, keep the iteration order of the map
+        Map<Object, Integer> small = new LinkedHashMap<>();
+        for (int i = 0; i < 50; i++) {
+            small.put(new Object(), i % 4);
+        }
+        TestCase.assertEquals(firstEntries(MapUtils.sort(small), 20),
+                new ArrayList<>(MapUtils.topK(small, 20).entrySet()));
+        TestCase.assertEquals(small.size(), MapUtils.topK(small, Integer.MAX_VALUE).size());
+        System.out.println("OK");
+    }
+
+    @Test
+    public void testSortMapInParallel() {
+        System.out.println("Sorting map in parallel ...");
+        Random random = new Random(23L);
+        Map<String, Integer> scores = new HashMap<>();
+        for (int i = 0; i < 300000; i++) {
+            scores.put("player" + i, random.nextInt(1000));
+        }
+        TestCase.assertEquals(new ArrayList<>(MapUtils.sort(scores).entrySet()),
+                new ArrayList<>(MapUtils.sort(scores, null, null).entrySet()));
+
+        // ties of keys, that are not comparable, keep the iteration order of the map
+        Map<Object, Integer> unsorted = new LinkedHashMap<>();
+        for (int i = 0; i < 200000; i++) {
+            unsorted.put(new Object(), random.nextInt(10));
+        }
+        Comparator<Integer> descending = Collections.reverseOrder();
+        Map<Object, Integer> sorted = MapUtils.sort(unsorted, descending, null);
+        TestCase.assertEquals(new ArrayList<>(MapUtils.sort(unsorted, descending).keySet()),
+                new ArrayList<>(sorted.keySet()));
+        try {
+            sorted.clear();
+            TestCase.fail("Sorted map must be unmodifiable.");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        System.out.println("OK");
+    }
+
+    @Test
+    public void testPrimitiveArrays() {
+        System.out.println("Testing primitive arrays ...");
+        int[] ints = new int[]{3, 1, 2};
+        Map<String, Object> values = new HashMap<>();
+        values.put("ints", ints);
+        values.put("longs", new long[]{4L, 5L});
+        values.put("chars", new char[]{'a', 'b'});
+        values.put("strings", Arrays.asList("1", "2"));
+        values.put("single", "7.5");
+        values.put("illegal", new String[]{"1", "x"});
+
+        // the list is a view of the array
+        List<?> list = MapUtils.getValueAsList(values, "ints");
+        TestCase.assertEquals(Arrays.asList(3, 1, 2), list);
+        ints[0] = 4;
+        TestCase.assertEquals(4, list.get(0));
+        try {
+            //noinspection unchecked
+            ((List<Object>) list).set(0, 5);
+            TestCase.fail("Array view must be read-only.");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        TestCase.assertEquals(Arrays.asList('a', 'b'), MapUtils.getValueAsList(values, "chars"));
+
+        // single values and object arrays are returned as modifiable copies
+        //noinspection unchecked
+        List<Object> copy = (List<Object>) MapUtils.getValueAsList(values, "single");
+        copy.add("8");
+        TestCase.assertEquals(Arrays.asList("7.5", "8"), copy);
+        //noinspection unchecked
+        copy = (List<Object>) MapUtils.getValueAsList(values, "illegal");
+        copy.set(1, "2");
+        TestCase.assertEquals("x", ((String[]) values.get("illegal"))[1]);
+
+        TestCase.assertEquals(4, MapUtils.getFirstValue(values, "ints", null));
+
+        TestCase.assertSame(ints, MapUtils.getValueAsIntArray(values, "ints", null));
+        TestCase.assertTrue(Arrays.equals(new int[]{1, 2}, MapUtils.getValueAsIntArray(values, "strings", null)));
+        TestCase.assertTrue(Arrays.equals(new long[]{4L, 5L}, MapUtils.getValueAsLongArray(values, "longs", null)));
+        TestCase.assertTrue(Arrays.equals(new long[]{4L, 1L, 2L}, MapUtils.getValueAsLongArray(values, "ints", null)));
+        TestCase.assertTrue(Arrays.equals(new double[]{7.5}, MapUtils.getValueAsDoubleArray(values, "single", null)));
+        int[] defaultValue = new int[0];
+        TestCase.assertSame(defaultValue, MapUtils.getValueAsIntArray(values, "illegal", defaultValue));
+        TestCase.assertSame(defaultValue, MapUtils.getValueAsIntArray(values, "missing", defaultValue));
+        System.out.println("OK");
+    }
+
+    @Test
+    public void testSortMapWithMixedKeys() {
+        System.out.println("Sorting map with mixed keys ...");
+        Random random = new Random(2021L);
+        Map<Object, Integer> unsorted = new HashMap<>();
+        for (int i = 0; i < 2000; i++) {
+            unsorted.put(random.nextBoolean() ? (Object) i : "key" + i, random.nextInt(3));
+        }
+        List<Map.Entry<Object, Integer>> entries = new ArrayList<>(MapUtils.sort(unsorted).entrySet());
+        TestCase.assertEquals(unsorted.size(), entries.size());
+        for (int i = 1; i < entries.size(); i++) {
+            Map.Entry<Object, Integer> e0 = entries.get(i - 1);
+            Map.Entry<Object, Integer> e1 = entries.get(i);
+            int c = e0.getValue().compareTo(e1.getValue());
+            TestCase.assertTrue(c <= 0);
+            if (c == 0 && e0.getKey().getClass() == e1.getKey().getClass()) {
+                //noinspection unchecked
+                TestCase.assertTrue(((Comparable<Object>) e0.getKey()).compareTo(e1.getKey()) < 0);
+            } else if (c == 0) {
+                // Integer is sorted before String by the class names
+                TestCase.assertTrue(e0.getKey() instanceof Integer);
+            }
+        }
+        TestCase.assertEquals(entries.subList(0, 10),
+                new ArrayList<>(MapUtils.topK(unsorted, 10).entrySet()));
+        System.out.println("OK");
+    }
+
 }
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.utils.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+
+import org.bremersee.utils.IoUtils;
+import org.bremersee.utils.RateLimiter;
+import org.bremersee.utils.ReaderListener;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Christian Bremer
+ */
+public class RateLimiterTests {
+
+    @Test
+    public void testThrottledCopy() {
+
+        System.out.println("Testing throttled copy ...");
+        final byte[] bytes = new byte[60000];
+        Arrays.fill(bytes, (byte) 'x');
+        final RateLimiter rateLimiter = new RateLimiter(100000L, 10000L);
+        Assert.assertEquals(100000L, rateLimiter.getRate());
+
+        final long start = System.nanoTime();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final long len = IoUtils.copySilently(new ByteArrayInputStream(bytes), out, true, null, rateLimiter);
+        final long millis = (System.nanoTime() - start) / 1000000L;
+        Assert.assertEquals(bytes.length, len);
+        Assert.assertArrayEquals(bytes, out.toByteArray());
+        // the first 10000 bytes are free, the other 50000 bytes need 0.5 seconds
+        Assert.assertTrue("Copy took only " + millis + " ms.", millis >= 400L);
+        Assert.assertTrue(rateLimiter.getCurrentRate() > 0d);
+
+        System.out.println("OK");
+    }
+
+    @Test
+    public void testSharedThrottledCopy() throws Exception {
+
+        System.out.println("Testing shared throttled copy ...");
+        final RateLimiter rateLimiter = new RateLimiter(50000L, 5000L);
+        final char[] chars = new char[10000];
+        Arrays.fill(chars, 'y');
+        final String text = new String(chars);
+        final double[] rate = new double[1];
+        final Thread[] threads = new Thread[2];
+        final long start = System.nanoTime();
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    final StringWriter writer = new StringWriter();
+                    IoUtils.copySilently(new StringReader(text), writer, true, new ReaderListener() {
+                        @Override
+                        public void onReadChars(char[] buffer, int offset, int len) {
+                            rate[0] = rateLimiter.getCurrentRate();
+                        }
+                    }, rateLimiter);
+                    Assert.assertEquals(text, writer.toString());
+                }
+            });
+            threads[i].start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        final long millis = (System.nanoTime() - start) / 1000000L;
+        // 20000 chars at 50000 chars per second with a burst of 5000 chars
+        Assert.assertTrue("Copy took only " + millis + " ms.", millis >= 250L);
+        Assert.assertTrue(rate[0] > 0d);
+
+        System.out.println("OK");
+    }
+
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.bremersee.utils.test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.bremersee.utils.MapUtils;
+import org.bremersee.utils.TypedMapView;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Christian Bremer
+ */
+public class TypedMapViewTests {
+
+    @Test
+    public void testConversions() {
+
+        System.out.println("Testing typed map view ...");
+        final Map<String, Object> map = new HashMap<>();
+        map.put("int", "42");
+        map.put("long", 1234567890123L);
+        map.put("bool", "TRUE");
+        map.put("decimal", "4.5");
+        map.put("list", Arrays.asList("7", "8"));
+        map.put("unit", "SECONDS");
+        map.put("illegal", "x");
+
+        final TypedMapView view = MapUtils.typedView(map);
+        Assert.assertSame(map, view.getMap());
+        Assert.assertEquals(Integer.valueOf(42), view.getInteger("int", null));
+        Assert.assertEquals(Long.valueOf(42L), view.getLong("int", null));
+        Assert.assertEquals("42", view.getString("int", null));
+        Assert.assertEquals(Long.valueOf(1234567890123L), view.getLong("long", null));
+        Assert.assertEquals(Boolean.TRUE, view.getBoolean("bool", null));
+        Assert.assertEquals(new BigDecimal("4.5"), view.getBigDecimal("decimal", null));
+        Assert.assertEquals(Double.valueOf(4.5), view.getDouble("decimal", null));
+        Assert.assertEquals(Float.valueOf(4.5f), view.getFloat("decimal", null));
+        Assert.assertEquals(Integer.valueOf(7), view.getInteger("list", null));
+        Assert.assertEquals(TimeUnit.SECONDS, view.getEnum("unit", TimeUnit.class, null));
+        Assert.assertEquals(TimeUnit.DAYS, view.getEnum("illegal", TimeUnit.class, TimeUnit.DAYS));
+        Assert.assertEquals(MapUtils.getValueAsByte(map, "int", null), view.getByte("int", null));
+        Assert.assertEquals(MapUtils.getValueAsShort(map, "int", null), view.getShort("int", null));
+        Assert.assertEquals(MapUtils.getValueAsBigInteger(map, "long", null), view.getBigInteger("long", null));
+
+        // values, that cannot be converted, return the default value of every call
+        Assert.assertEquals(Integer.valueOf(1), view.getInteger("illegal", 1));
+        Assert.assertEquals(Integer.valueOf(2), view.getInteger("illegal", 2));
+        Assert.assertNull(view.getInteger("missing", null));
+
+        System.out.println("OK");
+    }
+
+    @Test
+    public void testCachingUntilValueIsReplaced() {
+
+        System.out.println("Testing typed map view caches conversions ...");
+        final Map<String, Object> map = new HashMap<>();
+        map.put("decimal", "4.5");
+        final TypedMapView view = new TypedMapView(map);
+
+        final BigDecimal first = view.getBigDecimal("decimal", null);
+        Assert.assertSame(first, view.getBigDecimal("decimal", null));
+
+        map.put("decimal", "5.5");
+        final BigDecimal second = view.getBigDecimal("decimal", null);
+        Assert.assertEquals(new BigDecimal("5.5"), second);
+        Assert.assertSame(second, view.getBigDecimal("decimal", null));
+
+        map.remove("decimal");
+        Assert.assertNull(view.getBigDecimal("decimal", null));
+
+        map.put("decimal", "6.5");
+        Assert.assertEquals(new BigDecimal("6.5"), view.getBigDecimal("decimal", null));
+        view.clear();
+        Assert.assertEquals(new BigDecimal("6.5"), view.getBigDecimal("decimal", null));
+
+        System.out.println("OK");
+    }
+
+}
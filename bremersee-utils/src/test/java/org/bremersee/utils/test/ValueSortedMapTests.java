@@ -0,0 +1,161 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.bremersee.utils.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.bremersee.utils.MapUtils;
+import org.bremersee.utils.ValueSortedMap;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Christian Bremer
+ */
+public class ValueSortedMapTests {
+
+    private static List<String> keys(final Map<String, ?> map) {
+        return new ArrayList<>(map.keySet());
+    }
+
+    @Test
+    public void testSortedWhileUpdated() {
+
+        System.out.println("Testing value sorted map ...");
+        final ValueSortedMap<String, Integer> map = new ValueSortedMap<>(Collections.<Integer>reverseOrder());
+        map.put("anna", 10);
+        map.put("bert", 30);
+        map.put("carl", 20);
+        map.put("dora", 20);
+        Assert.assertEquals(4, map.size());
+        Assert.assertEquals(Integer.valueOf(20), map.get("carl"));
+        // equal values are sorted by key
+        Assert.assertEquals(Arrays.asList("bert", "carl", "dora", "anna"), keys(map));
+        Assert.assertEquals("bert", map.firstEntry().getKey());
+        Assert.assertEquals("anna", map.lastEntry().getKey());
+
+        Assert.assertEquals(Integer.valueOf(10), map.put("anna", 40));
+        Assert.assertEquals(Arrays.asList("anna", "bert", "carl", "dora"), keys(map));
+        Assert.assertEquals(Integer.valueOf(30), map.remove("bert"));
+        Assert.assertNull(map.remove("bert"));
+        Assert.assertEquals(Arrays.asList("anna", "carl", "dora"), keys(map));
+        Assert.assertEquals("dora", map.descendingIterator().next().getKey());
+
+        final Iterator<Map.Entry<String, Integer>> iterator = map.entrySet().iterator();
+        iterator.next();
+        iterator.remove();
+        Assert.assertFalse(map.containsKey("anna"));
+        Assert.assertEquals(2, map.size());
+        try {
+            map.firstEntry().setValue(1);
+            Assert.fail("Entries must not be changed directly.");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+
+        map.put("emil", null);
+        Assert.assertEquals("emil", map.lastEntry().getKey());
+        Assert.assertTrue(map.containsKey("emil"));
+        map.clear();
+        Assert.assertTrue(map.isEmpty());
+        Assert.assertNull(map.firstEntry());
+
+        System.out.println("OK");
+    }
+
+    @Test
+    public void testSameOrderAsSort() {
+
+        System.out.println("Testing value sorted map has the order of MapUtils.sort ...");
+        final Random random = new Random(21L);
+        final Map<String, Integer> source = new HashMap<>();
+        final ValueSortedMap<String, Integer> map = new ValueSortedMap<>();
+        for (int i = 0; i < 5000; i++) {
+            final String key = "key" + random.nextInt(2000);
+            final Integer value = random.nextInt(100);
+            source.put(key, value);
+            map.put(key, value);
+            if (i % 7 == 0) {
+                final String removed = "key" + random.nextInt(2000);
+                source.remove(removed);
+                map.remove(removed);
+            }
+        }
+        Assert.assertEquals(source, map);
+        final Map<String, Integer> sorted = MapUtils.sort(source);
+        Assert.assertEquals(keys(sorted), keys(map));
+        Assert.assertEquals(keys(sorted), keys(new ValueSortedMap<>(source)));
+
+        System.out.println("OK");
+    }
+
+    @Test
+    public void testMixedKeys() {
+
+        System.out.println("Testing value sorted map with mixed keys ...");
+        final ValueSortedMap<Object, Integer> map = new ValueSortedMap<>();
+        final Object[] keys = {3, "x", 1, 2, "a"};
+        for (final Object key : keys) {
+            map.put(key, 0);
+        }
+        Assert.assertEquals(Arrays.<Object>asList(1, 2, 3, "a", "x"), new ArrayList<>(map.keySet()));
+        map.put(3, 0);
+        map.put(1, 0);
+        map.put("x", 0);
+        for (final Object key : keys) {
+            Assert.assertEquals(Integer.valueOf(0), map.remove(key));
+        }
+        Assert.assertEquals(0, map.size());
+        Assert.assertFalse(map.entrySet().iterator().hasNext());
+
+        System.out.println("OK");
+    }
+
+    @Test
+    public void testValueChangedInPlace() {
+
+        System.out.println("Testing value sorted map with a value changed in place ...");
+        final ValueSortedMap<String, StringBuilder> map = new ValueSortedMap<>(
+                new Comparator<StringBuilder>() {
+                    @Override
+                    public int compare(final StringBuilder sb1, final StringBuilder sb2) {
+                        return sb1.toString().compareTo(sb2.toString());
+                    }
+                });
+        final StringBuilder changed = new StringBuilder("b");
+        map.put("first", new StringBuilder("a"));
+        map.put("second", changed);
+        map.put("third", new StringBuilder("c"));
+        changed.setLength(0);
+        changed.append("z");
+        Assert.assertSame(changed, map.remove("second"));
+        Assert.assertEquals(2, map.size());
+        Assert.assertEquals(Arrays.asList("first", "third"), keys(map));
+
+        System.out.println("OK");
+    }
+
+}